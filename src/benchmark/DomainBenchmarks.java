@@ -0,0 +1,183 @@
+package benchmark;
+
+import domain.*;
+import java.io.File;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Microbenchmarks of the hot paths of the domain, run with
+ * {@link Microbench}: the tic-tac of the valley for several sizes and
+ * densities, the neighbor query, the move of a mammal, the turn of each
+ * kind of unit, the reproduction of the Lotka-Volterra wolves, and the
+ * four file operations of {@link Fachada}.
+ *
+ * Usage: java benchmark.DomainBenchmarks [regex] [iterationMillis] [iterations]
+ *
+ * Only the benchmarks whose name matches the regular expression are run.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class DomainBenchmarks {
+
+    // Semilla fija para que la ubicacion de las unidades sea repetible.
+    private static final long SEED = 42L;
+
+    // Escenarios del tic-tac: lados y densidades.
+    private static final int[] SIDES = {25, 100, 500};
+    private static final double[] DENSITIES = {0.01, 0.1, 0.3};
+
+    // Celdas consultadas en cada llamada de neighborsEquals.
+    private static final int QUERIES = 1024;
+
+    private static Pattern filter;
+
+    public static void main(String[] args) throws Exception {
+        filter = Pattern.compile(args.length > 0 ? args[0] : ".*");
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 200;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        Microbench bench = new Microbench(3, iterations, millis);
+
+        Microbench.printHeader();
+        ticTac(bench);
+        neighborsEquals(bench);
+        move(bench);
+        act(bench);
+        reproduce(bench);
+        files(bench);
+    }
+
+    /**
+     * Valley.ticTac for every side and density, on a fresh valley each iteration.
+     */
+    private static void ticTac(Microbench bench) throws Exception {
+        for (int side : SIDES) {
+            for (double density : DENSITIES) {
+                run(bench, "Valley.ticTac", "side=" + side + " density=" + density, 1, () -> {
+                    Valley valley = ValleyScalingBenchmark.populate(side, side, density,
+                            StorageMode.DENSE, new Random(SEED));
+                    valley.setSeed(SEED);
+                    return valley::ticTac;
+                });
+            }
+        }
+    }
+
+    /**
+     * Valley.neighborsEquals over a fixed set of cells of a crowded valley.
+     */
+    private static void neighborsEquals(Microbench bench) throws Exception {
+        int side = 200;
+        run(bench, "Valley.neighborsEquals", "side=" + side + " density=0.3", QUERIES, () -> {
+            Random random = new Random(SEED);
+            Valley valley = ValleyScalingBenchmark.populate(side, side, 0.3, StorageMode.DENSE, random);
+            int[] rows = new int[QUERIES];
+            int[] columns = new int[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                rows[i] = random.nextInt(side);
+                columns[i] = random.nextInt(side);
+            }
+            return () -> {
+                long total = 0;
+                for (int i = 0; i < QUERIES; i++) {
+                    total += valley.neighborsEquals(rows[i], columns[i]);
+                }
+                Microbench.consume(total);
+            };
+        });
+    }
+
+    /**
+     * Mammal.move of a sheep going back and forth between two cells.
+     */
+    private static void move(Microbench bench) throws Exception {
+        run(bench, "Mammal.move", "side=25", 2, () -> {
+            Valley valley = new Valley(25, 25);
+            Sheep sheep = new Sheep(valley, 12, 12);
+            return () -> {
+                sheep.setEnergy(100);
+                sheep.move(13, 12);
+                sheep.move(12, 12);
+            };
+        });
+    }
+
+    /**
+     * The act of one unit of each kind, alone in the middle of the valley.
+     * Animals get their energy back before each turn so they never die.
+     */
+    private static void act(Microbench bench) throws Exception {
+        for (UnitKind kind : UnitKind.values()) {
+            run(bench, "act", kind.typeName(), 1, () -> {
+                Valley valley = new Valley(64, 64);
+                valley.setSeed(SEED);
+                Unit unit = kind.create(valley, 32, 32);
+                if (unit instanceof Animal) {
+                    Animal animal = (Animal) unit;
+                    return () -> {
+                        animal.setEnergy(100);
+                        unit.act();
+                    };
+                }
+                return unit::act;
+            });
+        }
+    }
+
+    /**
+     * WolfLotVol.tryReproduce, measured through the act of a wolf that
+     * has a partner and free cells around it. Every call builds the pair
+     * again; the "setup" line measures that cost alone so it can be
+     * subtracted.
+     */
+    private static void reproduce(Microbench bench) throws Exception {
+        run(bench, "WolfLotVol.reproduce", "setup", 1, () -> () -> pair());
+        run(bench, "WolfLotVol.reproduce", "act", 1, () -> () -> pair().act());
+    }
+
+    private static WolfLotVol pair() {
+        Valley valley = new Valley(4, 4);
+        valley.setSeed(SEED);
+        WolfLotVol wolf = new WolfLotVol(valley, 1, 1);
+        new WolfLotVol(valley, 1, 2);
+        return wolf;
+    }
+
+    /**
+     * Fachada.save, open, export and importFile on a populated valley.
+     */
+    private static void files(Microbench bench) throws Exception {
+        int side = 100;
+        String params = "side=" + side + " density=0.1";
+        File saved = File.createTempFile("valley", ".dat");
+        File exported = File.createTempFile("valley", ".txt");
+        saved.deleteOnExit();
+        exported.deleteOnExit();
+
+        Fachada fachada = new Fachada();
+        fachada.newValley(side, side);
+        Random random = new Random(SEED);
+        for (int i = 0; i < side * side / 10; i++) {
+            int r = random.nextInt(side);
+            int c = random.nextInt(side);
+            if (fachada.getValley().isEmpty(r, c)) {
+                UnitKind.values()[random.nextInt(UnitKind.values().length)].create(fachada.getValley(), r, c);
+            }
+        }
+        fachada.save(saved);
+        fachada.export(exported);
+
+        run(bench, "Fachada.save", params, 1, () -> () -> fachada.save(saved));
+        run(bench, "Fachada.open", params, 1, () -> () -> new Fachada().open(saved));
+        run(bench, "Fachada.export", params, 1, () -> () -> fachada.export(exported));
+        run(bench, "Fachada.importFile", params, 1, () -> () -> new Fachada().importFile(exported));
+    }
+
+    private static void run(Microbench bench, String name, String params, int opsPerCall,
+            Microbench.Setup setup) throws Exception {
+        if (filter.matcher(name).find()) {
+            bench.run(name, params, opsPerCall, setup);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package benchmark;
+
+import domain.*;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Compares the import of a text scenario through the byte scanner of
+ * {@link Fachada#importFile(File)} with the line reader used before
+ * ({@link Fachada#importFile02(File)}). It generates a file with about
+ * the given number of units, a quarter of the cells of a square valley,
+ * and reports for each parser the time, the units per second and the
+ * bytes allocated by the import.
+ *
+ * Usage: java benchmark.ImportBenchmark [units] [repetitions]
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class ImportBenchmark {
+
+    // Semilla fija para que el archivo sea repetible.
+    private static final long SEED = 42L;
+
+    // Fraccion de celdas ocupadas.
+    private static final double DENSITY = 0.25;
+
+    public static void main(String[] args) throws Exception {
+        long units = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        File file = File.createTempFile("valley", ".txt");
+        file.deleteOnExit();
+        long written = generate(file, units);
+        System.out.printf("%d unidades, %d bytes%n", written, file.length());
+
+        System.out.printf("%-8s %10s %12s %14s%n", "parser", "ms", "units/s", "bytes alloc");
+        for (int i = 0; i < repetitions; i++) {
+            measure("reader", file, false);
+            measure("scanner", file, true);
+        }
+    }
+
+    /**
+     * Writes a scenario with a unit in about a quarter of the cells.
+     *
+     * @return the number of units written.
+     */
+    private static long generate(File file, long units) throws IOException {
+        int side = (int) Math.ceil(Math.sqrt(units / DENSITY));
+        Random random = new Random(SEED);
+        UnitKind[] kinds = UnitKind.values();
+        long count = 0;
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 20)) {
+            out.write((Fachada.SIZE_FIELD + " " + side + " " + side + "\n").getBytes(StandardCharsets.US_ASCII));
+            out.write((Fachada.SEED_FIELD + " " + SEED + "\n").getBytes(StandardCharsets.US_ASCII));
+            for (int r = 0; r < side && count < units; r++) {
+                for (int c = 0; c < side && count < units; c++) {
+                    if (random.nextDouble() < DENSITY) {
+                        String line = kinds[random.nextInt(kinds.length)].typeName() + " " + r + " " + c + "\n";
+                        out.write(line.getBytes(StandardCharsets.US_ASCII));
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void measure(String name, File file, boolean scanner) throws ValleyException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        System.gc();
+        Fachada fachada = new Fachada();
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        if (scanner) {
+            fachada.importFile(file);
+        } else {
+            fachada.importFile02(file);
+        }
+        long nanos = System.nanoTime() - start;
+        allocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+        int population = fachada.getValley().population();
+        System.out.printf("%-8s %10.1f %12.0f %14d%n", name, nanos / 1e6, population * 1e9 / nanos, allocated);
+    }
+}
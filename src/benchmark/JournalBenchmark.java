@@ -0,0 +1,82 @@
+package benchmark;
+
+import domain.*;
+import java.io.File;
+import java.util.Random;
+
+/**
+ * Measures the tick journal: for several keyframe intervals it records
+ * a run, and reports the bytes per tic-tac, the time spent recording
+ * each tic-tac and the time to rebuild random tic-tacs. The size of a
+ * full snapshot of the valley is printed for comparison.
+ *
+ * Usage: java benchmark.JournalBenchmark [side] [ticks] [seeks]
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class JournalBenchmark {
+
+    // Intervalos de keyframes medidos.
+    private static final int[] INTERVALS = {10, 100, 1000};
+
+    // Semilla fija para que la ubicacion de las unidades sea repetible.
+    private static final long SEED = 42L;
+
+    // Fraccion de celdas ocupadas al comenzar.
+    private static final double DENSITY = 0.1;
+
+    public static void main(String[] args) throws Exception {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int seeks = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        File journalFile = File.createTempFile("valley", ".vlj");
+        File snapshot = File.createTempFile("valley", ".dat");
+        journalFile.deleteOnExit();
+        snapshot.deleteOnExit();
+
+        System.out.printf("%9s %12s %12s %14s %12s %10s%n",
+                "interval", "bytes", "bytes/tick", "record us/tick", "snapshot", "seek ms");
+        for (int interval : INTERVALS) {
+            Fachada fachada = new Fachada();
+            fachada.newValley(side, side);
+            Valley valley = fachada.getValley();
+            valley.setSeed(SEED);
+            Random random = new Random(SEED);
+            for (long i = 0; i < (long) (DENSITY * side * side); i++) {
+                int r = random.nextInt(side);
+                int c = random.nextInt(side);
+                if (valley.isEmpty(r, c)) {
+                    UnitKind.values()[random.nextInt(UnitKind.values().length)].create(valley, r, c);
+                }
+            }
+            fachada.save(snapshot);
+
+            long recording = 0;
+            long bytes;
+            try (TickJournal journal = new TickJournal(journalFile, interval)) {
+                journal.record(valley);
+                for (int t = 0; t < ticks; t++) {
+                    valley.ticTac();
+                    long start = System.nanoTime();
+                    journal.record(valley);
+                    recording += System.nanoTime() - start;
+                }
+                bytes = journal.getBytes();
+            }
+
+            long seeking = 0;
+            try (TickJournal.Reader reader = new TickJournal.Reader(journalFile)) {
+                for (int i = 0; i < seeks; i++) {
+                    long tick = random.nextInt(ticks + 1);
+                    long start = System.nanoTime();
+                    reader.seek(tick);
+                    seeking += System.nanoTime() - start;
+                }
+            }
+            System.out.printf("%9d %12d %12.1f %14.1f %12d %10.2f%n", interval, bytes, (double) bytes / ticks,
+                    recording / 1e3 / ticks, snapshot.length(), seeking / 1e6 / seeks);
+        }
+    }
+}
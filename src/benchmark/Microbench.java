@@ -0,0 +1,169 @@
+package benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Small microbenchmark harness in the spirit of JMH, for the machines
+ * where JMH is not available. Each benchmark prepares a fresh state per
+ * iteration, is warmed up, and is then measured for a fixed time per
+ * iteration. It reports the mean time per operation with its standard
+ * deviation and the bytes allocated per operation by the measuring
+ * thread, which plays the role of the JMH gc profiler.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public final class Microbench {
+
+    /**
+     * One measured operation.
+     */
+    @FunctionalInterface
+    public interface Operation {
+        void run() throws Exception;
+    }
+
+    /**
+     * Builds the state of one iteration and returns the operation to measure on it.
+     */
+    @FunctionalInterface
+    public interface Setup {
+        Operation prepare() throws Exception;
+    }
+
+    /**
+     * Measures of one benchmark.
+     */
+    public static final class Result {
+        public final String name;
+        public final String params;
+        public final double nsPerOp;
+        public final double error;
+        public final double bytesPerOp;
+
+        Result(String name, String params, double nsPerOp, double error, double bytesPerOp) {
+            this.name = name;
+            this.params = params;
+            this.nsPerOp = nsPerOp;
+            this.error = error;
+            this.bytesPerOp = bytesPerOp;
+        }
+    }
+
+    // Evita que el JIT descarte los resultados de las operaciones.
+    private static volatile long sink;
+
+    private final int warmups;
+    private final int iterations;
+    private final long iterationNanos;
+    private final List<Result> results = new ArrayList<>();
+
+    /**
+     * Creates a harness.
+     *
+     * @param warmups Iterations run before measuring.
+     * @param iterations Measured iterations.
+     * @param iterationMillis Minimum duration of each iteration.
+     */
+    public Microbench(int warmups, int iterations, long iterationMillis) {
+        this.warmups = warmups;
+        this.iterations = iterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+    }
+
+    /**
+     * Keeps a value alive so the computation that produced it is not removed.
+     */
+    public static void consume(long value) {
+        sink += value;
+    }
+
+    /**
+     * Runs a benchmark and prints its line.
+     *
+     * @param name Name of the benchmark.
+     * @param params Description of its parameters.
+     * @param opsPerCall Operations done by each call of the operation.
+     * @param setup Builds the state of each iteration.
+     * @return the measures.
+     */
+    public Result run(String name, String params, int opsPerCall, Setup setup) throws Exception {
+        for (int i = 0; i < warmups; i++) {
+            iterate(setup.prepare(), opsPerCall);
+        }
+        double[] times = new double[iterations];
+        double bytes = 0;
+        for (int i = 0; i < iterations; i++) {
+            double[] measure = iterate(setup.prepare(), opsPerCall);
+            times[i] = measure[0];
+            bytes += measure[1];
+        }
+        double mean = 0;
+        for (double t : times) {
+            mean += t;
+        }
+        mean /= iterations;
+        double variance = 0;
+        for (double t : times) {
+            variance += (t - mean) * (t - mean);
+        }
+        double error = iterations > 1 ? Math.sqrt(variance / (iterations - 1)) : 0;
+
+        Result result = new Result(name, params, mean, error, bytes / iterations);
+        results.add(result);
+        System.out.printf("%-28s %-30s %14.1f %10.1f %12.1f%n", name, params, mean, error, result.bytesPerOp);
+        return result;
+    }
+
+    /**
+     * Prints the header of the result lines.
+     */
+    public static void printHeader() {
+        System.out.printf("%-28s %-30s %14s %10s %12s%n", "benchmark", "params", "ns/op", "error", "B/op");
+    }
+
+    /**
+     * Returns the results measured so far.
+     */
+    public List<Result> results() {
+        return results;
+    }
+
+    /**
+     * Calls the operation until the iteration time is over.
+     *
+     * @return the time and the bytes allocated per operation.
+     */
+    private double[] iterate(Operation operation, int opsPerCall) throws Exception {
+        long calls = 0;
+        long batch = 1;
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (long i = 0; i < batch; i++) {
+                operation.run();
+            }
+            calls += batch;
+            batch = Math.min(batch * 2, 1 << 16);
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        long bytes = allocatedBytes() - bytesBefore;
+        double ops = (double) calls * opsPerCall;
+        return new double[] {elapsed / ops, bytes / ops};
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or 0 if
+     * the virtual machine cannot tell.
+     */
+    static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+}
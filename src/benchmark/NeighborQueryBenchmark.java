@@ -0,0 +1,106 @@
+package benchmark;
+
+import domain.*;
+import java.util.Random;
+
+/**
+ * Compares the ways a valley can answer "how many sheep are next to this
+ * cell": the original scan of the eight neighbors, the occupancy
+ * bitboards, the bitboards one row at a time, and the table of neighbor
+ * counts. Each query is asked for every cell of the valley.
+ *
+ * Usage: java benchmark.NeighborQueryBenchmark [side] [density] [rounds]
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class NeighborQueryBenchmark {
+
+    // Semilla fija para que la ubicacion de las unidades sea repetible.
+    private static final long SEED = 42L;
+
+    // Evita que el JIT descarte las consultas medidas.
+    static volatile long sink;
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        double density = args.length > 1 ? Double.parseDouble(args[1]) : 0.2;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        Valley valley = ValleyScalingBenchmark.populate(side, side, density, StorageMode.DENSE, new Random(SEED));
+        long cells = (long) side * side;
+        byte[] counts = new byte[side];
+
+        System.out.printf("%-14s %14s %12s%n", "query", "ns/round", "ns/cell");
+        report("scan", cells, rounds, () -> {
+            long total = 0;
+            for (int r = 0; r < side; r++) {
+                for (int c = 0; c < side; c++) {
+                    total += scan(valley, r, c);
+                }
+            }
+            sink += total;
+        });
+        report("bitboards", cells, rounds, () -> {
+            long total = 0;
+            for (int r = 0; r < side; r++) {
+                for (int c = 0; c < side; c++) {
+                    total += valley.countNeighbors(r, c, UnitKind.SHEEP);
+                }
+            }
+            sink += total;
+        });
+        report("bitboard rows", cells, rounds, () -> {
+            long total = 0;
+            for (int r = 0; r < side; r++) {
+                valley.countNeighbors(UnitKind.SHEEP, r, counts);
+                for (int c = 0; c < side; c++) {
+                    total += counts[c];
+                }
+            }
+            sink += total;
+        });
+
+        valley.setNeighborCounting(true);
+        report("counts", cells, rounds, () -> {
+            long total = 0;
+            for (int r = 0; r < side; r++) {
+                for (int c = 0; c < side; c++) {
+                    total += valley.countNeighbors(r, c, UnitKind.SHEEP);
+                }
+            }
+            sink += total;
+        });
+
+        // Costo de mantener la tabla durante la simulacion
+        valley.setNeighborCounting(false);
+        long plain = PackedValleyBenchmark.time(valley::ticTac, rounds);
+        valley.setNeighborCounting(true);
+        long counted = PackedValleyBenchmark.time(valley::ticTac, rounds);
+        System.out.printf("%-14s %14d%n%-14s %14d%n", "tick", plain, "tick+counts", counted);
+    }
+
+    /**
+     * Counts the neighboring sheep testing the class of each neighbor,
+     * as the units did before the valley kept any index.
+     */
+    private static int scan(Valley valley, int r, int c) {
+        int num = 0;
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                if ((dr != 0 || dc != 0) && valley.inValley(r + dr, c + dc)) {
+                    Unit neighbor = valley.getUnit(r + dr, c + dc);
+                    if (neighbor != null && neighbor.getClass() == Sheep.class) {
+                        num++;
+                    }
+                }
+            }
+        }
+        return num;
+    }
+
+    private static void report(String name, long cells, int rounds, Runnable round) {
+        long perRound = PackedValleyBenchmark.time(round, rounds);
+        System.out.printf("%-14s %14d %12.2f%n", name, perRound, (double) perRound / cells);
+    }
+}
@@ -0,0 +1,65 @@
+package benchmark;
+
+import domain.*;
+import java.util.Random;
+
+/**
+ * Compares the object valley with the packed one on the same scenario:
+ * time of one tic-tac and heap used per unit.
+ *
+ * Usage: java benchmark.PackedValleyBenchmark [side] [density] [ticks]
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class PackedValleyBenchmark {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        double density = args.length > 1 ? Double.parseDouble(args[1]) : 0.05;
+        int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        long before = usedMemory();
+        Valley valley = ValleyScalingBenchmark.populate(side, side, density,
+                StorageMode.DENSE, new Random(42L));
+        long objectBytes = usedMemory() - before;
+        int units = ValleyScalingBenchmark.countUnits(valley);
+
+        before = usedMemory();
+        PackedValley packed = PackedValley.of(valley);
+        long packedBytes = usedMemory() - before;
+
+        long objectNs = time(valley::ticTac, ticks);
+        long packedNs = time(packed::ticTac, ticks);
+
+        System.out.printf("units: %d on %dx%d%n", units, side, side);
+        System.out.printf("%-8s %14s %14s%n", "store", "ns/tick", "bytes/unit");
+        System.out.printf("%-8s %14d %14d%n", "object", objectNs, objectBytes / Math.max(1, units));
+        System.out.printf("%-8s %14d %14d%n", "packed", packedNs, packedBytes / Math.max(1, units));
+    }
+
+    /**
+     * Returns the average time of one call after a short warm up.
+     */
+    static long time(Runnable tick, int ticks) {
+        for (int i = 0; i < 5; i++) {
+            tick.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            tick.run();
+        }
+        return (System.nanoTime() - start) / ticks;
+    }
+
+    /**
+     * Returns the heap in use after asking for a collection.
+     */
+    static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,61 @@
+package benchmark;
+
+import domain.*;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures the speed-up of {@link TickMode#PARALLEL} tic-tacs with the
+ * number of threads. The same valley is rebuilt for every pool size,
+ * so each run starts from the same units. Pools go up to the number of
+ * cores unless a larger maximum is given.
+ *
+ * Usage: java benchmark.ParallelTickBenchmark [side] [density] [ticks] [mode] [threads]
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class ParallelTickBenchmark {
+
+    // Semilla fija para que la ubicacion de las unidades sea repetible.
+    private static final long SEED = 42L;
+
+    public static void main(String[] args) throws Exception {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        double density = args.length > 1 ? Double.parseDouble(args[1]) : 0.05;
+        int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        StorageMode mode = args.length > 3 ? StorageMode.valueOf(args[3]) : StorageMode.DENSE;
+        int cores = Runtime.getRuntime().availableProcessors();
+        int maximum = args.length > 4 ? Integer.parseInt(args[4]) : cores;
+
+        System.out.printf("side %d, density %.3f, %s, %d cores%n", side, density, mode, cores);
+        System.out.printf("%8s %14s %10s%n", "threads", "ns/tick", "speed-up");
+        long base = 0;
+        for (int threads : poolSizes(maximum)) {
+            Valley valley = ValleyScalingBenchmark.populate(side, side, density, mode, new Random(SEED));
+            valley.setTickMode(TickMode.PARALLEL);
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                long perTick = pool.submit(() -> PackedValleyBenchmark.time(valley::ticTac, ticks)).get();
+                if (threads == 1) {
+                    base = perTick;
+                }
+                System.out.printf("%8d %14d %10.2f%n", threads, perTick, (double) base / perTick);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Returns 1, 2, 4... up to the maximum, always ending with it.
+     */
+    private static int[] poolSizes(int maximum) {
+        java.util.List<Integer> sizes = new java.util.ArrayList<>();
+        for (int threads = 1; threads < maximum; threads *= 2) {
+            sizes.add(threads);
+        }
+        sizes.add(maximum);
+        return sizes.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,88 @@
+package benchmark;
+
+import domain.*;
+import java.io.File;
+import java.util.Random;
+
+/**
+ * Compares the binary snapshot written by {@link Fachada#save(File)}
+ * with the Java serialization used before ({@link Fachada#save01(File)}
+ * and {@link Fachada#open01(File)}). For every valley it reports the
+ * size of both files and the time to save and to open them. Serialized
+ * valleys are written as the bytes of their snapshot, so the difference
+ * between both rows is the cost of going through the object streams.
+ *
+ * Usage: java benchmark.SnapshotBenchmark [density] [repetitions]
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class SnapshotBenchmark {
+
+    // Lados de los valles medidos.
+    private static final int[] SIDES = {100, 500, 1000, 2000};
+
+    // Semilla fija para que la ubicacion de las unidades sea repetible.
+    private static final long SEED = 42L;
+
+    public static void main(String[] args) throws Exception {
+        double density = args.length > 0 ? Double.parseDouble(args[0]) : 0.1;
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        File serialized = File.createTempFile("valley", ".ser.dat");
+        File snapshot = File.createTempFile("valley", ".dat");
+        serialized.deleteOnExit();
+        snapshot.deleteOnExit();
+
+        System.out.printf("%6s %9s %-10s %12s %10s %10s %12s%n",
+                "side", "units", "format", "bytes", "save ms", "open ms", "units/s open");
+        for (int side : SIDES) {
+            Fachada fachada = new Fachada();
+            fachada.newValley(side, side);
+            Random random = new Random(SEED);
+            for (long i = 0; i < (long) (density * side * side); i++) {
+                int r = random.nextInt(side);
+                int c = random.nextInt(side);
+                if (fachada.getValley().isEmpty(r, c)) {
+                    UnitKind.values()[random.nextInt(UnitKind.values().length)].create(fachada.getValley(), r, c);
+                }
+            }
+            int units = fachada.getValley().population();
+
+            // Una vuelta de calentamiento por formato
+            fachada.save01(serialized);
+            new Fachada().open01(serialized);
+            fachada.save(snapshot);
+            new Fachada().open(snapshot);
+
+            long save = 0;
+            long open = 0;
+            for (int i = 0; i < repetitions; i++) {
+                long start = System.nanoTime();
+                fachada.save01(serialized);
+                save += System.nanoTime() - start;
+                start = System.nanoTime();
+                new Fachada().open01(serialized);
+                open += System.nanoTime() - start;
+            }
+            print(side, units, "serialized", serialized.length(), save / repetitions, open / repetitions);
+
+            save = 0;
+            open = 0;
+            for (int i = 0; i < repetitions; i++) {
+                long start = System.nanoTime();
+                fachada.save(snapshot);
+                save += System.nanoTime() - start;
+                start = System.nanoTime();
+                new Fachada().open(snapshot);
+                open += System.nanoTime() - start;
+            }
+            print(side, units, "snapshot", snapshot.length(), save / repetitions, open / repetitions);
+        }
+    }
+
+    private static void print(int side, int units, String format, long bytes, long saveNanos, long openNanos) {
+        System.out.printf("%6d %9d %-10s %12d %10.2f %10.2f %12.0f%n", side, units, format, bytes,
+                saveNanos / 1e6, openNanos / 1e6, units * 1e9 / openNanos);
+    }
+}
@@ -0,0 +1,68 @@
+package benchmark;
+
+import domain.*;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.StreamSupport;
+
+/**
+ * Measures {@link Valley#ticTac()} and {@link Valley#units()} on large,
+ * sparsely populated valleys. Every scenario keeps the same number of
+ * units while the area grows, so the time per tic-tac should stay close
+ * to constant: only live units are visited, never the empty cells.
+ *
+ * Usage: java benchmark.SparseValleyBenchmark [units] [ticks] [DENSE|CHUNKED]
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class SparseValleyBenchmark {
+
+    // Lados de los valles medidos.
+    private static final int[] SIDES = {100, 500, 1000, 2000, 4000};
+
+    // Semilla fija para que la ubicacion de las unidades sea repetible.
+    private static final long SEED = 42L;
+
+    // Evita que el JIT descarte los recorridos medidos.
+    static volatile long sink;
+
+    public static void main(String[] args) {
+        int units = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        StorageMode mode = args.length > 2 ? StorageMode.valueOf(args[2]) : StorageMode.DENSE;
+
+        System.out.printf("%8s %12s %10s %12s %14s %14s %14s%n",
+                "side", "area", "units", "density", "ns/tick", "ns/unit", "ns/units()");
+        for (int side : SIDES) {
+            double density = (double) units / ((long) side * side);
+            Valley valley = ValleyScalingBenchmark.populate(side, side, density, mode, new Random(SEED));
+            int live = valley.population();
+
+            // Calentamiento para que el JIT compile el ciclo principal
+            for (int i = 0; i < 5; i++) {
+                valley.ticTac();
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < ticks; i++) {
+                valley.ticTac();
+            }
+            long perTick = (System.nanoTime() - start) / ticks;
+
+            // Recorrido paralelo de las unidades vivas
+            start = System.nanoTime();
+            long seen = 0;
+            for (int i = 0; i < ticks; i++) {
+                Spliterator<Unit> all = valley.units();
+                seen += StreamSupport.stream(all, true).filter(u -> u instanceof Animal).count();
+            }
+            long perScan = (System.nanoTime() - start) / ticks;
+            sink += seen;
+
+            System.out.printf("%8d %12d %10d %12.6f %14d %14.1f %14d%n",
+                    side, (long) side * side, live, density, perTick,
+                    (double) perTick / Math.max(1, live), perScan);
+        }
+    }
+}
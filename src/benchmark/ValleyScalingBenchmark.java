@@ -0,0 +1,88 @@
+package benchmark;
+
+import domain.*;
+import java.util.Random;
+
+/**
+ * Measures how the cost of {@link Valley#ticTac()} grows with the area
+ * of the valley. Each scenario fills a square valley with the same
+ * density of units and reports the average time of one tic-tac.
+ *
+ * Usage: java benchmark.ValleyScalingBenchmark [density] [ticks] [DENSE|CHUNKED]
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class ValleyScalingBenchmark {
+
+    // Lados de los valles medidos.
+    private static final int[] SIDES = {25, 100, 250, 500, 1000, 2000};
+
+    // Semilla fija para que la ubicacion de las unidades sea repetible.
+    private static final long SEED = 42L;
+
+    public static void main(String[] args) {
+        double density = args.length > 0 ? Double.parseDouble(args[0]) : 0.01;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        StorageMode mode = args.length > 2 ? StorageMode.valueOf(args[2]) : StorageMode.DENSE;
+
+        System.out.printf("%8s %12s %10s %14s %12s %12s%n",
+                "side", "area", "units", "ns/tick", "ns/cell", "slots");
+        for (int side : SIDES) {
+            Valley valley = populate(side, side, density, mode, new Random(SEED));
+            int units = countUnits(valley);
+
+            // Calentamiento para que el JIT compile el ciclo principal
+            for (int i = 0; i < 5; i++) {
+                valley.ticTac();
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < ticks; i++) {
+                valley.ticTac();
+            }
+            long perTick = (System.nanoTime() - start) / ticks;
+            long area = (long) side * side;
+
+            System.out.printf("%8d %12d %10d %14d %12.3f %12d%n",
+                    side, area, units, perTick, (double) perTick / area, valley.allocatedCells());
+        }
+    }
+
+    /**
+     * Creates a valley of the given size with a random mix of sheep,
+     * wolves and hay occupying the requested fraction of the cells.
+     */
+    static Valley populate(int rows, int columns, double density, StorageMode mode, Random random) {
+        Valley valley = new Valley(rows, columns, mode);
+        long target = (long) (density * rows * columns);
+        for (long i = 0; i < target; i++) {
+            int r = random.nextInt(rows);
+            int c = random.nextInt(columns);
+            if (!valley.isEmpty(r, c)) {
+                continue;
+            }
+            switch (random.nextInt(3)) {
+                case 0:
+                    new Sheep(valley, r, c);
+                    break;
+                case 1:
+                    new Wolf(valley, r, c);
+                    break;
+                default:
+                    valley.setUnit(r, c, new Hay(r, c, valley));
+                    break;
+            }
+        }
+        return valley;
+    }
+
+    /**
+     * Counts the units currently placed in the valley.
+     */
+    static int countUnits(Valley valley) {
+        int[] units = {0};
+        valley.forEachUnit((r, c, u) -> units[0]++);
+        return units[0];
+    }
+}
@@ -54,7 +54,9 @@ public abstract class Animal implements Serializable{
      * representing the act of eating.
      */
     protected void eat() {
+        int old = energy;
         energy = 100;
+        energyChanged(old);
     }
 
     /**
@@ -67,10 +69,21 @@ public abstract class Animal implements Serializable{
     }
     
     public int setEnergy(int energy){
+        int old = this.energy;
         this.energy = energy;
+        energyChanged(old);
         return energy;
     }
 
+    /**
+     * Called after the energy is set or restored by eating. A step does
+     * not call it: it always comes with a move, which is recorded apart.
+     *
+     * @param old Energy before the change.
+     */
+    void energyChanged(int old) {
+    }
+
     /**
      * Confirms that this object is an animal.
      *
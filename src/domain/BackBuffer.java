@@ -0,0 +1,86 @@
+package domain;
+
+import java.util.Arrays;
+
+/**
+ * The next generation of the cells written during a double-buffered
+ * tic-tac. Only the changed cells are kept: a cell missing from the
+ * buffer is the same in both generations, and a cell mapped to
+ * {@code null} becomes empty. The arrays are reused from one tic-tac
+ * to the next.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+class BackBuffer {
+
+    private final LongIntMap index;
+    private long[] cells;
+    private Unit[] units;
+    private int size;
+
+    /**
+     * Creates an empty buffer.
+     */
+    public BackBuffer() {
+        index = new LongIntMap();
+        cells = new long[64];
+        units = new Unit[64];
+    }
+
+    /**
+     * Returns the position of the cell in the buffer, or
+     * {@link LongIntMap#MISSING} if the cell was not written.
+     */
+    public int find(long cell) {
+        return index.get(cell);
+    }
+
+    /**
+     * Writes the next content of a cell.
+     */
+    public void put(long cell, Unit unit) {
+        int i = index.get(cell);
+        if (i == LongIntMap.MISSING) {
+            if (size == cells.length) {
+                cells = Arrays.copyOf(cells, size * 2);
+                units = Arrays.copyOf(units, size * 2);
+            }
+            i = size++;
+            cells[i] = cell;
+            index.put(cell, i);
+        }
+        units[i] = unit;
+    }
+
+    /**
+     * Returns the number of written cells.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the cell written at the given position.
+     */
+    public long cell(int i) {
+        return cells[i];
+    }
+
+    /**
+     * Returns the unit written at the given position, or {@code null}
+     * if the cell becomes empty.
+     */
+    public Unit unit(int i) {
+        return units[i];
+    }
+
+    /**
+     * Forgets every written cell.
+     */
+    public void clear() {
+        Arrays.fill(units, 0, size, null);
+        index.clear();
+        size = 0;
+    }
+}
@@ -0,0 +1,183 @@
+package domain;
+
+/**
+ * One occupancy bitboard per {@link UnitKind}: a bit per cell, packed in
+ * {@code long} words row by row. The neighborhood of a cell, or the
+ * neighbor counts of a whole row, are computed with a few word shifts
+ * instead of testing the class of every neighbor.
+ *
+ * Neighborhoods are returned as 9-bit windows whose bits follow the
+ * order in which the units scan their neighbors:
+ * <pre>
+ *   0 1 2
+ *   3 . 5
+ *   6 7 8
+ * </pre>
+ * so the lowest set bit is the first neighbor a scan would find.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+class Bitboards {
+
+    // Bit de la celda central dentro de una ventana de 3x3.
+    static final int CENTER = 1 << 4;
+
+    private final int rows;
+    private final int columns;
+
+    // Palabras de 64 bits por fila.
+    private final int words;
+
+    // Un tablero por id de tipo (el 0 no se usa).
+    private final long[][] boards;
+
+    /**
+     * Creates empty bitboards for a valley of the given size.
+     */
+    public Bitboards(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        this.words = (columns + 63) >>> 6;
+        boards = new long[UnitKind.COUNT][];
+        for (UnitKind kind : UnitKind.values()) {
+            boards[kind.id()] = new long[rows * words];
+        }
+    }
+
+    /**
+     * Marks the cell as holding a unit of the given kind and of no other;
+     * a {@code null} kind only clears the cell.
+     */
+    public void set(int r, int c, UnitKind kind) {
+        clear(r, c);
+        if (kind != null) {
+            boards[kind.id()][r * words + (c >>> 6)] |= 1L << c;
+        }
+    }
+
+    /**
+     * Clears the cell in every board.
+     */
+    public void clear(int r, int c) {
+        int w = r * words + (c >>> 6);
+        long keep = ~(1L << c);
+        for (int id = 1; id < UnitKind.COUNT; id++) {
+            boards[id][w] &= keep;
+        }
+    }
+
+    /**
+     * Returns true if the cell holds a unit of the given kind.
+     */
+    public boolean get(int r, int c, UnitKind kind) {
+        return (boards[kind.id()][r * words + (c >>> 6)] & (1L << c)) != 0;
+    }
+
+    /**
+     * Returns the kind of the unit in the cell, or {@code null} if the
+     * cell is empty or holds a unit of an unknown class.
+     */
+    public UnitKind kindAt(int r, int c) {
+        int w = r * words + (c >>> 6);
+        long bit = 1L << c;
+        for (int id = 1; id < UnitKind.COUNT; id++) {
+            if ((boards[id][w] & bit) != 0) {
+                return UnitKind.byId(id);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the 9-bit window of the neighbors of a cell holding a unit
+     * of any of the given kinds, without the cell itself.
+     *
+     * @param kinds Bit mask of kinds, see {@link UnitKind#mask()}.
+     */
+    public int neighborhood(int r, int c, int kinds) {
+        int window = 0;
+        for (int id = 1; id < UnitKind.COUNT; id++) {
+            if ((kinds & (1 << id)) == 0) {
+                continue;
+            }
+            long[] board = boards[id];
+            if (r > 0) {
+                window |= triple(board, r - 1, c);
+            }
+            window |= triple(board, r, c) << 3;
+            if (r < rows - 1) {
+                window |= triple(board, r + 1, c) << 6;
+            }
+        }
+        return window & ~CENTER;
+    }
+
+    /**
+     * Computes, for every cell of a row, how many of its neighbors hold a
+     * unit of the given kind. The eight neighbor planes of each word are
+     * added at once with a bit-sliced counter.
+     *
+     * @param counts Array of at least {@code columns} entries to fill.
+     */
+    public void countRow(UnitKind kind, int r, byte[] counts) {
+        long[] board = boards[kind.id()];
+        for (int w = 0; w < words; w++) {
+            // Contador de 4 bits repartido en cuatro palabras
+            long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            for (int dr = -1; dr <= 1; dr++) {
+                int rr = r + dr;
+                if (rr < 0 || rr >= rows) {
+                    continue;
+                }
+                int base = rr * words;
+                long x = board[base + w];
+                long before = w > 0 ? board[base + w - 1] : 0;
+                long after = w < words - 1 ? board[base + w + 1] : 0;
+                long west = (x << 1) | (before >>> 63);
+                long east = (x >>> 1) | (after << 63);
+                for (int p = (dr == 0 ? 1 : 0); p < 3; p++) {
+                    long plane = p == 0 ? x : (p == 1 ? west : east);
+                    long carry = s0 & plane;
+                    s0 ^= plane;
+                    long next = s1 & carry;
+                    s1 ^= carry;
+                    carry = s2 & next;
+                    s2 ^= next;
+                    s3 |= carry;
+                }
+            }
+            int first = w << 6;
+            int last = Math.min(columns, first + 64);
+            for (int c = first; c < last; c++) {
+                int b = c - first;
+                counts[c] = (byte) (((s0 >>> b) & 1) | ((s1 >>> b) & 1) << 1
+                        | ((s2 >>> b) & 1) << 2 | ((s3 >>> b) & 1) << 3);
+            }
+        }
+    }
+
+    /**
+     * Returns the bits of columns c-1, c and c+1 of a row in the three
+     * lowest bits; columns outside the valley read as empty.
+     */
+    private int triple(long[] board, int r, int c) {
+        int base = r * words;
+        int b = c & 63;
+        if (b != 0 && b != 63) {
+            return (int) (board[base + (c >>> 6)] >>> (b - 1)) & 7;
+        }
+        int bits = bit(board, base, c) << 1;
+        if (c > 0) {
+            bits |= bit(board, base, c - 1);
+        }
+        if (c < columns - 1) {
+            bits |= bit(board, base, c + 1) << 2;
+        }
+        return bits;
+    }
+
+    private static int bit(long[] board, int base, int c) {
+        return (int) (board[base + (c >>> 6)] >>> c) & 1;
+    }
+}
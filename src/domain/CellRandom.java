@@ -0,0 +1,51 @@
+package domain;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * SplitMix64 generator, the algorithm behind {@link java.util.SplittableRandom},
+ * that can be moved to the stream of any unit of any tic-tac in O(1).
+ * Before a unit acts its generator is reseeded from the valley seed, the
+ * tic-tac number and the cell where the unit started, so every unit draws
+ * the same numbers whatever the thread or the order in which it runs.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+final class CellRandom implements RandomGenerator {
+
+    // Incremento de SplitMix64 (parte fraccionaria de la razon aurea).
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    /**
+     * Creates a generator with a fixed initial state.
+     */
+    CellRandom(long seed) {
+        state = seed;
+    }
+
+    /**
+     * Moves the generator to the stream of the unit that started the
+     * given tic-tac in the given cell.
+     */
+    void reseed(long seed, long tick, long cell) {
+        state = mix(seed ^ mix(tick * GOLDEN + mix(cell + GOLDEN)));
+    }
+
+    @Override
+    public long nextLong() {
+        state += GOLDEN;
+        return mix(state);
+    }
+
+    /**
+     * Finalizer of SplitMix64: spreads every input bit over the output.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
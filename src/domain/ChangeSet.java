@@ -0,0 +1,136 @@
+package domain;
+
+import java.util.Arrays;
+
+/**
+ * The cells changed by the last tic-tac of a valley, so that the views
+ * and observers can update themselves in time proportional to the
+ * number of changes instead of scanning the whole valley.
+ *
+ * Each change has a type and two cells: the unit moved from the first
+ * cell to the second one, or, for the other types, both cells are the
+ * cell that changed. Changes are listed in the order they happened, so
+ * applying them in order gives the valley at the end of the tic-tac.
+ * A unit replaced by another one is listed as a death followed by a
+ * spawn in the same cell.
+ *
+ * The changes are kept in primitive arrays that are reused by every
+ * tic-tac; a change set is only valid until the next tic-tac starts.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public final class ChangeSet {
+
+    // Tipos de cambio.
+    public static final int MOVED = 0;
+    public static final int SPAWNED = 1;
+    public static final int DIED = 2;
+    public static final int CHANGED = 3;
+
+    // Columnas del valle, para pasar de celda a fila y columna.
+    private final int columns;
+
+    private byte[] types;
+    private long[] from;
+    private long[] to;
+    private int size;
+
+    // Numero del tic-tac que produjo los cambios.
+    private long tick = -1;
+
+    /**
+     * Creates an empty change set for a valley with the given number of columns.
+     */
+    ChangeSet(int columns) {
+        this.columns = columns;
+        types = new byte[64];
+        from = new long[64];
+        to = new long[64];
+    }
+
+    /**
+     * Empties the set before the given tic-tac, keeping its arrays.
+     */
+    void clear(long tick) {
+        this.tick = tick;
+        size = 0;
+    }
+
+    /**
+     * Adds a change at the end of the set.
+     */
+    void add(int type, long fromCell, long toCell) {
+        if (size == types.length) {
+            types = Arrays.copyOf(types, size * 2);
+            from = Arrays.copyOf(from, size * 2);
+            to = Arrays.copyOf(to, size * 2);
+        }
+        types[size] = (byte) type;
+        from[size] = fromCell;
+        to[size] = toCell;
+        size++;
+    }
+
+    /**
+     * Returns the number of the tic-tac that produced these changes,
+     * or -1 if the valley has not run any tic-tac yet.
+     */
+    public long tick() {
+        return tick;
+    }
+
+    /**
+     * Returns the number of changes.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the type of a change: {@link #MOVED}, {@link #SPAWNED},
+     * {@link #DIED} or {@link #CHANGED}.
+     */
+    public int type(int i) {
+        check(i);
+        return types[i];
+    }
+
+    /**
+     * Returns the row where the change happened, or where the unit moved from.
+     */
+    public int fromRow(int i) {
+        check(i);
+        return (int) (from[i] / columns);
+    }
+
+    /**
+     * Returns the column where the change happened, or where the unit moved from.
+     */
+    public int fromColumn(int i) {
+        check(i);
+        return (int) (from[i] % columns);
+    }
+
+    /**
+     * Returns the row where the change happened, or where the unit moved to.
+     */
+    public int toRow(int i) {
+        check(i);
+        return (int) (to[i] / columns);
+    }
+
+    /**
+     * Returns the column where the change happened, or where the unit moved to.
+     */
+    public int toColumn(int i) {
+        check(i);
+        return (int) (to[i] % columns);
+    }
+
+    private void check(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Change " + i + " of " + size);
+        }
+    }
+}
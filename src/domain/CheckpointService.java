@@ -0,0 +1,383 @@
+package domain;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Saves checkpoints of a running valley without stopping it for the
+ * write. At a tic-tac boundary the caller only copies the cell and
+ * record of every unit, which costs the population and no I/O; a
+ * background thread then encodes that copy as a snapshot (the format
+ * of {@link Fachada#save(File)}) and writes it to disk while the valley
+ * keeps running.
+ *
+ * Every checkpoint is written atomically: first to a temporary file,
+ * which is forced to disk and then renamed, so a crash leaves either
+ * the previous checkpoint or the new one, never half a file. The
+ * checkpoints are named {@code name-<tic-tac>.dat}; only the newest
+ * ones written by the service are kept.
+ *
+ * Only one checkpoint is written at a time: a checkpoint requested
+ * while the previous one is still being written is skipped.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class CheckpointService implements AutoCloseable {
+
+    // Resultados recordados como maximo.
+    public static final int MAX_HISTORY = 256;
+
+    private final File directory;
+    private final String name;
+    private final long interval;
+    private final int keep;
+
+    // Hilo que escribe los checkpoints y el que esta en curso.
+    private final Thread writer;
+    private Pending pending;
+    private boolean closed;
+
+    // Checkpoints escritos, del mas viejo al mas nuevo.
+    private final Deque<File> written = new ArrayDeque<>();
+
+    // Resultados de los ultimos checkpoints y numero de checkpoints omitidos.
+    private final Deque<Checkpoint> history = new ArrayDeque<>();
+    private long skipped;
+
+    /**
+     * Creates a service and starts its writer thread.
+     *
+     * @param directory Directory where the checkpoints are written.
+     * @param name Prefix of the names of the checkpoints.
+     * @param interval Tic-tacs between two checkpoints.
+     * @param keep Number of checkpoints kept; older ones are deleted.
+     * @throws IllegalArgumentException if the interval or the number
+     *         kept is not positive, or the directory does not exist.
+     */
+    public CheckpointService(File directory, String name, long interval, int keep) {
+        if (interval <= 0 || keep <= 0) {
+            throw new IllegalArgumentException("Invalid checkpoint interval " + interval + " or count " + keep);
+        }
+        if (!directory.isDirectory()) {
+            throw new IllegalArgumentException("Not a directory: " + directory);
+        }
+        this.directory = directory;
+        this.name = name;
+        this.interval = interval;
+        this.keep = keep;
+        writer = new Thread(this::writeLoop, "valley-checkpoint");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Returns the number of tic-tacs between two checkpoints.
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Starts a checkpoint if the valley has just completed a multiple of
+     * the interval. Meant to be called after every tic-tac, or after
+     * every run of tic-tacs that ends on such a multiple.
+     *
+     * @param valley Valley at a tic-tac boundary.
+     * @return true if a checkpoint was started.
+     */
+    public boolean afterTicTac(Valley valley) {
+        long tick = valley.getTickCount();
+        return tick > 0 && tick % interval == 0 && checkpoint(valley);
+    }
+
+    /**
+     * Copies the valley and writes the copy in the background. Called by
+     * the thread that runs the valley: the valley must not change during
+     * the call, and may change as soon as the call returns.
+     *
+     * @param valley Valley at a tic-tac boundary.
+     * @return true if the checkpoint was started; false if the previous
+     *         one is still being written or the service is closed.
+     * @throws IllegalArgumentException if the valley holds unknown units.
+     */
+    public boolean checkpoint(Valley valley) {
+        synchronized (this) {
+            if (closed || pending != null) {
+                skipped++;
+                return false;
+            }
+        }
+        long start = System.nanoTime();
+        ValleySnapshot.Image image = ValleySnapshot.capture(valley);
+        long copied = System.nanoTime();
+        synchronized (this) {
+            pending = new Pending(image, start, copied - start);
+            notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * Waits until the checkpoint being written, if any, is on disk.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public synchronized void await() throws InterruptedException {
+        while (pending != null) {
+            wait();
+        }
+    }
+
+    /**
+     * Waits for the checkpoint being written and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the results of the last checkpoints, oldest first.
+     */
+    public synchronized List<Checkpoint> getHistory() {
+        return new ArrayList<>(history);
+    }
+
+    /**
+     * Returns the checkpoints kept on disk, oldest first.
+     */
+    public synchronized List<File> getFiles() {
+        return new ArrayList<>(written);
+    }
+
+    /**
+     * Returns the number of checkpoints skipped because the previous one
+     * was still being written.
+     */
+    public synchronized long getSkipped() {
+        return skipped;
+    }
+
+    // ------------------------------------------------------------------
+
+    private void writeLoop() {
+        while (true) {
+            Pending image;
+            synchronized (this) {
+                while (pending == null && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending == null) {
+                    return;
+                }
+                image = pending;
+            }
+            Checkpoint result = write(image);
+            synchronized (this) {
+                history.addLast(result);
+                if (history.size() > MAX_HISTORY) {
+                    history.removeFirst();
+                }
+                pending = null;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes a checkpoint to a temporary file, forces it to disk, renames
+     * it over its final name and deletes the checkpoints no longer kept.
+     */
+    private Checkpoint write(Pending image) {
+        ValleySnapshot.Image state = image.state;
+        File target = new File(directory, name + "-" + state.tickCount + ".dat");
+        File temporary = new File(directory, target.getName() + ".tmp");
+        FileEvent event = FileEvent.start("checkpoint", target);
+        long start = System.nanoTime();
+        IOException error = null;
+        try {
+            try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ValleySnapshot.write(state, channel);
+                channel.force(true);
+            }
+            try {
+                Files.move(temporary.toPath(), target.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            forceDirectory();
+            event.succeeded(state.units());
+            rotate(target);
+        } catch (IOException e) {
+            error = e;
+            temporary.delete();
+        } finally {
+            event.finish(target);
+        }
+        long end = System.nanoTime();
+        return new Checkpoint(state.tickCount, target, state.units(), error == null ? target.length() : 0,
+                image.copyNanos, end - start, end - image.start, error);
+    }
+
+    /**
+     * Forces the directory to disk, so the rename survives a crash. Not
+     * every platform can open a directory; then the rename is left to
+     * the file system.
+     */
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // El sistema no permite sincronizar directorios
+        }
+    }
+
+    private synchronized void rotate(File target) {
+        written.remove(target);
+        written.addLast(target);
+        while (written.size() > keep) {
+            written.removeFirst().delete();
+        }
+    }
+
+    /**
+     * Copy of a valley waiting to be written, with the time it took.
+     */
+    private static final class Pending {
+
+        final ValleySnapshot.Image state;
+        final long start;
+        final long copyNanos;
+
+        Pending(ValleySnapshot.Image state, long start, long copyNanos) {
+            this.state = state;
+            this.start = start;
+            this.copyNanos = copyNanos;
+        }
+    }
+
+    /**
+     * Result of one checkpoint: where it was written and how long each
+     * part took.
+     */
+    public static final class Checkpoint {
+
+        private final long tick;
+        private final File file;
+        private final int units;
+        private final long bytes;
+        private final long copyNanos;
+        private final long writeNanos;
+        private final long totalNanos;
+        private final IOException error;
+
+        Checkpoint(long tick, File file, int units, long bytes, long copyNanos,
+                long writeNanos, long totalNanos, IOException error) {
+            this.tick = tick;
+            this.file = file;
+            this.units = units;
+            this.bytes = bytes;
+            this.copyNanos = copyNanos;
+            this.writeNanos = writeNanos;
+            this.totalNanos = totalNanos;
+            this.error = error;
+        }
+
+        /**
+         * Returns the tic-tac count of the valley saved.
+         */
+        public long tick() {
+            return tick;
+        }
+
+        /**
+         * Returns the file of the checkpoint.
+         */
+        public File file() {
+            return file;
+        }
+
+        /**
+         * Returns the number of units saved.
+         */
+        public int units() {
+            return units;
+        }
+
+        /**
+         * Returns the size of the file, or 0 if it failed.
+         */
+        public long bytes() {
+            return bytes;
+        }
+
+        /**
+         * Returns the time the caller spent copying the valley, the only
+         * part during which the simulation waited.
+         */
+        public long copyNanos() {
+            return copyNanos;
+        }
+
+        /**
+         * Returns the time spent encoding, writing, forcing and renaming the file.
+         */
+        public long writeNanos() {
+            return writeNanos;
+        }
+
+        /**
+         * Returns the time from the copy until the checkpoint was on disk.
+         */
+        public long totalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * Returns true if the checkpoint was written.
+         */
+        public boolean succeeded() {
+            return error == null;
+        }
+
+        /**
+         * Returns the error that stopped the checkpoint, or null.
+         */
+        public IOException error() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            if (error != null) {
+                return String.format("checkpoint %d fallo: %s", tick, error.getMessage());
+            }
+            return String.format("checkpoint %d: %d unidades, %d bytes, copia %.3f ms, escritura %.3f ms, total %.3f ms",
+                    tick, units, bytes, copyNanos / 1e6, writeNanos / 1e6, totalNanos / 1e6);
+        }
+    }
+}
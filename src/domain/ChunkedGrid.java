@@ -0,0 +1,160 @@
+package domain;
+
+import java.util.Arrays;
+
+/**
+ * Sparse grid made of square tiles ("chunks") of {@link #CHUNK} x
+ * {@link #CHUNK} cells. A chunk is created the first time a unit is
+ * placed in it and released as soon as its last unit leaves, so memory
+ * and traversal cost depend on the occupied area instead of the size
+ * of the valley.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+class ChunkedGrid implements Grid {
+
+    private static final long serialVersionUID = 1L;
+
+    // Lado de cada bloque (potencia de dos).
+    public static final int CHUNK = 64;
+
+    private static final int SHIFT = 6;
+    private static final int MASK = CHUNK - 1;
+
+    // Indice de cada bloque vivo dentro de chunks, por llave de bloque.
+    private final LongIntMap index;
+
+    // Bloques vivos; las posiciones libres se reutilizan.
+    private Chunk[] chunks;
+    private long[] chunkKeys;
+    private int[] free;
+    private int freeCount;
+    private int used;
+
+    // Llaves de los bloques que se visitan, reutilizadas por cada recorrido.
+    private transient long[] visitKeys;
+
+    /**
+     * Creates an empty grid. No memory is reserved for cells.
+     */
+    public ChunkedGrid() {
+        index = new LongIntMap();
+        chunks = new Chunk[8];
+        chunkKeys = new long[8];
+        free = new int[8];
+    }
+
+    @Override
+    public Unit get(int r, int c) {
+        int i = index.get(key(r >>> SHIFT, c >>> SHIFT));
+        return i == LongIntMap.MISSING ? null : chunks[i].cells[offset(r, c)];
+    }
+
+    @Override
+    public void set(int r, int c, Unit u) {
+        long key = key(r >>> SHIFT, c >>> SHIFT);
+        int i = index.get(key);
+        if (i == LongIntMap.MISSING) {
+            if (u == null) {
+                return;
+            }
+            i = allocate(key);
+        }
+        Chunk chunk = chunks[i];
+        int o = offset(r, c);
+        Unit old = chunk.cells[o];
+        chunk.cells[o] = u;
+        if (old == null && u != null) {
+            chunk.count++;
+        } else if (old != null && u == null && --chunk.count == 0) {
+            release(key, i);
+        }
+    }
+
+    @Override
+    public void forEachUnit(UnitVisitor visitor) {
+        // Copia las llaves para tolerar bloques creados o liberados al visitar; un
+        // recorrido anidado no encuentra el arreglo y crea el suyo
+        long[] keys = visitKeys;
+        visitKeys = null;
+        if (keys == null || keys.length < index.size()) {
+            keys = new long[Math.max(16, index.size() + (index.size() >> 1))];
+        }
+        int n = 0;
+        for (int i = 0; i < used; i++) {
+            if (chunks[i] != null) {
+                keys[n++] = chunkKeys[i];
+            }
+        }
+        Arrays.sort(keys, 0, n);
+
+        for (int k = 0; k < n; k++) {
+            int baseRow = (int) (keys[k] >>> 32) << SHIFT;
+            int baseCol = (int) keys[k] << SHIFT;
+            for (int dr = 0; dr < CHUNK; dr++) {
+                // El bloque pudo liberarse mientras se visitaba la fila anterior
+                int i = index.get(keys[k]);
+                if (i == LongIntMap.MISSING) {
+                    break;
+                }
+                Chunk chunk = chunks[i];
+                for (int dc = 0; dc < CHUNK && chunk.count > 0; dc++) {
+                    Unit u = chunk.cells[(dr << SHIFT) | dc];
+                    if (u != null) {
+                        visitor.visit(baseRow + dr, baseCol + dc, u);
+                    }
+                }
+            }
+        }
+        visitKeys = keys;
+    }
+
+    @Override
+    public long allocatedCells() {
+        return (long) index.size() * CHUNK * CHUNK;
+    }
+
+    private int allocate(long key) {
+        int i;
+        if (freeCount > 0) {
+            i = free[--freeCount];
+        } else {
+            if (used == chunks.length) {
+                chunks = Arrays.copyOf(chunks, used * 2);
+                chunkKeys = Arrays.copyOf(chunkKeys, used * 2);
+                free = Arrays.copyOf(free, used * 2);
+            }
+            i = used++;
+        }
+        chunks[i] = new Chunk();
+        chunkKeys[i] = key;
+        index.put(key, i);
+        return i;
+    }
+
+    private void release(long key, int i) {
+        index.remove(key);
+        chunks[i] = null;
+        free[freeCount++] = i;
+    }
+
+    private static long key(int chunkRow, int chunkCol) {
+        return ((long) chunkRow << 32) | (chunkCol & 0xFFFFFFFFL);
+    }
+
+    private static int offset(int r, int c) {
+        return ((r & MASK) << SHIFT) | (c & MASK);
+    }
+
+    /**
+     * Tile of cells with the number of units it holds.
+     */
+    private static class Chunk implements java.io.Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Unit[] cells = new Unit[CHUNK * CHUNK];
+        private int count;
+    }
+}
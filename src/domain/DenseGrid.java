@@ -0,0 +1,57 @@
+package domain;
+
+/**
+ * Grid that keeps one slot per cell in a two-dimensional array.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+class DenseGrid implements Grid {
+
+    private static final long serialVersionUID = 1L;
+
+    // Matriz bidimensional que almacena las unidades (animales y recursos).
+    private final Unit[][] places;
+
+    /**
+     * Creates an empty grid of the given size.
+     */
+    public DenseGrid(int rows, int columns) {
+        places = new Unit[rows][columns];
+    }
+
+    /**
+     * Wraps an existing array of places, as read from old valley files.
+     */
+    DenseGrid(Unit[][] places) {
+        this.places = places;
+    }
+
+    @Override
+    public Unit get(int r, int c) {
+        return places[r][c];
+    }
+
+    @Override
+    public void set(int r, int c, Unit u) {
+        places[r][c] = u;
+    }
+
+    @Override
+    public void forEachUnit(UnitVisitor visitor) {
+        for (int r = 0; r < places.length; r++) {
+            Unit[] row = places[r];
+            for (int c = 0; c < row.length; c++) {
+                Unit u = row[c];
+                if (u != null) {
+                    visitor.visit(r, c, u);
+                }
+            }
+        }
+    }
+
+    @Override
+    public long allocatedCells() {
+        return places.length == 0 ? 0 : (long) places.length * places[0].length;
+    }
+}
@@ -1,6 +1,8 @@
 package domain;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
 
 /**
  * Facade class that provides file operations for the Valley simulation.
@@ -8,6 +10,17 @@ import java.io.*;
  */
 public class Fachada {
 
+    // Nombre de la linea que declara las dimensiones del valle en los archivos de texto.
+    public static final String SIZE_FIELD = "Size";
+    public static final String SEED_FIELD = "Seed";
+
+    // Los mismos nombres en bytes, para reconocerlos sin crear textos.
+    private static final byte[] SIZE_BYTES = SIZE_FIELD.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SEED_BYTES = SEED_FIELD.getBytes(StandardCharsets.US_ASCII);
+
+    // Area a partir de la cual los valles nuevos se guardan por bloques.
+    public static final long CHUNKED_AREA = 16L * 1024 * 1024;
+
     private Valley valley;
 
     public Fachada() {
@@ -21,6 +34,31 @@ public class Fachada {
         this.valley = new Valley();
     }
 
+    /**
+     * Creates a new empty valley with the given number of rows and columns.
+     *
+     * @param rows Number of rows of the new valley.
+     * @param columns Number of columns of the new valley.
+     * @throws ValleyException if any dimension is not a positive number.
+     */
+    public void newValley(int rows, int columns) throws ValleyException {
+        if (rows <= 0 || columns <= 0) {
+            throw new ValleyException("Error: Dimensiones invalidas " + rows + "x" + columns +
+                    ". Las filas y columnas deben ser numeros enteros positivos.");
+        }
+        this.valley = createValley(rows, columns);
+    }
+
+    /**
+     * Creates an empty valley, choosing chunked storage when the area is
+     * too large to reserve one slot per cell.
+     */
+    private static Valley createValley(int rows, int columns) {
+        StorageMode mode = (long) rows * columns > CHUNKED_AREA
+                ? StorageMode.CHUNKED : StorageMode.DENSE;
+        return new Valley(rows, columns, mode);
+    }
+
     /**
      * New valley.
      */
@@ -89,16 +127,25 @@ public class Fachada {
 
     /**
      * Opens a valley from a binary .dat file with detailed error handling.
+     * Files written by {@link #save(File)} are read as binary snapshots;
+     * older files, written with Java serialization, are still accepted.
      * 
      * @param archivo File to read the valley from (.dat extension)
      * @throws ValleyException with specific error messages
      */
     public void open(File archivo) throws ValleyException {
         ObjectInputStream input = null;
+        FileEvent event = FileEvent.start("open", archivo);
 
         try {
-            input = new ObjectInputStream(new FileInputStream(archivo));
-            this.valley = (Valley) input.readObject();
+            if (ValleySnapshot.isSnapshot(archivo)) {
+                this.valley = ValleySnapshot.read(archivo);
+            } else {
+                // Formato anterior: el valle serializado con ObjectOutputStream
+                input = new ObjectInputStream(new FileInputStream(archivo));
+                this.valley = (Valley) input.readObject();
+            }
+            event.succeeded(valley);
 
         } catch (FileNotFoundException e) {
             throw new ValleyException("Error: El archivo '" + archivo.getName() +
@@ -132,28 +179,70 @@ public class Fachada {
                     // Ignore close exception
                 }
             }
+            event.finish(archivo);
+        }
+    }
+
+    /**
+     * Opens the valley as it was at a tic-tac recorded in a journal
+     * written by {@link TickJournal}.
+     *
+     * @param archivo Journal to read the valley from
+     * @param tick Recorded tic-tac to rebuild
+     * @throws ValleyException with specific error messages
+     */
+    public void replay(File archivo, long tick) throws ValleyException {
+        FileEvent event = FileEvent.start("replay", archivo);
+
+        try (TickJournal.Reader reader = new TickJournal.Reader(archivo)) {
+            this.valley = reader.seek(tick);
+            event.succeeded(valley);
+
+        } catch (IllegalArgumentException e) {
+            throw new ValleyException("Error: El tic-tac " + tick + " no esta registrado en '" +
+                    archivo.getName() + "'.");
+
+        } catch (NoSuchFileException e) {
+            throw new ValleyException("Error: El archivo '" + archivo.getName() +
+                    "' no fue encontrado. Verifique que el archivo existe.");
+
+        } catch (InvalidClassException e) {
+            throw new ValleyException("Error: El archivo '" + archivo.getName() +
+                    "' fue creado con una version incompatible del programa.");
+
+        } catch (StreamCorruptedException e) {
+            throw new ValleyException("Error: El archivo '" + archivo.getName() +
+                    "' esta corrupto o no es un diario de tic-tacs valido.");
+
+        } catch (IOException e) {
+            throw new ValleyException("Error al leer el archivo '" + archivo.getName() +
+                    "': " + e.getMessage() + ". Verifique permisos de lectura.");
+
+        } finally {
+            event.finish(archivo);
         }
     }
 
     /**
      * Saves the current valley to a binary .dat file with detailed error handling.
+     * The file is a compact binary snapshot of the cells, with one record
+     * per unit and runs of empty cells, instead of the serialized objects.
      * 
      * @param archivo File to save the valley to (.dat extension)
      * @throws ValleyException with specific error messages
      */
     public void save(File archivo) throws ValleyException {
-        ObjectOutputStream output = null;
+        FileEvent event = FileEvent.start("save", archivo);
 
         try {
-            output = new ObjectOutputStream(new FileOutputStream(archivo));
-            output.writeObject(this.valley);
-            output.flush();
+            ValleySnapshot.write(this.valley, archivo);
+            event.succeeded(valley);
 
         } catch (FileNotFoundException e) {
             throw new ValleyException("Error: No se puede crear el archivo '" +
                     archivo.getName() + "'. Verifique permisos de escritura en el directorio.");
 
-        } catch (NotSerializableException e) {
+        } catch (IllegalArgumentException e) {
             throw new ValleyException("Error: El valley contiene objetos que no pueden ser guardados. " +
                     "Clase problematica: " + e.getMessage());
 
@@ -172,13 +261,7 @@ public class Fachada {
                     "': " + e.getMessage());
 
         } finally {
-            if (output != null) {
-                try {
-                    output.close();
-                } catch (IOException e) {
-                    // Ignore close exception
-                }
-            }
+            event.finish(archivo);
         }
     }
 
@@ -256,14 +339,7 @@ public class Fachada {
 
         try {
             reader = new BufferedReader(new FileReader(archivo));
-            valley = new Valley();
-
-            // Clear the valley first
-            for (int r = 0; r < valley.getSize(); r++) {
-                for (int c = 0; c < valley.getSize(); c++) {
-                    valley.setUnit(r, c, null);
-                }
-            }
+            valley = new Valley(Valley.DEFAULT_SIZE, Valley.DEFAULT_SIZE);
 
             String line;
             int lineNumber = 0;
@@ -287,7 +363,7 @@ public class Fachada {
                 int row = Integer.parseInt(parts[1].trim());
                 int col = Integer.parseInt(parts[2].trim());
 
-                if (row < 0 || row >= valley.getSize() || col < 0 || col >= valley.getSize()) {
+                if (!valley.inValley(row, col)) {
                     throw new ValleyException("Error en linea " + lineNumber +
                             ": Posicion fuera de rango (" + row + ", " + col + ")");
                 }
@@ -313,174 +389,215 @@ public class Fachada {
         }
     }
 
+    /**
+     * Imports valley data from a text file with detailed error handling,
+     * reading it line by line with a {@link BufferedReader}.
+     * Expected format: TypeName row column (one unit per line).
+     * An optional "Size rows columns" line before the units sets the
+     * dimensions of the valley; without it the default size is used.
+     * An optional "Seed number" line sets the seed of the random numbers.
+     * 
+     * @param archivo File to import valley data from (.txt extension)
+     * @throws ValleyException with specific error details including line numbers
+     */
+    public void importFile02(File archivo) throws ValleyException {
+        importLines(archivo, false);
+    }
+
     /**
      * Imports valley data from a text file with detailed error handling.
-     * Expected format: TypeName row column (one unit per line)
+     * Expected format: TypeName row column (one unit per line).
+     * An optional "Size rows columns" line before the units sets the
+     * dimensions of the valley; without it the default size is used.
+     * An optional "Seed number" line sets the seed of the random numbers.
+     * The lines are read and split from the bytes of the file by an
+     * {@link ImportScanner}, without creating a string per line.
      * 
      * @param archivo File to import valley data from (.txt extension)
      * @throws ValleyException with specific error details including line numbers
      */
     public void importFile(File archivo) throws ValleyException {
-        BufferedReader reader = null;
-
+        FileEvent event = FileEvent.start("import", archivo);
         try {
-            reader = new BufferedReader(new FileReader(archivo));
-            valley = new Valley();
+            importLines(archivo, true);
+            event.succeeded(valley);
+        } finally {
+            event.finish(archivo);
+        }
+    }
 
-            // Clear the valley first
-            for (int r = 0; r < valley.getSize(); r++) {
-                for (int c = 0; c < valley.getSize(); c++) {
-                    valley.setUnit(r, c, null);
-                }
-            }
+    /**
+     * Opens a text file with the scanner or the line reader and imports it.
+     */
+    private void importLines(File archivo, boolean scanner) throws ValleyException {
+        try (ImportLines lines = scanner ? new ImportScanner(new FileInputStream(archivo).getChannel())
+                : new LineReader(new FileReader(archivo))) {
+            readUnits(lines, archivo);
 
-            String line;
-            int lineNumber = 0;
-            int unitsCreated = 0;
+        } catch (FileNotFoundException e) {
+            throw new ValleyException("Error: El archivo '" + archivo.getName() +
+                    "' no fue encontrado. Verifique la ruta y el nombre del archivo.");
 
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                line = line.trim();
+        } catch (IOException e) {
+            throw new ValleyException("Error al leer el archivo '" + archivo.getName() +
+                    "': " + e.getMessage() + ". El archivo puede estar bloqueado o corrupto.");
 
-                // Skip empty lines and comments
-                if (line.isEmpty() || line.startsWith("#")) {
-                    continue;
-                }
+        } catch (ValleyException e) {
+            // Re-throw ValleyException without modification
+            throw e;
 
-                String[] parts = line.split("\\s+");
+        } catch (Exception e) {
+            throw new ValleyException("Error inesperado al importar '" + archivo.getName() +
+                    "': " + e.getMessage());
+        }
+    }
 
-                if (parts.length != 3) {
-                    throw new ValleyException("Error en linea " + lineNumber +
-                            ": Formato invalido '" + line + "'. " +
-                            "Se esperaba: TipoAnimal fila columna (3 valores separados por espacios).");
-                }
+    /**
+     * Reads the lines of a text scenario into a new valley, checking each
+     * one and reporting the first invalid line with its number.
+     */
+    private void readUnits(ImportLines lines, File archivo) throws IOException, ValleyException {
+        valley = new Valley(Valley.DEFAULT_SIZE, Valley.DEFAULT_SIZE);
 
-                String className = parts[0].trim();
+        int unitsCreated = 0;
+        Long seed = null;
 
-                // Validate numeric coordinates
-                int row, col;
-                try {
-                    row = Integer.parseInt(parts[1].trim());
-                } catch (NumberFormatException e) {
-                    throw new ValleyException("Error en linea " + lineNumber +
-                            ": La fila '" + parts[1] + "' no es un numero valido. " +
-                            "Debe ser un numero entero entre 0 y " + (valley.getSize() - 1) + ".");
-                }
+        while (lines.nextLine()) {
+            int lineNumber = lines.lineNumber();
 
+            // Skip empty lines and comments
+            if (lines.tokens() == 0 || lines.isComment()) {
+                continue;
+            }
+
+            // Seed line: seed of the random numbers of the units
+            if (lines.tokens() == 2 && lines.is(0, SEED_BYTES)) {
                 try {
-                    col = Integer.parseInt(parts[2].trim());
+                    seed = lines.longValue(1);
                 } catch (NumberFormatException e) {
                     throw new ValleyException("Error en linea " + lineNumber +
-                            ": La columna '" + parts[2] + "' no es un numero valido. " +
-                            "Debe ser un numero entero entre 0 y " + (valley.getSize() - 1) + ".");
+                            ": La semilla '" + lines.token(1) + "' no es un numero valido.");
                 }
+                continue;
+            }
+
+            if (lines.tokens() != 3) {
+                throw new ValleyException("Error en linea " + lineNumber +
+                        ": Formato invalido '" + lines.line() + "'. " +
+                        "Se esperaba: TipoAnimal fila columna (3 valores separados por espacios).");
+            }
 
-                // Validate range
-                if (row < 0 || row >= valley.getSize()) {
+            // Size line: declares the dimensions of the valley
+            if (lines.is(0, SIZE_BYTES)) {
+                if (unitsCreated > 0) {
                     throw new ValleyException("Error en linea " + lineNumber +
-                            ": La fila " + row + " esta fuera de rango. " +
-                            "Debe estar entre 0 y " + (valley.getSize() - 1) + ".");
+                            ": La linea '" + SIZE_FIELD + "' debe ir antes de las unidades.");
                 }
-
-                if (col < 0 || col >= valley.getSize()) {
+                int rows, columns;
+                try {
+                    rows = lines.intValue(1);
+                    columns = lines.intValue(2);
+                } catch (NumberFormatException e) {
                     throw new ValleyException("Error en linea " + lineNumber +
-                            ": La columna " + col + " esta fuera de rango. " +
-                            "Debe estar entre 0 y " + (valley.getSize() - 1) + ".");
+                            ": Las dimensiones '" + lines.token(1) + " " + lines.token(2) +
+                            "' no son numeros validos.");
                 }
-
-                // Check if position is already occupied
-                if (!valley.isEmpty(row, col)) {
+                if (rows <= 0 || columns <= 0) {
                     throw new ValleyException("Error en linea " + lineNumber +
-                            ": La posicion (" + row + ", " + col + ") ya esta ocupada. " +
-                            "No se pueden colocar dos unidades en la misma posicion.");
+                            ": Dimensiones invalidas " + rows + "x" + columns +
+                            ". Deben ser numeros enteros positivos.");
                 }
-
-                createUnit(className, row, col, lineNumber);
-                unitsCreated++;
+                valley = createValley(rows, columns);
+                continue;
             }
 
-            if (unitsCreated == 0) {
-                throw new ValleyException("Advertencia: El archivo '" + archivo.getName() +
-                        "' esta vacio o no contiene unidades validas.");
+            // Validate numeric coordinates
+            int row, col;
+            try {
+                row = lines.intValue(1);
+            } catch (NumberFormatException e) {
+                throw new ValleyException("Error en linea " + lineNumber +
+                        ": La fila '" + lines.token(1) + "' no es un numero valido. " +
+                        "Debe ser un numero entero entre 0 y " + (valley.getRows() - 1) + ".");
             }
 
-        } catch (FileNotFoundException e) {
-            throw new ValleyException("Error: El archivo '" + archivo.getName() +
-                    "' no fue encontrado. Verifique la ruta y el nombre del archivo.");
+            try {
+                col = lines.intValue(2);
+            } catch (NumberFormatException e) {
+                throw new ValleyException("Error en linea " + lineNumber +
+                        ": La columna '" + lines.token(2) + "' no es un numero valido. " +
+                        "Debe ser un numero entero entre 0 y " + (valley.getColumns() - 1) + ".");
+            }
 
-        } catch (IOException e) {
-            throw new ValleyException("Error al leer el archivo '" + archivo.getName() +
-                    "': " + e.getMessage() + ". El archivo puede estar bloqueado o corrupto.");
+            // Validate range
+            if (row < 0 || row >= valley.getRows()) {
+                throw new ValleyException("Error en linea " + lineNumber +
+                        ": La fila " + row + " esta fuera de rango. " +
+                        "Debe estar entre 0 y " + (valley.getRows() - 1) + ".");
+            }
 
-        } catch (ValleyException e) {
-            // Re-throw ValleyException without modification
-            throw e;
+            if (col < 0 || col >= valley.getColumns()) {
+                throw new ValleyException("Error en linea " + lineNumber +
+                        ": La columna " + col + " esta fuera de rango. " +
+                        "Debe estar entre 0 y " + (valley.getColumns() - 1) + ".");
+            }
 
-        } catch (Exception e) {
-            throw new ValleyException("Error inesperado al importar '" + archivo.getName() +
-                    "': " + e.getMessage());
+            // Check if position is already occupied
+            if (!valley.isEmpty(row, col)) {
+                throw new ValleyException("Error en linea " + lineNumber +
+                        ": La posicion (" + row + ", " + col + ") ya esta ocupada. " +
+                        "No se pueden colocar dos unidades en la misma posicion.");
+            }
 
-        } finally {
-            if (reader != null) {
-                try {
-                    reader.close();
-                } catch (IOException e) {
-                    // Ignore close exception
-                }
+            // El nombre solo se convierte en texto si el tipo no existe
+            UnitKind kind = lines.kind(0);
+            if (kind == null) {
+                createUnit(lines.token(0), row, col, lineNumber);
+            } else {
+                kind.create(valley, row, col);
             }
+            unitsCreated++;
+        }
+
+        if (unitsCreated == 0) {
+            throw new ValleyException("Advertencia: El archivo '" + archivo.getName() +
+                    "' esta vacio o no contiene unidades validas.");
+        }
+        if (seed != null) {
+            valley.setSeed(seed);
         }
     }
 
     /**
-     * Creates a unit instance.
+     * Creates a unit instance of the named type and places it in the valley.
      */
     private void createUnit(String className, int row, int col, int lineNumber)
             throws ValleyException {
 
-        Unit unit = null;
-
-        switch (className) {
-            case "Wolf":
-                unit = new Wolf(valley, row, col);
-                break;
-            case "Sheep":
-                unit = new Sheep(valley, row, col);
-                break;
-            case "Fox":
-                unit = new Fox(valley, row, col);
-                break;
-            case "Hay":
-                unit = new Hay(row, col, valley);
-                break;
-            case "Grass":
-                unit = new Grass(row, col, valley);
-                break;
-            case "WolfLotVol":
-                unit = new WolfLotVol(valley, row, col);
-                break;
-            case "SheepLotVol":
-                unit = new SheepLotVol(valley, row, col);
-                break;
-            default:
-                String suggestion = "";
-                String lowerClassName = className.toLowerCase();
-
-                if (lowerClassName.contains("wolf")) {
-                    suggestion = " ¿Quiso decir 'Wolf' o 'WolfLotVol'?";
-                } else if (lowerClassName.contains("sheep") || lowerClassName.contains("oveja")) {
-                    suggestion = " ¿Quiso decir 'Sheep' o 'SheepLotVol'?";
-                } else if (lowerClassName.contains("fox") || lowerClassName.contains("zorro")) {
-                    suggestion = " ¿Quiso decir 'Fox'?";
-                } else if (lowerClassName.contains("hay") || lowerClassName.contains("heno")) {
-                    suggestion = " ¿Quiso decir 'Hay'?";
-                } else if (lowerClassName.contains("grass") || lowerClassName.contains("pasto")) {
-                    suggestion = " ¿Quiso decir 'Grass'?";
-                }
+        UnitKind kind = UnitKind.byName(className);
+
+        if (kind == null) {
+            String suggestion = "";
+            String lowerClassName = className.toLowerCase();
+
+            if (lowerClassName.contains("wolf")) {
+                suggestion = " ¿Quiso decir 'Wolf' o 'WolfLotVol'?";
+            } else if (lowerClassName.contains("sheep") || lowerClassName.contains("oveja")) {
+                suggestion = " ¿Quiso decir 'Sheep' o 'SheepLotVol'?";
+            } else if (lowerClassName.contains("fox") || lowerClassName.contains("zorro")) {
+                suggestion = " ¿Quiso decir 'Fox'?";
+            } else if (lowerClassName.contains("hay") || lowerClassName.contains("heno")) {
+                suggestion = " ¿Quiso decir 'Hay'?";
+            } else if (lowerClassName.contains("grass") || lowerClassName.contains("pasto")) {
+                suggestion = " ¿Quiso decir 'Grass'?";
+            }
 
-                throw new ValleyException("Error en linea " + lineNumber +
-                        ": Tipo de unidad desconocido '" + className + "'." + suggestion +
-                        " Tipos validos: Wolf, Sheep, Fox, Hay, Grass, WolfLotVol, SheepLotVol.");
+            throw new ValleyException("Error en linea " + lineNumber +
+                    ": Tipo de unidad desconocido '" + className + "'." + suggestion +
+                    " Tipos validos: Wolf, Sheep, Fox, Hay, Grass, WolfLotVol, SheepLotVol.");
         }
+
+        kind.create(valley, row, col);
     }
 
     /**
@@ -499,10 +616,11 @@ public class Fachada {
         try {
             writer = new PrintWriter(new FileWriter(archivo));
 
-            int size = valley.getSize();
+            int rows = valley.getRows();
+            int columns = valley.getColumns();
 
-            for (int row = 0; row < size; row++) {
-                for (int col = 0; col < size; col++) {
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < columns; col++) {
                     Unit unit = valley.getUnit(row, col);
 
                     if (unit != null) {
@@ -526,18 +644,21 @@ public class Fachada {
 
     /**
      * Exports valley data to a text file with detailed error handling.
-     * Format: TypeName row column (one unit per line)
+     * Format: a "Size rows columns" line and a "Seed number" line followed by
+     * TypeName row column (one unit per line)
      * 
      * @param archivo File to export valley data to (.txt extension)
      * @throws ValleyException with specific error messages
      */
     public void export(File archivo) throws ValleyException {
         PrintWriter writer = null;
+        FileEvent event = FileEvent.start("export", archivo);
 
         try {
             writer = new PrintWriter(new FileWriter(archivo));
 
-            int size = valley.getSize();
+            int rows = valley.getRows();
+            int columns = valley.getColumns();
             int unitsExported = 0;
 
             // Add header comment
@@ -546,17 +667,18 @@ public class Fachada {
             writer.println("# Generated: " + new java.util.Date());
             writer.println();
 
-            for (int row = 0; row < size; row++) {
-                for (int col = 0; col < size; col++) {
-                    Unit unit = valley.getUnit(row, col);
+            // Valley dimensions
+            writer.println(SIZE_FIELD + " " + rows + " " + columns);
+            writer.println(SEED_FIELD + " " + valley.getSeed());
 
-                    if (unit != null) {
-                        String className = unit.getClass().getSimpleName();
-                        writer.println(className + " " + row + " " + col);
-                        unitsExported++;
-                    }
-                }
-            }
+            final PrintWriter out = writer;
+            final int[] count = {0};
+            valley.forEachUnit((row, col, unit) -> {
+                String className = unit.getClass().getSimpleName();
+                out.println(className + " " + row + " " + col);
+                count[0]++;
+            });
+            unitsExported = count[0];
 
             // Add footer comment
             writer.println();
@@ -568,6 +690,7 @@ public class Fachada {
                 throw new ValleyException("Advertencia: El valley esta vacio. " +
                         "No se exportaron unidades al archivo '" + archivo.getName() + "'.");
             }
+            event.succeeded(valley);
 
         } catch (FileNotFoundException e) {
             throw new ValleyException("Error: No se puede crear el archivo '" +
@@ -589,6 +712,7 @@ public class Fachada {
             if (writer != null) {
                 writer.close();
             }
+            event.finish(archivo);
         }
     }
 
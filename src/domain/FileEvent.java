@@ -0,0 +1,83 @@
+package domain;
+
+import java.io.File;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event emitted by the file operations of
+ * {@link Fachada}: open, save, import and export. It records the file,
+ * its size, the units of the valley and whether the operation succeeded.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+@Name("valley.File")
+@Label("Valley File Operation")
+@Category({"Valley", "I/O"})
+@Description("Open, save, import or export of a valley")
+final class FileEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Path")
+    String path;
+
+    @Label("File Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Units")
+    int units;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    /**
+     * Starts timing an operation on a file.
+     */
+    static FileEvent start(String operation, File file) {
+        FileEvent event = new FileEvent();
+        if (event.isEnabled()) {
+            event.operation = operation;
+            event.path = file.getPath();
+            event.begin();
+        }
+        return event;
+    }
+
+    /**
+     * Marks the operation as succeeded, leaving the given valley.
+     */
+    void succeeded(Valley valley) {
+        if (isEnabled()) {
+            succeeded(valley.population());
+        }
+    }
+
+    /**
+     * Marks the operation as succeeded, with the given number of units.
+     */
+    void succeeded(int count) {
+        if (isEnabled()) {
+            succeeded = true;
+            units = count;
+        }
+    }
+
+    /**
+     * Ends the operation and commits the event if it is long enough to be recorded.
+     */
+    void finish(File file) {
+        end();
+        if (shouldCommit()) {
+            bytes = file.length();
+            commit();
+        }
+    }
+}
@@ -16,6 +16,8 @@ import java.awt.Color;
  * @version 2025-2
  */
 public class Fox extends Mammal {
+
+    private static final long serialVersionUID = 7374282937536122678L;
     
     // Referencia al valle donde habita el zorro
     private Valley myValley;
@@ -57,6 +59,7 @@ public class Fox extends Mammal {
     public void act() {
         // Si no tiene energía, muere
         if (getEnergy() <= 0) {
+            myValley.record(TickStats.Event.STARVATION);
             die();
             return;
         }
@@ -68,6 +71,20 @@ public class Fox extends Mammal {
         moveHorizontally();
     }
 
+    /**
+     * Returns true if the fox is currently moving east.
+     */
+    boolean isGoingEast() {
+        return goingEast;
+    }
+
+    /**
+     * Sets the moving direction of the fox.
+     */
+    void setGoingEast(boolean goingEast) {
+        this.goingEast = goingEast;
+    }
+
     /**
      * Moves the fox horizontally across the valley.
      * Changes direction when reaching the edges.
@@ -80,7 +97,7 @@ public class Fox extends Mammal {
         }
         
         // Si llega al borde derecho y va al este, cambia de dirección
-        if (column == myValley.getSize() - 1 && goingEast) {
+        if (column == myValley.getColumns() - 1 && goingEast) {
             goingEast = false;  // Cambia hacia el oeste
             return;
         }
@@ -89,7 +106,7 @@ public class Fox extends Mammal {
         int newCol = goingEast ? column + 1 : column - 1;
 
         // Intenta moverse si la posición está dentro del valle
-        if (newCol >= 0 && newCol < myValley.getSize()) {
+        if (newCol >= 0 && newCol < myValley.getColumns()) {
             move(row, newCol);
         }
     }
@@ -99,35 +116,21 @@ public class Fox extends Mammal {
      * If a sheep is found, the fox eats it and gains 50% of the sheep's energy.
      */
     private void huntNearby() {
-        int size = myValley.getSize();
-
-        // Recorre todas las celdas vecinas al zorro
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) continue; // Ignora su propia celda
-
-                int r = row + dr;
-                int c = column + dc;
-
-                // Verifica que la posición esté dentro de los límites del valle
-                if (r >= 0 && r < size && c >= 0 && c < size) {
-                    Unit neighbor = myValley.getUnit(r, c);
-
-                    // Si encuentra una oveja, la caza
-                    if (neighbor instanceof Sheep) {
-                        Sheep prey = (Sheep) neighbor;
-
-                        // Gana la mitad de la energía de la oveja
-                        int energyGained = prey.getEnergy() / 2;
-                        int newEnergy = getEnergy() + energyGained;
-                        if (newEnergy > 100) newEnergy = 100; // No supera 100
-
-                        setEnergy(newEnergy);  // Actualiza la energía del zorro
-                        prey.die();  // Elimina a la oveja cazada
-                        return;  // Termina tras cazar una oveja
-                    }
-                }
-            }
+        // Busca la primera oveja entre las celdas vecinas al zorro
+        Unit neighbor = myValley.findNeighbor(row, column, UnitKind.SHEEP.mask());
+
+        // Si encuentra una oveja, la caza
+        if (neighbor != null) {
+            Sheep prey = (Sheep) neighbor;
+
+            // Gana la mitad de la energía de la oveja
+            int energyGained = prey.getEnergy() / 2;
+            int newEnergy = getEnergy() + energyGained;
+            if (newEnergy > 100) newEnergy = 100; // No supera 100
+
+            setEnergy(newEnergy);  // Actualiza la energía del zorro
+            myValley.record(TickStats.Event.KILL);
+            prey.die();  // Elimina a la oveja cazada
         }
     }
 }
@@ -1,6 +1,7 @@
 package domain;
 
 import java.awt.Color;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 
 /**
@@ -18,6 +19,11 @@ public class Grass implements Unit, Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    // Colores de cada nivel de crecimiento, compartidos por todo el pasto.
+    private static final Color EATEN = new Color(160, 82, 45);     // Saddle brown
+    private static final Color GROWING = new Color(144, 238, 144); // Light green
+    private static final Color MATURE = new Color(34, 139, 34);    // Forest green
+
     private int x, y;
     private Valley valley;
     private Color color;
@@ -38,7 +44,7 @@ public class Grass implements Unit, Serializable {
         this.valley = valley;
         this.growthLevel = 2; // Starts mature
         this.timeSinceEaten = 0;
-        this.color = new Color(34, 139, 34); // Dark green (mature)
+        this.color = MATURE; // Dark green (mature)
         valley.setUnit(x, y, this);
     }
 
@@ -55,6 +61,7 @@ public class Grass implements Unit, Serializable {
                 growthLevel = 1;
                 timeSinceEaten = 0;
                 updateColor();
+                valley.changed(x, y);
             }
         }
         // If growing (level 1), mature gradually
@@ -64,6 +71,7 @@ public class Grass implements Unit, Serializable {
                 growthLevel = 2;
                 timeSinceEaten = 0;
                 updateColor();
+                valley.changed(x, y);
             }
         }
         // If mature (level 2), stays mature
@@ -78,6 +86,7 @@ public class Grass implements Unit, Serializable {
             growthLevel = 0;
             timeSinceEaten = 0;
             updateColor();
+            valley.changed(x, y);
         }
     }
 
@@ -90,13 +99,13 @@ public class Grass implements Unit, Serializable {
     private void updateColor() {
         switch (growthLevel) {
             case 0:
-                color = new Color(160, 82, 45); // Saddle brown (eaten)
+                color = EATEN; // Saddle brown (eaten)
                 break;
             case 1:
-                color = new Color(144, 238, 144); // Light green (growing)
+                color = GROWING; // Light green (growing)
                 break;
             case 2:
-                color = new Color(34, 139, 34); // Forest green (mature)
+                color = MATURE; // Forest green (mature)
                 break;
         }
     }
@@ -176,4 +185,31 @@ public class Grass implements Unit, Serializable {
     public int getGrowthLevel() {
         return growthLevel;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the number of steps since the last growth change.
+     */
+    int getTimeSinceEaten() {
+        return timeSinceEaten;
+    }
+
+    /**
+     * Restores the growth state of the grass, as read from a compact store.
+     *
+     * @param growthLevel 0 (eaten), 1 (growing), or 2 (mature).
+     * @param timeSinceEaten Steps since the last growth change.
+     */
+    void restore(int growthLevel, int timeSinceEaten) {
+        this.growthLevel = growthLevel;
+        this.timeSinceEaten = timeSinceEaten;
+        updateColor();
+    }
+
+    /**
+     * Serializes the grass as a reference to its cell, since the snapshot
+     * of its valley already holds its state.
+     */
+    Object writeReplace() throws ObjectStreamException {
+        return UnitRef.of(this, valley, x, y);
+    }
+}
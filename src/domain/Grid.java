@@ -0,0 +1,49 @@
+package domain;
+
+import java.io.Serializable;
+
+/**
+ * Storage used by a {@link Valley} to keep the unit of each cell.
+ * Implementations decide how cells are laid out in memory; the valley
+ * is responsible for checking that coordinates are inside its limits.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+interface Grid extends Serializable {
+
+    /**
+     * Returns the unit stored at the given cell, or {@code null}.
+     */
+    Unit get(int r, int c);
+
+    /**
+     * Stores a unit at the given cell; {@code null} empties it.
+     */
+    void set(int r, int c, Unit u);
+
+    /**
+     * Visits every occupied cell. Cells are read when they are reached,
+     * so changes made by the visitor to cells not yet visited are seen.
+     */
+    void forEachUnit(UnitVisitor visitor);
+
+    /**
+     * Returns the number of cell slots currently allocated.
+     */
+    long allocatedCells();
+
+    /**
+     * Writes back any state the grid keeps outside its storage.
+     * Called at the end of every tic-tac.
+     */
+    default void flush() {
+    }
+
+    /**
+     * Flushes the grid and makes its storage durable, if it has any.
+     */
+    default void sync() {
+        flush();
+    }
+}
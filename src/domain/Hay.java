@@ -1,6 +1,7 @@
 package domain;
 
 import java.awt.Color;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 
 /**
@@ -52,6 +53,7 @@ public class Hay implements Unit, Serializable {
         stepCounter++;
         // Cambia el color en cada paso
         color = (stepCounter % 2 == 0) ? Color.YELLOW : Color.RED;
+        valley.changed(x, y);
     }
 
     /**
@@ -91,6 +93,27 @@ public class Hay implements Unit, Serializable {
     public int getY() {
         return y;
     }
-}
 
+    /**
+     * Returns the number of steps the hay has taken.
+     */
+    int getStepCounter() {
+        return stepCounter;
+    }
 
+    /**
+     * Restores the step counter and the matching color.
+     */
+    void setStepCounter(int stepCounter) {
+        this.stepCounter = stepCounter;
+        color = (stepCounter % 2 == 0) ? Color.YELLOW : Color.RED;
+    }
+
+    /**
+     * Serializes the hay as a reference to its cell, since the snapshot
+     * of its valley already holds its state.
+     */
+    Object writeReplace() throws ObjectStreamException {
+        return UnitRef.of(this, valley, x, y);
+    }
+}
@@ -0,0 +1,72 @@
+package domain;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Lines of a text scenario, split in tokens, as the import reads them.
+ * The import checks the lines and creates the units through this
+ * interface, so the same rules apply whichever way the text is read.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+interface ImportLines extends Closeable {
+
+    /**
+     * Moves to the next line and splits it in tokens.
+     *
+     * @return false at the end of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    boolean nextLine() throws IOException;
+
+    /**
+     * Returns the number of the current line, starting at 1.
+     */
+    int lineNumber();
+
+    /**
+     * Returns the number of tokens of the current line; 0 if it is blank.
+     */
+    int tokens();
+
+    /**
+     * Returns true if the current line is a comment: its first token starts with '#'.
+     */
+    boolean isComment();
+
+    /**
+     * Returns true if a token is the given ASCII word.
+     */
+    boolean is(int token, byte[] word);
+
+    /**
+     * Returns the kind of unit named by a token, or null if no kind has that name.
+     */
+    UnitKind kind(int token);
+
+    /**
+     * Parses a token as an int.
+     *
+     * @throws NumberFormatException if the token is not an int.
+     */
+    int intValue(int token);
+
+    /**
+     * Parses a token as a long.
+     *
+     * @throws NumberFormatException if the token is not a long.
+     */
+    long longValue(int token);
+
+    /**
+     * Returns the text of a token, for messages.
+     */
+    String token(int token);
+
+    /**
+     * Returns the text of the current line without the spaces of its ends, for messages.
+     */
+    String line();
+}
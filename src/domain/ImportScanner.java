@@ -0,0 +1,321 @@
+package domain;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the lines of a text scenario straight from the bytes of the
+ * file and splits them in tokens, without creating a string per line
+ * or per token. The file is read through a channel into one large
+ * array; a line is a range of that array and a token a range of the
+ * line, so the numbers are parsed and the type names matched from the
+ * bytes themselves. Strings are only built for the error messages.
+ *
+ * Lines end at {@code \n}, {@code \r} or {@code \r\n}, as for
+ * {@link java.io.BufferedReader#readLine()}. Tokens are separated by
+ * control characters and spaces, which are also trimmed from both ends
+ * of the line, as {@link String#trim()} does.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+final class ImportScanner implements ImportLines {
+
+    // Tamaño inicial del arreglo de lectura; crece si una linea no cabe.
+    static final int BUFFER_SIZE = 1 << 20;
+
+    // Tokens recordados por linea; las lineas con mas solo cuentan los demas.
+    private static final int MAX_TOKENS = 4;
+
+    // Nombres de los tipos en bytes, por id del tipo.
+    private static final byte[][] NAMES = new byte[256][];
+
+    static {
+        for (UnitKind kind : UnitKind.values()) {
+            NAMES[kind.id()] = kind.typeName().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private final ReadableByteChannel channel;
+    private byte[] bytes = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    // Linea actual: limites sin los espacios de los extremos y numero.
+    private int lineStart;
+    private int lineEnd;
+    private int lineNumber;
+
+    // Limites de los primeros tokens de la linea y numero total de tokens.
+    private final int[] starts = new int[MAX_TOKENS];
+    private final int[] ends = new int[MAX_TOKENS];
+    private int tokens;
+
+    // Ultimo tipo reconocido; los archivos suelen repetir el mismo tipo.
+    private UnitKind lastKind;
+
+    /**
+     * Creates a scanner over a channel positioned at the start of the text.
+     */
+    ImportScanner(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Moves to the next line and splits it in tokens.
+     *
+     * @return false at the end of the file.
+     * @throws IOException if the channel cannot be read.
+     */
+    @Override
+    public boolean nextLine() throws IOException {
+        // Busca el fin de la linea, leyendo mas si no esta en el arreglo
+        int scan = position;
+        int end;
+        while (true) {
+            end = terminator(scan);
+            if (end >= 0 || eof) {
+                break;
+            }
+            scan = limit - position;
+            fill();
+        }
+        if (end < 0) {
+            if (position == limit) {
+                return false;
+            }
+            end = limit;
+        }
+        lineNumber++;
+        int next = end + 1;
+        if (end < limit && bytes[end] == '\r') {
+            // \r\n es un solo fin de linea
+            if (next == limit && !eof) {
+                int offset = position;
+                fill();
+                int moved = offset - position;
+                end -= moved;
+                next -= moved;
+            }
+            if (next < limit && bytes[next] == '\n') {
+                next++;
+            }
+        }
+        split(position, end);
+        position = Math.min(next, limit);
+        return true;
+    }
+
+    /**
+     * Returns the number of the current line, starting at 1.
+     */
+    @Override
+    public int lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns the number of tokens of the current line; 0 if it is blank.
+     */
+    @Override
+    public int tokens() {
+        return tokens;
+    }
+
+    /**
+     * Returns true if the current line is a comment: its first token starts with '#'.
+     */
+    @Override
+    public boolean isComment() {
+        return tokens > 0 && bytes[starts[0]] == '#';
+    }
+
+    /**
+     * Returns true if a token is the given ASCII word.
+     */
+    @Override
+    public boolean is(int token, byte[] word) {
+        return equals(starts[token], ends[token], word);
+    }
+
+    /**
+     * Returns the kind of unit named by a token, or null if no kind has that name.
+     */
+    @Override
+    public UnitKind kind(int token) {
+        int start = starts[token];
+        int end = ends[token];
+        if (lastKind != null && equals(start, end, NAMES[lastKind.id()])) {
+            return lastKind;
+        }
+        for (UnitKind kind : UnitKind.values()) {
+            if (equals(start, end, NAMES[kind.id()])) {
+                lastKind = kind;
+                return kind;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses a token as an int, like {@link Integer#parseInt(String)}
+     * for ASCII digits.
+     *
+     * @throws NumberFormatException if the token is not an int.
+     */
+    @Override
+    public int intValue(int token) {
+        long value = longValue(token);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException(token(token));
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a token as a long, like {@link Long#parseLong(String)} for
+     * ASCII digits.
+     *
+     * @throws NumberFormatException if the token is not a long.
+     */
+    @Override
+    public long longValue(int token) {
+        int i = starts[token];
+        int end = ends[token];
+        boolean negative = bytes[i] == '-';
+        if (negative || bytes[i] == '+') {
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException(token(token));
+        }
+        // Acumula en negativo para alcanzar Long.MIN_VALUE
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9 || value < limit / 10) {
+                throw new NumberFormatException(token(token));
+            }
+            value *= 10;
+            if (value < limit + digit) {
+                throw new NumberFormatException(token(token));
+            }
+            value -= digit;
+        }
+        return negative ? value : -value;
+    }
+
+    /**
+     * Returns the text of a token, for messages.
+     */
+    @Override
+    public String token(int token) {
+        return new String(bytes, starts[token], ends[token] - starts[token], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the text of the current line without the spaces of its ends, for messages.
+     */
+    @Override
+    public String line() {
+        return new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // ------------------------------------------------------------------
+
+    /**
+     * Returns the index of the first line terminator from the given
+     * index, or -1 if there is none before the end of the bytes read.
+     */
+    private int terminator(int from) {
+        byte[] b = bytes;
+        for (int i = from; i < limit; i++) {
+            byte c = b[i];
+            if (c == '\n' || c == '\r') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the unread bytes to the start of the array, growing it if
+     * it is full, and reads more from the channel.
+     */
+    private void fill() throws IOException {
+        int unread = limit - position;
+        if (unread == bytes.length) {
+            byte[] larger = new byte[bytes.length * 2];
+            System.arraycopy(bytes, position, larger, 0, unread);
+            bytes = larger;
+        } else {
+            System.arraycopy(bytes, position, bytes, 0, unread);
+        }
+        position = 0;
+        limit = unread;
+        ByteBuffer target = ByteBuffer.wrap(bytes, limit, bytes.length - limit);
+        while (target.hasRemaining()) {
+            int n = channel.read(target);
+            if (n < 0) {
+                eof = true;
+                break;
+            }
+            if (n == 0) {
+                break;
+            }
+        }
+        limit = target.position();
+    }
+
+    /**
+     * Finds the tokens of the line between the given indexes.
+     */
+    private void split(int start, int end) {
+        byte[] b = bytes;
+        while (start < end && (b[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (b[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        lineStart = start;
+        lineEnd = end;
+        tokens = 0;
+        int i = start;
+        while (i < end) {
+            int tokenStart = i;
+            while (i < end && (b[i] & 0xFF) > ' ') {
+                i++;
+            }
+            if (tokens < MAX_TOKENS) {
+                starts[tokens] = tokenStart;
+                ends[tokens] = i;
+            }
+            tokens++;
+            while (i < end && (b[i] & 0xFF) <= ' ') {
+                i++;
+            }
+        }
+    }
+
+    private boolean equals(int start, int end, byte[] word) {
+        if (end - start != word.length) {
+            return false;
+        }
+        for (int i = 0; i < word.length; i++) {
+            if (bytes[start + i] != word[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
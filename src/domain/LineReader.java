@@ -0,0 +1,100 @@
+package domain;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads the lines of a text scenario with a {@link BufferedReader},
+ * trimming each line and splitting it in tokens with a regular
+ * expression. It is the way the import read files before the
+ * {@link ImportScanner}, kept to compare both.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+final class LineReader implements ImportLines {
+
+    private final BufferedReader reader;
+    private String line;
+    private String[] parts;
+    private int lineNumber;
+
+    /**
+     * Creates a line reader over the given characters.
+     */
+    LineReader(Reader reader) {
+        this.reader = new BufferedReader(reader);
+    }
+
+    @Override
+    public boolean nextLine() throws IOException {
+        String text = reader.readLine();
+        if (text == null) {
+            return false;
+        }
+        lineNumber++;
+        line = text.trim();
+        parts = line.isEmpty() ? new String[0] : line.split("\\s+");
+        return true;
+    }
+
+    @Override
+    public int lineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public int tokens() {
+        return parts.length;
+    }
+
+    @Override
+    public boolean isComment() {
+        return line.startsWith("#");
+    }
+
+    @Override
+    public boolean is(int token, byte[] word) {
+        String text = parts[token];
+        if (text.length() != word.length) {
+            return false;
+        }
+        for (int i = 0; i < word.length; i++) {
+            if (text.charAt(i) != word[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public UnitKind kind(int token) {
+        return UnitKind.byName(parts[token]);
+    }
+
+    @Override
+    public int intValue(int token) {
+        return Integer.parseInt(parts[token]);
+    }
+
+    @Override
+    public long longValue(int token) {
+        return Long.parseLong(parts[token]);
+    }
+
+    @Override
+    public String token(int token) {
+        return parts[token];
+    }
+
+    @Override
+    public String line() {
+        return line;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
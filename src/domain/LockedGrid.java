@@ -0,0 +1,63 @@
+package domain;
+
+/**
+ * Grid that lets one thread at a time reach the grid it wraps. A
+ * {@link Valley} puts it in front of a chunked or off-heap grid while
+ * the units of a parallel tic-tac act, since those grids change shared
+ * tables (the chunk index, the remembered views) even when the threads
+ * work on different cells. The lock is the wrapper itself.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+class LockedGrid implements Grid {
+
+    private static final long serialVersionUID = 1L;
+
+    // Cuadricula envuelta; cambia de un tic-tac al siguiente.
+    private Grid target;
+
+    /**
+     * Wraps a grid.
+     */
+    void wrap(Grid target) {
+        this.target = target;
+    }
+
+    /**
+     * Returns the wrapped grid.
+     */
+    Grid target() {
+        return target;
+    }
+
+    @Override
+    public synchronized Unit get(int r, int c) {
+        return target.get(r, c);
+    }
+
+    @Override
+    public synchronized void set(int r, int c, Unit u) {
+        target.set(r, c, u);
+    }
+
+    @Override
+    public synchronized void forEachUnit(UnitVisitor visitor) {
+        target.forEachUnit(visitor);
+    }
+
+    @Override
+    public synchronized long allocatedCells() {
+        return target.allocatedCells();
+    }
+
+    @Override
+    public synchronized void flush() {
+        target.flush();
+    }
+
+    @Override
+    public synchronized void sync() {
+        target.sync();
+    }
+}
@@ -0,0 +1,147 @@
+package domain;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Small open addressing hash table from {@code long} keys to {@code int}
+ * values. It is used by the valley storage to index cells and chunks
+ * without boxing keys, so lookups and updates do not allocate.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+class LongIntMap implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Valor devuelto cuando la llave no existe.
+    public static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+
+    /**
+     * Creates an empty table.
+     */
+    public LongIntMap() {
+        keys = new long[16];
+        values = new int[16];
+        used = new boolean[16];
+    }
+
+    /**
+     * Returns the value stored for the key, or {@link #MISSING}.
+     */
+    public int get(long key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (used[i]) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /**
+     * Stores the value for the key, replacing any previous value.
+     */
+    public void put(long key, int value) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (used[i]) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        used[i] = true;
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    /**
+     * Removes the key from the table, if present.
+     *
+     * @return the value that was stored, or {@link #MISSING}.
+     */
+    public int remove(long key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (used[i]) {
+            if (keys[i] == key) {
+                int old = values[i];
+                shiftBack(i);
+                size--;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /**
+     * Returns the number of keys in the table.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every key from the table.
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * Closes the gap left at the given slot by moving back the entries
+     * of the same probe chain, so lookups never need tombstones.
+     */
+    private void shiftBack(int gap) {
+        int mask = keys.length - 1;
+        int i = (gap + 1) & mask;
+        while (used[i]) {
+            int home = hash(keys[i]) & mask;
+            // Mueve la entrada si su posicion ideal no esta entre el hueco y ella
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                used[gap] = true;
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        used[gap] = false;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -1,6 +1,7 @@
 package domain;
 
 import java.awt.Color;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 
 /**
@@ -45,6 +46,15 @@ public abstract class Mammal extends Animal implements Unit, Serializable {
         this.valley.setUnit(row, column, this);
     }
 
+    /**
+     * Returns the valley where the mammal lives.
+     *
+     * @return the valley of the mammal.
+     */
+    protected final Valley getValley() {
+        return valley;
+    }
+
     /**
      * Returns the row index of the mammal's current position.
      *
@@ -82,40 +92,77 @@ public abstract class Mammal extends Animal implements Unit, Serializable {
      * @return true if the movement was successful; false otherwise.
      */
     public boolean move(int r, int c) {
+        // Un mamífero muerto ya no se mueve
+        if (!isInValley()) {
+            return false;
+        }
+
         // Verificar que el destino esté dentro del valle
-        if (r < 0 || r >= valley.getSize() || c < 0 || c >= valley.getSize()) {
+        if (!valley.inValley(r, c)) {
+            valley.record(TickStats.Event.FAILED_MOVE);
             return false; // fuera de los límites
         }
     
         // Verificar que el destino esté vacío
         if (!valley.isEmpty(r, c)) {
+            valley.record(TickStats.Event.FAILED_MOVE);
             return false; // celda ocupada
         }
     
         // Ejecutar un paso: resta energía. Si no tiene energía, muere.
         if (!step()) {
+            valley.record(TickStats.Event.STARVATION);
             die();
             return false;
         }
     
-        // Liberar la posición actual
-        valley.setUnit(row, column, null);
+        // Liberar la posición actual y ocupar la nueva
+        valley.moveUnit(row, column, r, c, this);
+        valley.record(TickStats.Event.MOVE);
     
         // Actualizar coordenadas
         row = r;
         column = c;
     
-        // Colocar el mamífero en la nueva posición
-        valley.setUnit(row, column, this);
-    
         return true;
     }
 
     /**
      * Removes the mammal from the valley, representing its death.
-     * The cell it occupied becomes empty.
+     * The cell it occupied becomes empty; a mammal that already left
+     * the valley leaves it unchanged.
      */
     public void die() {
-        valley.setUnit(row, column, null);
+        // Solo libera la celda si todavía es suya
+        if (isInValley()) {
+            valley.setUnit(row, column, null);
+        }
+    }
+
+    /**
+     * Records in the change set of the tic-tac that the mammal looks
+     * different, since its energy is drawn with it. Units rebuilt from
+     * the records of their grid change nothing.
+     */
+    @Override
+    void energyChanged(int old) {
+        if (old != getEnergy() && !valley.restoring && isInValley()) {
+            valley.changed(row, column);
+        }
+    }
+
+    /**
+     * Serializes the mammal as a reference to its cell, since the
+     * snapshot of its valley already holds its state.
+     */
+    Object writeReplace() throws ObjectStreamException {
+        return UnitRef.of(this, valley, row, column);
+    }
+
+    /**
+     * Returns true if the mammal still occupies its cell in the valley.
+     */
+    private boolean isInValley() {
+        return valley.inValley(row, column) && valley.holds(row, column, this);
     }
 }
@@ -0,0 +1,71 @@
+package domain;
+
+/**
+ * Table with, for every cell, how many of its eight neighbors hold a
+ * unit of each {@link UnitKind}. The counts of a cell are packed in a
+ * single {@code long}, one byte per kind id, and are updated in the
+ * eight neighbors whenever a cell changes, so reading them costs O(1).
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+class NeighborCounts {
+
+    private final int rows;
+    private final int columns;
+
+    // Conteos por celda: el byte i guarda los vecinos del tipo con id i.
+    private final long[] counts;
+
+    /**
+     * Creates a table with every count at zero.
+     */
+    public NeighborCounts(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        counts = new long[rows * columns];
+    }
+
+    /**
+     * Adds {@code delta} to the count of the given kind in the eight
+     * neighbors of a cell. A {@code null} kind is ignored.
+     */
+    public void add(int r, int c, UnitKind kind, int delta) {
+        if (kind == null) {
+            return;
+        }
+        long step = (long) delta << (kind.id() << 3);
+        int firstRow = Math.max(0, r - 1);
+        int lastRow = Math.min(rows - 1, r + 1);
+        int firstColumn = Math.max(0, c - 1);
+        int lastColumn = Math.min(columns - 1, c + 1);
+        for (int rr = firstRow; rr <= lastRow; rr++) {
+            for (int cc = firstColumn; cc <= lastColumn; cc++) {
+                if (rr != r || cc != c) {
+                    counts[rr * columns + cc] += step;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns how many neighbors of the cell hold a unit of the given kind.
+     */
+    public int get(int r, int c, UnitKind kind) {
+        return (int) (counts[r * columns + c] >>> (kind.id() << 3)) & 0xFF;
+    }
+
+    /**
+     * Returns true if any neighbor of the cell holds a unit of one of the
+     * kinds in the mask.
+     */
+    public boolean any(int r, int c, int kinds) {
+        long lanes = 0;
+        for (int id = 1; id < UnitKind.COUNT; id++) {
+            if ((kinds & (1 << id)) != 0) {
+                lanes |= 0xFFL << (id << 3);
+            }
+        }
+        return (counts[r * columns + c] & lanes) != 0;
+    }
+}
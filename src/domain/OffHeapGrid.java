@@ -0,0 +1,302 @@
+package domain;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Grid that keeps the state of every cell outside the Java heap, as one
+ * {@link UnitCodec} record (kind, energy, flags, counter) per cell. The
+ * records live in direct buffers or in buffers mapped onto a file, so a
+ * valley larger than the heap can run and a mapped valley can be opened
+ * again after the program stops.
+ *
+ * Units are not stored as objects. {@link #get(int, int)} returns a
+ * lightweight view built from the record and remembered while its cell
+ * holds it; the state of the remembered views is written back to the
+ * records when the valley finishes a tic-tac or is synced. A view held
+ * by the caller stays the unit of its cell across flushes, so writes
+ * made through it are kept, as long as no more than {@code VIEW_LIMIT}
+ * views are remembered. Above that limit a flush forgets every view:
+ * the next {@link #get(int, int)} builds a new one from the record and
+ * the views held before no longer belong to the grid.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+class OffHeapGrid implements Grid {
+
+    private static final long serialVersionUID = 1L;
+
+    // Celdas por segmento (cada segmento ocupa 1 GB).
+    private static final int SEGMENT_SHIFT = 28;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    // Encabezado de los archivos mapeados: magia, version, filas, columnas.
+    static final int MAGIC = 0x56414C59;
+    static final int VERSION = 1;
+    static final int HEADER = 16;
+
+    // Vistas recordadas a partir de las cuales un flush las olvida todas.
+    private static final int VIEW_LIMIT = 1 << 16;
+
+    private final Valley valley;
+    private final int rows;
+    private final int columns;
+
+    private transient ByteBuffer[] segments;
+    private transient MappedByteBuffer[] mapped;
+
+    // Vistas vivas por celda.
+    private transient LongIntMap viewIndex;
+    private transient Unit[] views;
+    private transient long[] viewCells;
+    private transient int viewCount;
+
+    /**
+     * Creates an empty grid in direct (off-heap) memory.
+     */
+    OffHeapGrid(Valley valley, int rows, int columns) {
+        this.valley = valley;
+        this.rows = rows;
+        this.columns = columns;
+        allocate();
+        resetViews();
+    }
+
+    /**
+     * Maps the grid onto a file. If the file already holds a valley of
+     * the same size its cells are kept; otherwise it is initialized empty.
+     */
+    OffHeapGrid(Valley valley, int rows, int columns, File file) throws IOException {
+        this.valley = valley;
+        this.rows = rows;
+        this.columns = columns;
+        map(file);
+        resetViews();
+    }
+
+    /**
+     * Reads the size stored in the header of a mapped valley file.
+     *
+     * @return an array with the rows and the columns.
+     * @throws IOException if the file is not a mapped valley.
+     */
+    static int[] readHeader(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() < HEADER || raf.readInt() != MAGIC || raf.readInt() != VERSION) {
+                throw new IOException("Not a mapped valley file: " + file.getName());
+            }
+            return new int[] {raf.readInt(), raf.readInt()};
+        }
+    }
+
+    @Override
+    public Unit get(int r, int c) {
+        long cell = cell(r, c);
+        int v = viewIndex.get(cell);
+        if (v != LongIntMap.MISSING) {
+            return views[v];
+        }
+        int record = read(cell);
+        if (record == 0) {
+            return null;
+        }
+        // Crea la vista sin efectos sobre el valle; set() la recuerda
+        boolean wasRestoring = valley.restoring;
+        valley.restoring = true;
+        try {
+            return UnitCodec.decode(valley, r, c, record);
+        } finally {
+            valley.restoring = wasRestoring;
+        }
+    }
+
+    @Override
+    public void set(int r, int c, Unit u) {
+        long cell = cell(r, c);
+        if (u == null) {
+            write(cell, 0);
+            forget(cell);
+            return;
+        }
+        if (!valley.restoring) {
+            write(cell, UnitCodec.encode(u));
+        }
+        remember(cell, u);
+    }
+
+    @Override
+    public void forEachUnit(UnitVisitor visitor) {
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                if (read(cell(r, c)) != 0) {
+                    Unit u = get(r, c);
+                    if (u != null) {
+                        visitor.visit(r, c, u);
+                    }
+                    if (viewCount > VIEW_LIMIT) {
+                        flush();
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public long allocatedCells() {
+        // Ninguna celda ocupa espacio en el heap
+        return 0;
+    }
+
+    /**
+     * Writes the state of every remembered view back to its record. The
+     * views are kept, packed without the slots of the emptied cells,
+     * unless there are more than {@code VIEW_LIMIT}; then all are forgotten.
+     */
+    @Override
+    public void flush() {
+        int kept = 0;
+        for (int v = 0; v < viewCount; v++) {
+            Unit u = views[v];
+            if (u == null) {
+                continue;
+            }
+            write(viewCells[v], UnitCodec.encode(u));
+            if (kept != v) {
+                views[kept] = u;
+                viewCells[kept] = viewCells[v];
+                viewIndex.put(viewCells[v], kept);
+            }
+            kept++;
+        }
+        if (kept > VIEW_LIMIT) {
+            resetViews();
+            return;
+        }
+        Arrays.fill(views, kept, viewCount, null);
+        viewCount = kept;
+    }
+
+    /**
+     * Flushes the views and, for mapped grids, forces the records to disk.
+     */
+    @Override
+    public void sync() {
+        flush();
+        if (mapped != null) {
+            for (MappedByteBuffer buffer : mapped) {
+                buffer.force();
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------
+
+    private long cell(int r, int c) {
+        return (long) r * columns + c;
+    }
+
+    private int read(long cell) {
+        return segments[(int) (cell >>> SEGMENT_SHIFT)].getInt((int) (cell & SEGMENT_MASK) << 2);
+    }
+
+    private void write(long cell, int record) {
+        segments[(int) (cell >>> SEGMENT_SHIFT)].putInt((int) (cell & SEGMENT_MASK) << 2, record);
+    }
+
+    private void remember(long cell, Unit u) {
+        int v = viewIndex.get(cell);
+        if (v == LongIntMap.MISSING) {
+            if (viewCount == views.length) {
+                views = Arrays.copyOf(views, viewCount * 2);
+                viewCells = Arrays.copyOf(viewCells, viewCount * 2);
+            }
+            v = viewCount++;
+            viewCells[v] = cell;
+            viewIndex.put(cell, v);
+        }
+        views[v] = u;
+    }
+
+    private void forget(long cell) {
+        int v = viewIndex.remove(cell);
+        if (v != LongIntMap.MISSING) {
+            views[v] = null;
+        }
+    }
+
+    private void resetViews() {
+        viewIndex = new LongIntMap();
+        views = new Unit[64];
+        viewCells = new long[64];
+        viewCount = 0;
+    }
+
+    private void allocate() {
+        long cells = (long) rows * columns;
+        segments = new ByteBuffer[(int) ((cells + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+        for (int s = 0; s < segments.length; s++) {
+            long size = Math.min(cells - ((long) s << SEGMENT_SHIFT), 1L << SEGMENT_SHIFT);
+            segments[s] = ByteBuffer.allocateDirect((int) (size << 2)).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    private void map(File file) throws IOException {
+        long cells = (long) rows * columns;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                FileChannel channel = raf.getChannel()) {
+            boolean resume = raf.length() == HEADER + cells * 4
+                    && raf.readInt() == MAGIC && raf.readInt() == VERSION
+                    && raf.readInt() == rows && raf.readInt() == columns;
+            if (!resume) {
+                raf.setLength(0);
+                raf.setLength(HEADER + cells * 4);
+                raf.seek(0);
+                raf.writeInt(MAGIC);
+                raf.writeInt(VERSION);
+                raf.writeInt(rows);
+                raf.writeInt(columns);
+            }
+            int count = (int) ((cells + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+            segments = new ByteBuffer[count];
+            mapped = new MappedByteBuffer[count];
+            for (int s = 0; s < count; s++) {
+                long first = (long) s << SEGMENT_SHIFT;
+                long size = Math.min(cells - first, 1L << SEGMENT_SHIFT) << 2;
+                mapped[s] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER + (first << 2), size);
+                segments[s] = mapped[s].order(ByteOrder.BIG_ENDIAN);
+            }
+        }
+    }
+
+    /**
+     * Saves the records to a .dat file; the copy is read back into
+     * direct memory, even if the grid was mapped.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        flush();
+        out.defaultWriteObject();
+        long cells = (long) rows * columns;
+        for (long cell = 0; cell < cells; cell++) {
+            out.writeInt(read(cell));
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        allocate();
+        resetViews();
+        long cells = (long) rows * columns;
+        for (long cell = 0; cell < cells; cell++) {
+            write(cell, in.readInt());
+        }
+    }
+}
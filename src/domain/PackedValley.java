@@ -0,0 +1,505 @@
+package domain;
+
+import java.util.Arrays;
+
+/**
+ * Compact alternative to {@link Valley} for very large populations.
+ * Instead of one object per unit, the state of every unit is kept in
+ * parallel primitive arrays (kind, energy, flags, position) and each
+ * species' behavior runs as a loop over those arrays. A cell table maps
+ * every cell to the unit that occupies it.
+ *
+ * The behaviors follow the ones of {@link Wolf}, {@link Sheep},
+ * {@link Fox}, {@link WolfLotVol}, {@link SheepLotVol}, {@link Grass}
+ * and {@link Hay}. A dead unit never acts again in the same step.
+ * Units are converted to and from regular objects with
+ * {@link #of(Valley)} and {@link #toValley()}, which is how the GUI and
+ * {@link Fachada} see a packed valley.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class PackedValley {
+
+    private final int rows;
+    private final int columns;
+
+    // Indice + 1 de la unidad que ocupa cada celda (0 = vacia).
+    private final int[] cells;
+
+    // Columnas de estado de las unidades (ver UnitCodec).
+    private byte[] kind;
+    private byte[] energy;
+    private byte[] flags;
+    private byte[] aux;
+    private int[] row;
+    private int[] column;
+
+    // Numero de unidades (incluye las muertas hasta compactar).
+    private int count;
+    private int dead;
+
+    // Semilla y numero de tic-tacs, como en Valley.
+    private long seed;
+    private long tickCount;
+    private final CellRandom random = new CellRandom(0);
+
+    /**
+     * Creates an empty packed valley.
+     *
+     * @param rows Number of rows of the grid.
+     * @param columns Number of columns of the grid.
+     * @throws IllegalArgumentException if the size is not positive or too large.
+     */
+    public PackedValley(int rows, int columns) {
+        if (rows <= 0 || columns <= 0 || (long) rows * columns > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid valley size " + rows + "x" + columns);
+        }
+        this.rows = rows;
+        this.columns = columns;
+        cells = new int[rows * columns];
+        int capacity = 16;
+        kind = new byte[capacity];
+        energy = new byte[capacity];
+        flags = new byte[capacity];
+        aux = new byte[capacity];
+        row = new int[capacity];
+        column = new int[capacity];
+    }
+
+    /**
+     * Packs the units of a valley.
+     *
+     * @param valley Valley to copy.
+     * @return a packed valley with the same units and state.
+     * @throws IllegalArgumentException if the valley holds unknown units.
+     */
+    public static PackedValley of(Valley valley) {
+        PackedValley packed = new PackedValley(valley.getRows(), valley.getColumns());
+        packed.seed = valley.getSeed();
+        packed.tickCount = valley.getTickCount();
+        valley.forEachUnit((r, c, u) -> packed.addRecord(r, c, UnitCodec.encode(u)));
+        return packed;
+    }
+
+    /**
+     * Builds a regular valley with one object per unit of this store.
+     *
+     * @return a new valley with the same units and state.
+     */
+    public Valley toValley() {
+        Valley valley = new Valley(rows, columns);
+        valley.setSeed(seed);
+        valley.setTickCount(tickCount);
+        for (int i = 0; i < count; i++) {
+            if (kind[i] != 0) {
+                UnitCodec.decode(valley, row[i], column[i], record(i));
+            }
+        }
+        return valley;
+    }
+
+    /**
+     * Adds a unit of the given kind with the initial state its class gives it.
+     *
+     * @param unitKind Kind of the new unit.
+     * @param r Row of the unit.
+     * @param c Column of the unit.
+     * @throws IllegalArgumentException if the cell is outside or occupied.
+     */
+    public void add(UnitKind unitKind, int r, int c) {
+        int e = 0;
+        int f = 0;
+        switch (unitKind) {
+            case WOLF:
+            case WOLF_LOT_VOL:
+                e = 100;
+                break;
+            case SHEEP:
+                e = 5;
+                f = UnitCodec.DIRECTION;
+                break;
+            case FOX:
+                e = 60;
+                f = UnitCodec.DIRECTION;
+                break;
+            case SHEEP_LOT_VOL:
+                e = 50;
+                break;
+            case GRASS:
+                f = 2 << UnitCodec.GROWTH_SHIFT;
+                break;
+            default:
+                break;
+        }
+        addRecord(r, c, UnitCodec.pack(unitKind.id(), e, f, 0));
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the number of living units.
+     */
+    public int population() {
+        return count - dead;
+    }
+
+    /**
+     * Returns the kind of the unit at the given cell, or {@code null} if empty.
+     */
+    public UnitKind kindAt(int r, int c) {
+        int i = cells[r * columns + c] - 1;
+        return i < 0 ? null : UnitKind.byId(kind[i]);
+    }
+
+    /**
+     * Returns the energy of the unit at the given cell (0 if empty or a resource).
+     */
+    public int energyAt(int r, int c) {
+        int i = cells[r * columns + c] - 1;
+        return i < 0 ? 0 : energy[i] & 0xFF;
+    }
+
+    /**
+     * Executes one simulation step. Every unit alive when the step starts
+     * acts once, in the order it was added; units born during the step
+     * wait for the next one.
+     */
+    public void ticTac() {
+        int n = count;
+        for (int i = 0; i < n; i++) {
+            // Mismo flujo aleatorio que tendria la unidad en un Valley
+            random.reseed(seed, tickCount, (long) row[i] * columns + column[i]);
+            switch (kind[i]) {
+                case 1:
+                    actWolf(i);
+                    break;
+                case 2:
+                    actSheep(i);
+                    break;
+                case 3:
+                    actFox(i);
+                    break;
+                case 4:
+                    aux[i]++;
+                    break;
+                case 5:
+                    actGrass(i);
+                    break;
+                case 6:
+                    actWolfLotVol(i);
+                    break;
+                case 7:
+                    actSheepLotVol(i);
+                    break;
+                default:
+                    break;
+            }
+        }
+        compact();
+        tickCount++;
+    }
+
+    /**
+     * Returns the seed of the random numbers used by the units.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the seed of the random numbers used by the units.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    // ------------------------------------------------------------------
+    // Comportamientos por especie
+
+    private void actWolf(int i) {
+        if (energy[i] == 0) {
+            die(i);
+        } else if (!move(i, row[i] + randomStep(), column[i] + randomStep())) {
+            move(i, row[i] + randomStep(), column[i] + randomStep());
+        }
+    }
+
+    private void actSheep(int i) {
+        if (energy[i] == 0) {
+            die(i);
+            return;
+        }
+        boolean north = (flags[i] & UnitCodec.DIRECTION) != 0;
+        if (row[i] == 0 && north) {
+            north = false;
+            energy[i] = 100;
+            setDirection(i, false);
+            checkSheepNeighbors(i);
+        }
+        if (row[i] == rows - 1 && !north) {
+            north = true;
+            setDirection(i, true);
+            checkSheepNeighbors(i);
+        }
+        if (kind[i] == 0) {
+            return;
+        }
+        int newRow = north ? row[i] - 1 : row[i] + 1;
+        if (newRow >= 0 && newRow < rows) {
+            move(i, newRow, column[i]);
+            return;
+        }
+        checkSheepNeighbors(i);
+    }
+
+    private void checkSheepNeighbors(int i) {
+        int r0 = row[i];
+        int c0 = column[i];
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                int r = r0 + dr;
+                int c = c0 + dc;
+                if ((dr != 0 || dc != 0) && r >= 0 && r < rows && c >= 0 && c < columns) {
+                    int j = cells[r * columns + c] - 1;
+                    if (j >= 0 && kind[j] == 1) {
+                        die(i);
+                        return;
+                    } else if (j >= 0 && kind[j] == 2) {
+                        energy[i] = (byte) Math.min(100, (energy[i] & 0xFF) + 1);
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private void actFox(int i) {
+        if (energy[i] == 0) {
+            die(i);
+            return;
+        }
+        int prey = findNeighbor(row[i], column[i], 2);
+        if (prey >= 0) {
+            int j = cells[prey] - 1;
+            energy[i] = (byte) Math.min(100, (energy[i] & 0xFF) + (energy[j] & 0xFF) / 2);
+            die(j);
+        }
+        boolean east = (flags[i] & UnitCodec.DIRECTION) != 0;
+        if (column[i] == 0 && !east) {
+            setDirection(i, true);
+        } else if (column[i] == columns - 1 && east) {
+            setDirection(i, false);
+        } else {
+            int newCol = east ? column[i] + 1 : column[i] - 1;
+            if (newCol >= 0 && newCol < columns) {
+                move(i, row[i], newCol);
+            }
+        }
+    }
+
+    private void actGrass(int i) {
+        int growth = (flags[i] & UnitCodec.GROWTH_MASK) >>> UnitCodec.GROWTH_SHIFT;
+        if (growth == 2) {
+            return;
+        }
+        aux[i]++;
+        if ((growth == 0 && aux[i] >= 10) || (growth == 1 && aux[i] >= 3)) {
+            flags[i] = (byte) ((flags[i] & ~UnitCodec.GROWTH_MASK) | (growth + 1) << UnitCodec.GROWTH_SHIFT);
+            aux[i] = 0;
+        }
+    }
+
+    private void actWolfLotVol(int i) {
+        if (skipNewborn(i)) {
+            return;
+        }
+        if (energy[i] == 0) {
+            die(i);
+            return;
+        }
+        int prey = findNeighbor(row[i], column[i], 7);
+        if (prey >= 0) {
+            int j = cells[prey] - 1;
+            energy[i] = (byte) Math.min(100, (energy[i] & 0xFF) + ((energy[j] & 0xFF) * 90) / 100);
+            die(j);
+            return;
+        }
+        reproduce(i, 6, 100);
+        moveRandomly(i);
+    }
+
+    private void actSheepLotVol(int i) {
+        if (skipNewborn(i)) {
+            return;
+        }
+        if (energy[i] == 0 || findNeighbor(row[i], column[i], 6) >= 0) {
+            die(i);
+            return;
+        }
+        if (findNeighbor(row[i], column[i], 4) >= 0) {
+            int e = energy[i] & 0xFF;
+            energy[i] = (byte) Math.min(100, e + Math.max(1, e / 10));
+        }
+        reproduce(i, 7, 50);
+        moveRandomly(i);
+    }
+
+    private boolean skipNewborn(int i) {
+        if ((flags[i] & UnitCodec.NEWBORN) != 0) {
+            flags[i] &= ~UnitCodec.NEWBORN;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Creates a newborn next to unit i and to its first partner of the
+     * same kind, in the first empty cell adjacent to both.
+     */
+    private void reproduce(int i, int kindId, int newbornEnergy) {
+        int partner = findNeighbor(row[i], column[i], kindId);
+        if (partner < 0) {
+            return;
+        }
+        int pr = partner / columns;
+        int pc = partner % columns;
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                int r = row[i] + dr;
+                int c = column[i] + dc;
+                if ((dr != 0 || dc != 0) && r >= 0 && r < rows && c >= 0 && c < columns
+                        && cells[r * columns + c] == 0
+                        && Math.abs(r - pr) <= 1 && Math.abs(c - pc) <= 1) {
+                    addRecord(r, c, UnitCodec.pack(kindId, newbornEnergy, UnitCodec.NEWBORN, 0));
+                    return;
+                }
+            }
+        }
+    }
+
+    private void moveRandomly(int i) {
+        for (int attempts = 0; attempts < 5 && kind[i] != 0; attempts++) {
+            if (move(i, row[i] + randomStep(), column[i] + randomStep())) {
+                return;
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Operaciones basicas sobre las columnas
+
+    /**
+     * Returns the cell index of the first neighbor of the given kind,
+     * scanning rows and then columns from the top left, or -1.
+     */
+    private int findNeighbor(int r0, int c0, int kindId) {
+        for (int dr = -1; dr <= 1; dr++) {
+            int r = r0 + dr;
+            if (r < 0 || r >= rows) {
+                continue;
+            }
+            for (int dc = -1; dc <= 1; dc++) {
+                int c = c0 + dc;
+                if ((dr != 0 || dc != 0) && c >= 0 && c < columns) {
+                    int j = cells[r * columns + c] - 1;
+                    if (j >= 0 && kind[j] == kindId) {
+                        return r * columns + c;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves unit i like {@link Mammal#move(int, int)}: the target must be
+     * inside and empty, and the step costs one energy point or kills it.
+     */
+    private boolean move(int i, int r, int c) {
+        if (r < 0 || r >= rows || c < 0 || c >= columns || cells[r * columns + c] != 0) {
+            return false;
+        }
+        if (energy[i] == 0) {
+            die(i);
+            return false;
+        }
+        energy[i]--;
+        cells[row[i] * columns + column[i]] = 0;
+        row[i] = r;
+        column[i] = c;
+        cells[r * columns + c] = i + 1;
+        return true;
+    }
+
+    private void die(int i) {
+        if (kind[i] != 0) {
+            cells[row[i] * columns + column[i]] = 0;
+            kind[i] = 0;
+            dead++;
+        }
+    }
+
+    private void setDirection(int i, boolean on) {
+        flags[i] = (byte) (on ? flags[i] | UnitCodec.DIRECTION : flags[i] & ~UnitCodec.DIRECTION);
+    }
+
+    private int randomStep() {
+        return random.nextInt(3) - 1;
+    }
+
+    private int record(int i) {
+        return UnitCodec.pack(kind[i], energy[i], flags[i], aux[i]);
+    }
+
+    private void addRecord(int r, int c, int record) {
+        if (r < 0 || r >= rows || c < 0 || c >= columns || cells[r * columns + c] != 0) {
+            throw new IllegalArgumentException("Cell (" + r + ", " + c + ") is not available");
+        }
+        if (count == kind.length) {
+            int capacity = count * 2;
+            kind = Arrays.copyOf(kind, capacity);
+            energy = Arrays.copyOf(energy, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+            aux = Arrays.copyOf(aux, capacity);
+            row = Arrays.copyOf(row, capacity);
+            column = Arrays.copyOf(column, capacity);
+        }
+        kind[count] = (byte) UnitCodec.kind(record);
+        energy[count] = (byte) UnitCodec.energy(record);
+        flags[count] = (byte) UnitCodec.flags(record);
+        aux[count] = (byte) UnitCodec.aux(record);
+        row[count] = r;
+        column[count] = c;
+        cells[r * columns + c] = ++count;
+    }
+
+    /**
+     * Removes dead units keeping the order of the living ones.
+     */
+    private void compact() {
+        if (dead == 0) {
+            return;
+        }
+        int j = 0;
+        for (int i = 0; i < count; i++) {
+            if (kind[i] != 0) {
+                kind[j] = kind[i];
+                energy[j] = energy[i];
+                flags[j] = flags[i];
+                aux[j] = aux[i];
+                row[j] = row[i];
+                column[j] = column[i];
+                cells[row[j] * columns + column[j]] = ++j;
+            }
+        }
+        count = j;
+        dead = 0;
+    }
+}
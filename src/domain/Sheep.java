@@ -14,6 +14,8 @@ import java.awt.Color;
  */
 public class Sheep extends Mammal {
 
+    private static final long serialVersionUID = 5123617347688954913L;
+
     // Referencia al valle al que pertenece la oveja.
     private Valley myValley;
 
@@ -57,6 +59,7 @@ public class Sheep extends Mammal {
     
         // Si no tiene energía, muere
         if (getEnergy() <= 0) {
+            myValley.record(TickStats.Event.STARVATION);
             die();
             return;
         }
@@ -71,7 +74,7 @@ public class Sheep extends Mammal {
         }
 
         // Si está en el borde sur: cambia dirección hacia el norte
-        if (row == myValley.getSize() - 1 && !goingNorth) {
+        if (row == myValley.getRows() - 1 && !goingNorth) {
             goingNorth = true;
             checkNeighbors();
             //return;
@@ -83,7 +86,7 @@ public class Sheep extends Mammal {
         //System.out.println("Fila actual: " + row);
     
         // Verifica que la celda destino está dentro del valle
-        if (newRow >= 0 && newRow < myValley.getSize()) {
+        if (newRow >= 0 && newRow < myValley.getRows()) {
             move(newRow, column); // Mueve un paso
             return;
         }
@@ -93,40 +96,39 @@ public class Sheep extends Mammal {
     }
 
 
+    /**
+     * Returns true if the sheep is currently moving north.
+     */
+    boolean isGoingNorth() {
+        return goingNorth;
+    }
+
+    /**
+     * Sets the moving direction of the sheep.
+     */
+    void setGoingNorth(boolean goingNorth) {
+        this.goingNorth = goingNorth;
+    }
+
     /**
      * Checks the neighboring cells around the sheep.
      * - If a wolf is found nearby, the sheep dies.
      * - If another sheep is nearby, it slightly restores energy.
      */
     private void checkNeighbors() {
-        int size = myValley.getSize();
-        
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                // Evita revisarse a sí misma
-                if (!(dr == 0 && dc == 0)) {
-                    int r = row + dr;
-                    int c = column + dc;
-                    
-                    // Verifica límites del valle
-                    if (r >= 0 && r < size && c >= 0 && c < size) {
-                        Unit neighbor = myValley.getUnit(r, c);
-                        
-                        if (neighbor != null && neighbor.getClass() == Wolf.class) {
-                            // Si hay un lobo cerca, muere
-                            die();
-                            return;
-                        } else if (neighbor != null && neighbor.getClass() == Sheep.class) {
-                            // Si hay otra oveja cerca, recupera 1 punto de energía
-                            int newEnergy = getEnergy() + 1;
-                            if (newEnergy > 100) newEnergy = 100;
-                            
-                            setEnergy(newEnergy);
-                            return; // Solo gana energía de una oveja por turno
-                        }
-                    }
-                }
-            }
+        // Primer lobo u oveja vecino, en el orden en que se recorren las celdas
+        Unit neighbor = myValley.findNeighbor(row, column, UnitKind.WOLF.mask() | UnitKind.SHEEP.mask());
+
+        if (neighbor != null && neighbor.getClass() == Wolf.class) {
+            // Si hay un lobo cerca, muere
+            myValley.record(TickStats.Event.KILL);
+            die();
+        } else if (neighbor != null) {
+            // Si hay otra oveja cerca, recupera 1 punto de energía
+            int newEnergy = getEnergy() + 1;
+            if (newEnergy > 100) newEnergy = 100;
+
+            setEnergy(newEnergy); // Solo gana energía de una oveja por turno
         }
     }
 }
@@ -1,6 +1,7 @@
 package domain;
 
 import java.awt.Color;
+import java.util.random.RandomGenerator;
 
 /**
  * The SheepLotVol class represents a sheep following the Lotka-Volterra model.
@@ -11,6 +12,8 @@ import java.awt.Color;
  * @version 2025-2
  */
 public class SheepLotVol extends Mammal {
+
+    private static final long serialVersionUID = 1481764260467584434L;
     
     private Valley myValley;
     private boolean hasActedThisTurn;
@@ -38,6 +41,20 @@ public class SheepLotVol extends Mammal {
         this.hasActedThisTurn = skipFirstTurn;
     }
 
+    /**
+     * Returns true if this sheep was just born and skips its next turn.
+     */
+    boolean isNewborn() {
+        return hasActedThisTurn;
+    }
+
+    /**
+     * Marks whether this sheep skips its next turn.
+     */
+    void setNewborn(boolean newborn) {
+        this.hasActedThisTurn = newborn;
+    }
+
     public int getShape() {
         return Unit.SQUARE;
     }
@@ -52,12 +69,14 @@ public class SheepLotVol extends Mammal {
 
         // Si no tiene energía, muere
         if (getEnergy() <= 0) {
+            myValley.record(TickStats.Event.STARVATION);
             die();
             return;
         }
 
         // 1. Verificar si hay WolfLotVol cerca (peligro) - SOLO WolfLotVol
         if (checkForWolvesLotVol()) {
+            myValley.record(TickStats.Event.KILL);
             die(); // Muere si hay un WolfLotVol cerca
             return;
         }
@@ -78,26 +97,8 @@ public class SheepLotVol extends Mammal {
      * @return true if a WolfLotVol is detected, false otherwise.
      */
     private boolean checkForWolvesLotVol() {
-        int size = myValley.getSize();
-
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) continue;
-
-                int r = row + dr;
-                int c = column + dc;
-
-                if (r >= 0 && r < size && c >= 0 && c < size) {
-                    Unit neighbor = myValley.getUnit(r, c);
-
-                    // 🔥 SOLO muere si encuentra WolfLotVol, NO Wolf normal
-                    if (neighbor instanceof WolfLotVol) {
-                        return true; // WolfLotVol detectado
-                    }
-                }
-            }
-        }
-        return false;
+        // 🔥 SOLO muere si encuentra WolfLotVol, NO Wolf normal
+        return myValley.hasNeighbor(row, column, UnitKind.WOLF_LOT_VOL);
     }
 
     /**
@@ -105,32 +106,16 @@ public class SheepLotVol extends Mammal {
      * Gains 10% of current energy when eating hay.
      */
     private void eatNearbyHay() {
-        int size = myValley.getSize();
-
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) continue;
-
-                int r = row + dr;
-                int c = column + dc;
-
-                if (r >= 0 && r < size && c >= 0 && c < size) {
-                    Unit neighbor = myValley.getUnit(r, c);
-
-                    // 🔥 SOLO come HENO, NO pasto
-                    if (neighbor instanceof Hay) {
-                        // Aumenta 10% de su energía actual
-                        int energyGain = getEnergy() / 10;
-                        if (energyGain < 1) energyGain = 1; // Mínimo 1 punto
-                        
-                        int newEnergy = getEnergy() + energyGain;
-                        if (newEnergy > 100) newEnergy = 100;
-                        setEnergy(newEnergy);
-                        
-                        return; // Solo come un heno por turno
-                    }
-                }
-            }
+        // 🔥 SOLO come HENO, NO pasto
+        if (myValley.hasNeighbor(row, column, UnitKind.HAY)) {
+            // Aumenta 10% de su energía actual
+            int energyGain = getEnergy() / 10;
+            if (energyGain < 1) energyGain = 1; // Mínimo 1 punto
+
+            int newEnergy = getEnergy() + energyGain;
+            if (newEnergy > 100) newEnergy = 100;
+            myValley.record(TickStats.Event.HAY_MEAL);
+            setEnergy(newEnergy); // Solo come un heno por turno
         }
     }
 
@@ -138,34 +123,13 @@ public class SheepLotVol extends Mammal {
      * Attempts to reproduce with a nearby SheepLotVol if there's an empty adjacent cell.
      */
     private void tryReproduce() {
-        int size = myValley.getSize();
-        SheepLotVol partner = null;
-        int partnerRow = -1, partnerCol = -1;
-
         // Busca una oveja LotVol vecina
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) continue;
-
-                int r = row + dr;
-                int c = column + dc;
-
-                if (r >= 0 && r < size && c >= 0 && c < size) {
-                    Unit neighbor = myValley.getUnit(r, c);
-
-                    if (neighbor instanceof SheepLotVol && neighbor != this) {
-                        partner = (SheepLotVol) neighbor;
-                        partnerRow = r;
-                        partnerCol = c;
-                        break;
-                    }
-                }
-            }
-            if (partner != null) break;
-        }
+        SheepLotVol partner = (SheepLotVol) myValley.findNeighbor(row, column, UnitKind.SHEEP_LOT_VOL.mask());
 
         // Si encontró pareja, busca espacio vacío entre ellos
         if (partner != null) {
+            int partnerRow = partner.getRow();
+            int partnerCol = partner.getColumn();
             for (int dr = -1; dr <= 1; dr++) {
                 for (int dc = -1; dc <= 1; dc++) {
                     if (dr == 0 && dc == 0) continue;
@@ -177,6 +141,7 @@ public class SheepLotVol extends Mammal {
                         // Verifica que también esté cerca del partner
                         if (Math.abs(r - partnerRow) <= 1 && Math.abs(c - partnerCol) <= 1) {
                             // Crea nueva oveja que no actuará este turno
+                            myValley.record(TickStats.Event.BIRTH);
                             new SheepLotVol(myValley, r, c, true);
                             return;
                         }
@@ -190,10 +155,11 @@ public class SheepLotVol extends Mammal {
      * Moves the sheep randomly to an adjacent cell.
      */
     private void moveRandomly() {
+        RandomGenerator random = myValley.random();
         int attempts = 0;
         while (attempts < 5) {
-            int newRow = row + (int)(Math.random() * 3) - 1;
-            int newCol = column + (int)(Math.random() * 3) - 1;
+            int newRow = row + random.nextInt(3) - 1;
+            int newCol = column + random.nextInt(3) - 1;
 
             if (move(newRow, newCol)) {
                 return;
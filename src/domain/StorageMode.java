@@ -0,0 +1,29 @@
+package domain;
+
+/**
+ * Ways in which a {@link Valley} can keep its cells in memory.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public enum StorageMode {
+
+    /**
+     * One slot per cell. Fastest access, memory grows with the area.
+     */
+    DENSE,
+
+    /**
+     * Fixed size tiles created when a unit is placed in them and freed
+     * when they become empty. Memory grows with the occupied area, so
+     * mostly empty or very large valleys stay cheap.
+     */
+    CHUNKED,
+
+    /**
+     * One compact record per cell outside the Java heap, optionally
+     * mapped onto a file. Units are rebuilt as lightweight views when
+     * they are read, so the grid does not add to garbage collection.
+     */
+    OFF_HEAP
+}
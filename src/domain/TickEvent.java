@@ -0,0 +1,51 @@
+package domain;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event emitted for every tic-tac of a valley, with its
+ * duration and the population before and after it. Long tic-tacs can
+ * be matched with the garbage collections and the file operations that
+ * happened at the same time.
+ *
+ * The valley only creates the event while a recording has it enabled,
+ * so a tic-tac allocates nothing when Flight Recorder is off.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+@Name("valley.TicTac")
+@Label("Tic-tac")
+@Category({"Valley", "Simulation"})
+@Description("One step of the simulation")
+@StackTrace(false)
+final class TickEvent extends Event {
+
+    // Tipo del evento, para saber si alguna grabacion lo pide.
+    private static final EventType TYPE = EventType.getEventType(TickEvent.class);
+
+    @Label("Tic-tac Number")
+    long tick;
+
+    @Label("Tick Mode")
+    String mode;
+
+    @Label("Population Before")
+    int before;
+
+    @Label("Population After")
+    int after;
+
+    /**
+     * Returns true if a running recording has the tic-tac events enabled.
+     */
+    static boolean isRecorded() {
+        return TYPE.isEnabled();
+    }
+}
@@ -0,0 +1,682 @@
+package domain;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Append-only journal of a run: after every tic-tac it records what
+ * changed in the valley, and every few tic-tacs a full keyframe, so any
+ * recorded tic-tac can be rebuilt later without saving the whole valley
+ * each time. A {@link Reader} rebuilds the valley of a tic-tac from the
+ * nearest keyframe before it and at most {@code keyframeInterval - 1}
+ * deltas.
+ *
+ * <pre>
+ *   int     magic "VLJN"
+ *   short   version
+ *   int     keyframe interval
+ *   frames  until the end of the file:
+ *           byte type (1 keyframe, 2 delta), long tic-tac, int length
+ *           and the bytes of the frame
+ * </pre>
+ *
+ * A keyframe is a snapshot of the valley, in the format of
+ * {@link Fachada#save(File)}. A delta lists, in increasing order of
+ * cell, the cells whose unit changed since the previous frame. Each
+ * change is a varint with the gap since the previous changed cell and
+ * a tag in its two lowest bits:
+ *
+ * <pre>
+ *   DIED    the cell is now empty
+ *   SET     int record of the unit now in the cell
+ *   MOVED   varint (zigzag) offset to the cell the unit came from; the
+ *           unit keeps the record it had there
+ * </pre>
+ *
+ * A unit that moved and changed its state is written as a SET. The moves
+ * are found with the {@link ChangeSet} of the valley, but a delta never
+ * depends on it: it only describes the difference between two frames.
+ * A truncated last frame, left by a crash, is ignored by the reader.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class TickJournal implements AutoCloseable {
+
+    // Primeros bytes de un diario ("VLJN") y version del formato.
+    static final int MAGIC = 0x564C4A4E;
+    static final int VERSION = 1;
+
+    // Tipos de cuadro.
+    static final int KEYFRAME = 1;
+    static final int DELTA = 2;
+
+    // Etiquetas de los cambios de un delta.
+    static final int DIED = 0;
+    static final int SET = 1;
+    static final int MOVED = 2;
+
+    // Bytes de la cabecera del diario y de cada cuadro.
+    private static final int HEADER = 10;
+    private static final int FRAME_HEADER = 13;
+
+    // Tamaño del buffer de escritura.
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final int keyframeInterval;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    // Cuadro en construccion, reutilizado por todos los deltas.
+    private ByteBuffer frame = ByteBuffer.allocate(1 << 12);
+
+    // Ultimo cuadro escrito, cuadro anterior cuyos arreglos se reutilizan y deltas desde el ultimo keyframe.
+    private ValleySnapshot.Image last;
+    private ValleySnapshot.Image spare;
+    private int sinceKeyframe;
+
+    // Celda de origen de las unidades que se movieron en el ultimo tic-tac.
+    private final LongIntMap moved = new LongIntMap();
+    private long[] origins = new long[64];
+
+    // Cuadros y bytes escritos.
+    private long keyframes;
+    private long deltas;
+    private long bytes;
+
+    /**
+     * Creates a journal, replacing the file.
+     *
+     * @param file File of the journal.
+     * @param keyframeInterval Frames between two keyframes.
+     * @throws IllegalArgumentException if the interval is not positive.
+     * @throws IOException if the file cannot be created.
+     */
+    public TickJournal(File file, int keyframeInterval) throws IOException {
+        if (keyframeInterval <= 0) {
+            throw new IllegalArgumentException("Invalid keyframe interval " + keyframeInterval);
+        }
+        this.keyframeInterval = keyframeInterval;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        buffer.putInt(MAGIC);
+        buffer.putShort((short) VERSION);
+        buffer.putInt(keyframeInterval);
+        bytes = HEADER;
+    }
+
+    /**
+     * Records the valley as it is now, at a tic-tac boundary: as a delta
+     * from the previous frame, or as a keyframe if the interval is over
+     * or the settings of the valley changed. Meant to be called after
+     * every tic-tac; it costs the population of the valley, and copies
+     * the units into the arrays of the frame before the last one.
+     *
+     * @throws IllegalArgumentException if the valley holds unknown units,
+     *         or its tic-tacs do not come after those of the last frame.
+     * @throws IOException if the journal cannot be written.
+     */
+    public void record(Valley valley) throws IOException {
+        if (last != null && valley.getTickCount() <= last.tickCount) {
+            throw new IllegalArgumentException("Tick " + valley.getTickCount() + " already recorded");
+        }
+        ValleySnapshot.Image image = ValleySnapshot.capture(valley, spare);
+        if (last == null || sinceKeyframe + 1 >= keyframeInterval || !image.sameSettings(last)) {
+            writeKeyframe(image);
+            sinceKeyframe = 0;
+        } else {
+            writeDelta(image, valley.getChanges());
+            sinceKeyframe++;
+        }
+        spare = last;
+        last = image;
+    }
+
+    /**
+     * Writes to the file the frames still in the buffer.
+     *
+     * @throws IOException if the journal cannot be written.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes the frames still in the buffer and closes the file.
+     *
+     * @throws IOException if the journal cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Returns the number of keyframes written.
+     */
+    public long getKeyframes() {
+        return keyframes;
+    }
+
+    /**
+     * Returns the number of deltas written.
+     */
+    public long getDeltas() {
+        return deltas;
+    }
+
+    /**
+     * Returns the size of the journal in bytes.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    // ------------------------------------------------------------------
+    // Escritura
+
+    private void writeKeyframe(ValleySnapshot.Image image) throws IOException {
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        ValleySnapshot.write(image, Channels.newChannel(snapshot));
+        frame.clear();
+        ensureFrame(snapshot.size());
+        frame.put(snapshot.toByteArray());
+        writeFrame(KEYFRAME, image.tickCount);
+        keyframes++;
+    }
+
+    /**
+     * Writes the differences between the last frame and the image,
+     * merging both lists of cells in order.
+     */
+    private void writeDelta(ValleySnapshot.Image image, ChangeSet changes) throws IOException {
+        traceMoves(changes);
+        frame.clear();
+        long previous = -1;
+        int i = 0;
+        int j = 0;
+        while (i < last.size || j < image.size) {
+            long before = i < last.size ? last.cells[i] : Long.MAX_VALUE;
+            long now = j < image.size ? image.cells[j] : Long.MAX_VALUE;
+            if (before < now) {
+                // La celda quedo vacia
+                putChange(before - previous - 1, DIED);
+                previous = before;
+                i++;
+                continue;
+            }
+            int record = image.records[j];
+            if (before == now) {
+                i++;
+                if (last.records[i - 1] == record) {
+                    j++;
+                    continue;
+                }
+            }
+            long from = origin(now, record);
+            if (from >= 0) {
+                putChange(now - previous - 1, MOVED);
+                putVarint(zigzag(now - from));
+            } else {
+                putChange(now - previous - 1, SET);
+                ensureFrame(4);
+                frame.putInt(record);
+            }
+            previous = now;
+            j++;
+        }
+        writeFrame(DELTA, image.tickCount);
+        deltas++;
+    }
+
+    /**
+     * Follows the moves of the last tic-tac to know where each unit that
+     * moved started it, even if it moved several times.
+     */
+    private void traceMoves(ChangeSet changes) {
+        moved.clear();
+        int count = 0;
+        for (int k = 0; k < changes.size(); k++) {
+            long from = (long) changes.fromRow(k) * last.columns + changes.fromColumn(k);
+            long to = (long) changes.toRow(k) * last.columns + changes.toColumn(k);
+            switch (changes.type(k)) {
+                case ChangeSet.MOVED:
+                    int index = moved.remove(from);
+                    long origin = index == LongIntMap.MISSING ? from : origins[index];
+                    if (count == origins.length) {
+                        origins = Arrays.copyOf(origins, count * 2);
+                    }
+                    origins[count] = origin;
+                    moved.put(to, count++);
+                    break;
+                case ChangeSet.DIED:
+                case ChangeSet.SPAWNED:
+                    moved.remove(to);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Returns the cell where the unit now in the given cell was in the
+     * last frame, if it moved there with the same record; otherwise -1.
+     */
+    private long origin(long cell, int record) {
+        int index = moved.get(cell);
+        if (index == LongIntMap.MISSING) {
+            return -1;
+        }
+        long from = origins[index];
+        int k = Arrays.binarySearch(last.cells, 0, last.size, from);
+        return k >= 0 && last.records[k] == record ? from : -1;
+    }
+
+    private void putChange(long gap, int tag) {
+        putVarint(gap << 2 | tag);
+    }
+
+    private void putVarint(long n) {
+        ensureFrame(10);
+        while ((n & ~0x7FL) != 0) {
+            frame.put((byte) ((n & 0x7F) | 0x80));
+            n >>>= 7;
+        }
+        frame.put((byte) n);
+    }
+
+    private static long zigzag(long n) {
+        return (n << 1) ^ (n >> 63);
+    }
+
+    /**
+     * Makes room in the frame for the given number of bytes.
+     */
+    private void ensureFrame(int count) {
+        if (frame.remaining() < count) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(frame.capacity() * 2, frame.position() + count));
+            frame.flip();
+            larger.put(frame);
+            frame = larger;
+        }
+    }
+
+    /**
+     * Appends the frame under construction with its header.
+     */
+    private void writeFrame(int type, long tick) throws IOException {
+        frame.flip();
+        if (buffer.remaining() < FRAME_HEADER) {
+            flush();
+        }
+        buffer.put((byte) type);
+        buffer.putLong(tick);
+        buffer.putInt(frame.remaining());
+        bytes += FRAME_HEADER + frame.remaining();
+        if (frame.remaining() > buffer.remaining()) {
+            // Los cuadros grandes se escriben directamente
+            flush();
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+            return;
+        }
+        buffer.put(frame);
+    }
+
+    // ------------------------------------------------------------------
+
+    /**
+     * Reads a journal and rebuilds the valley of any recorded tic-tac.
+     * Opening it reads the header of every frame to index the keyframes;
+     * a seek then reads one keyframe and the deltas after it.
+     */
+    public static class Reader implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final int keyframeInterval;
+
+        // Tic-tac y posicion de cada keyframe, en orden.
+        private long[] keyTicks = new long[16];
+        private long[] keyPositions = new long[16];
+        private int keyCount;
+
+        // Primer y ultimo tic-tac registrados, y fin del ultimo cuadro completo.
+        private long firstTick = -1;
+        private long lastTick = -1;
+        private long end;
+
+        // Cuadros leidos en la ultima busqueda.
+        private int applied;
+
+        // Unidades del cuadro reconstruido: posicion de cada celda ocupada, y celda
+        // (-1 si la posicion esta libre) y registro de cada posicion.
+        private final LongIntMap slots = new LongIntMap();
+        private long[] slotCells = new long[256];
+        private int[] slotRecords = new int[256];
+        private int slotCount;
+        private int[] free = new int[64];
+        private int freeCount;
+
+        // Cambios del delta que se aplica: celda, etiqueta y registro de la unidad.
+        private long[] changedCells = new long[256];
+        private byte[] changedTags = new byte[256];
+        private int[] changedRecords = new int[256];
+
+        private final ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+        private byte[] payload = new byte[1 << 12];
+
+        /**
+         * Opens a journal and indexes its keyframes.
+         *
+         * @throws StreamCorruptedException if the file is not a journal.
+         * @throws InvalidClassException if it was written by a newer version.
+         * @throws IOException if the file cannot be read.
+         */
+        public Reader(File file) throws IOException {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            try {
+                ByteBuffer head = ByteBuffer.allocate(HEADER);
+                readFully(head, 0);
+                if (head.getInt(0) != MAGIC) {
+                    throw new StreamCorruptedException("Not a tick journal");
+                }
+                int version = head.getShort(4);
+                if (version != VERSION) {
+                    throw new InvalidClassException("Unsupported journal version " + version);
+                }
+                keyframeInterval = head.getInt(6);
+                index();
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Returns the number of frames between two keyframes.
+         */
+        public int getKeyframeInterval() {
+            return keyframeInterval;
+        }
+
+        /**
+         * Returns the first recorded tic-tac, or -1 if the journal is empty.
+         */
+        public long getFirstTick() {
+            return firstTick;
+        }
+
+        /**
+         * Returns the last recorded tic-tac, or -1 if the journal is empty.
+         */
+        public long getLastTick() {
+            return lastTick;
+        }
+
+        /**
+         * Returns the number of keyframes in the journal.
+         */
+        public int getKeyframes() {
+            return keyCount;
+        }
+
+        /**
+         * Returns the number of frames read by the last seek, the
+         * keyframe included.
+         */
+        public int getFramesRead() {
+            return applied;
+        }
+
+        /**
+         * Rebuilds the valley as it was after the given tic-tac.
+         *
+         * @throws IllegalArgumentException if the tic-tac was not recorded.
+         * @throws StreamCorruptedException if a frame is not valid.
+         * @throws IOException if the file cannot be read.
+         */
+        public Valley seek(long tick) throws IOException {
+            int k = keyframeBefore(tick);
+            if (k < 0) {
+                throw new IllegalArgumentException("Tick " + tick + " not recorded");
+            }
+            long position = keyPositions[k];
+            readFrame(position);
+            ValleySnapshot.Image keyframe = ValleySnapshot.readImage(payload, header.getInt(9));
+            load(keyframe);
+            long current = keyframe.tickCount;
+            position += FRAME_HEADER + header.getInt(9);
+            applied = 1;
+            while (current < tick && position < end) {
+                readFrame(position);
+                if (header.get(0) != DELTA) {
+                    break;
+                }
+                current = header.getLong(1);
+                apply(keyframe, current, header.getInt(9));
+                position += FRAME_HEADER + header.getInt(9);
+                applied++;
+            }
+            if (current != tick) {
+                throw new IllegalArgumentException("Tick " + tick + " not recorded");
+            }
+
+            // Junta las unidades vivas; restore no necesita que esten en orden de celda
+            long[] cells = new long[slots.size()];
+            int[] records = new int[cells.length];
+            int size = 0;
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (slotCells[slot] >= 0) {
+                    cells[size] = slotCells[slot];
+                    records[size++] = slotRecords[slot];
+                }
+            }
+            return ValleySnapshot.restore(keyframe.with(current, cells, records, size));
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        /**
+         * Reads the header of every frame, remembering the keyframes and
+         * stopping at the first truncated frame.
+         */
+        private void index() throws IOException {
+            long size = channel.size();
+            long position = HEADER;
+            while (position + FRAME_HEADER <= size) {
+                header.clear();
+                readFully(header, position);
+                int type = header.get(0);
+                long tick = header.getLong(1);
+                int length = header.getInt(9);
+                if ((type != KEYFRAME && type != DELTA) || length < 0) {
+                    throw new StreamCorruptedException("Invalid frame at byte " + position);
+                }
+                if (position + FRAME_HEADER + length > size) {
+                    break;
+                }
+                if (type == KEYFRAME) {
+                    if (keyCount == keyTicks.length) {
+                        keyTicks = Arrays.copyOf(keyTicks, keyCount * 2);
+                        keyPositions = Arrays.copyOf(keyPositions, keyCount * 2);
+                    }
+                    keyTicks[keyCount] = tick;
+                    keyPositions[keyCount] = position;
+                    keyCount++;
+                } else if (keyCount == 0) {
+                    throw new StreamCorruptedException("Delta before the first keyframe");
+                }
+                if (firstTick < 0) {
+                    firstTick = tick;
+                }
+                lastTick = tick;
+                position += FRAME_HEADER + length;
+            }
+            end = position;
+        }
+
+        /**
+         * Returns the index of the last keyframe at or before the tic-tac, or -1.
+         */
+        private int keyframeBefore(long tick) {
+            int k = Arrays.binarySearch(keyTicks, 0, keyCount, tick);
+            return k >= 0 ? k : -k - 2;
+        }
+
+        /**
+         * Reads the frame at the given position: its header into
+         * {@link #header} and its bytes into {@link #payload}.
+         */
+        private void readFrame(long position) throws IOException {
+            header.clear();
+            readFully(header, position);
+            int length = header.getInt(9);
+            if (payload.length < length) {
+                payload = new byte[Math.max(length, payload.length * 2)];
+            }
+            readFully(ByteBuffer.wrap(payload, 0, length), position + FRAME_HEADER);
+        }
+
+        private void readFully(ByteBuffer target, long position) throws IOException {
+            while (target.hasRemaining()) {
+                int n = channel.read(target, position);
+                if (n < 0) {
+                    throw new EOFException("Truncated tick journal");
+                }
+                position += n;
+            }
+        }
+
+        /**
+         * Takes the units of a keyframe as those of the frame being rebuilt.
+         */
+        private void load(ValleySnapshot.Image keyframe) {
+            slots.clear();
+            freeCount = 0;
+            slotCount = keyframe.size;
+            if (slotCells.length < slotCount) {
+                slotCells = new long[slotCount];
+                slotRecords = new int[slotCount];
+            }
+            System.arraycopy(keyframe.cells, 0, slotCells, 0, slotCount);
+            System.arraycopy(keyframe.records, 0, slotRecords, 0, slotCount);
+            for (int slot = 0; slot < slotCount; slot++) {
+                slots.put(slotCells[slot], slot);
+            }
+        }
+
+        /**
+         * Applies the delta in {@link #payload} to the units of the frame
+         * being rebuilt. The changes are read first, taking the records
+         * of the units that moved from the previous frame, and then
+         * written; each one is a lookup in a hash table, so the cost is
+         * the number of changes, not the population.
+         */
+        private void apply(ValleySnapshot.Image keyframe, long tick, int length) throws IOException {
+            ByteBuffer delta = ByteBuffer.wrap(payload, 0, length);
+            long area = (long) keyframe.rows * keyframe.columns;
+            int count = 0;
+            long cell = -1;
+            while (delta.hasRemaining()) {
+                long change = varint(delta);
+                int tag = (int) (change & 3);
+                cell += (change >>> 2) + 1;
+                if (cell < 0 || cell >= area) {
+                    throw new StreamCorruptedException("Change out of the valley at tick " + tick);
+                }
+                int record = 0;
+                if (tag == SET) {
+                    if (delta.remaining() < 4) {
+                        throw new StreamCorruptedException("Truncated delta of tick " + tick);
+                    }
+                    record = delta.getInt();
+                } else if (tag == MOVED) {
+                    long offset = varint(delta);
+                    long from = cell - ((offset >>> 1) ^ -(offset & 1));
+                    int slot = slots.get(from);
+                    if (slot == LongIntMap.MISSING) {
+                        throw new StreamCorruptedException("Move from empty cell " + from + " at tick " + tick);
+                    }
+                    record = slotRecords[slot];
+                } else if (tag != DIED) {
+                    throw new StreamCorruptedException("Invalid change at tick " + tick);
+                }
+                if (count == changedCells.length) {
+                    changedCells = Arrays.copyOf(changedCells, count * 2);
+                    changedTags = Arrays.copyOf(changedTags, count * 2);
+                    changedRecords = Arrays.copyOf(changedRecords, count * 2);
+                }
+                changedCells[count] = cell;
+                changedTags[count] = (byte) tag;
+                changedRecords[count++] = record;
+            }
+
+            for (int i = 0; i < count; i++) {
+                long changed = changedCells[i];
+                int slot = slots.get(changed);
+                if (changedTags[i] == DIED) {
+                    if (slot != LongIntMap.MISSING) {
+                        slots.remove(changed);
+                        slotCells[slot] = -1;
+                        if (freeCount == free.length) {
+                            free = Arrays.copyOf(free, freeCount * 2);
+                        }
+                        free[freeCount++] = slot;
+                    }
+                    continue;
+                }
+                if (slot == LongIntMap.MISSING) {
+                    slot = freeCount > 0 ? free[--freeCount] : newSlot();
+                    slots.put(changed, slot);
+                    slotCells[slot] = changed;
+                }
+                slotRecords[slot] = changedRecords[i];
+            }
+        }
+
+        /**
+         * Returns a position after the last one used, growing the arrays if needed.
+         */
+        private int newSlot() {
+            if (slotCount == slotCells.length) {
+                slotCells = Arrays.copyOf(slotCells, Math.max(16, slotCount * 2));
+                slotRecords = Arrays.copyOf(slotRecords, slotCells.length);
+            }
+            return slotCount++;
+        }
+
+        private static long varint(ByteBuffer delta) throws StreamCorruptedException {
+            long value = 0;
+            for (int shift = 0; shift < 64 && delta.hasRemaining(); shift += 7) {
+                byte b = delta.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed varint in delta");
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package domain;
+
+/**
+ * Ways in which a {@link Valley} runs a tic-tac.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public enum TickMode {
+
+    /**
+     * Units act one after the other on the same cells, so each unit sees
+     * the moves already made by the units that acted before it. The
+     * turns are those of the cells occupied at the start: a unit that
+     * moves onto one of them later in the row order, or is born there,
+     * does not take the turn of that cell.
+     */
+    SEQUENTIAL,
+
+    /**
+     * Units read the cells as they were when the tic-tac started and
+     * write the next generation apart; the generations are swapped when
+     * every unit has acted. A cell can be taken only if it was empty at
+     * the start and nobody claimed it before in the same tic-tac, and a
+     * unit killed before its turn does not act.
+     */
+    DOUBLE_BUFFERED,
+
+    /**
+     * Units act on the threads of the fork/join pool of the calling
+     * thread and the valley ends exactly as in {@link #SEQUENTIAL} mode,
+     * whatever the number of threads. The occupied rows are taken in
+     * order and walked in blocks of 64 columns; a row only acts in a
+     * block once the rows above it that it could touch are a few blocks
+     * ahead, so units that might reach the same cells keep the
+     * sequential order. Every storage mode runs in parallel; chunked and
+     * off-heap grids are reached through a lock.
+     */
+    PARALLEL
+}
@@ -0,0 +1,198 @@
+package domain;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of what happens during the tic-tacs of an instrumented valley:
+ * for each kind of unit the number of {@code act()} calls with their
+ * total and maximum time, and the number of moves, failed moves, deaths
+ * from starvation, predation kills, births and hay meals.
+ *
+ * The counters are striped {@link LongAdder}s, so units acting at the
+ * same time in a parallel tic-tac do not contend on them. A
+ * {@link Snapshot} reads all of them at once.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public final class TickStats {
+
+    /**
+     * Events counted by the instrumentation.
+     */
+    public enum Event {
+        MOVE,
+        FAILED_MOVE,
+        STARVATION,
+        KILL,
+        BIRTH,
+        HAY_MEAL
+    }
+
+    private static final Event[] EVENTS = Event.values();
+
+    // Contadores por id de tipo; el 0 agrupa las clases desconocidas.
+    private final LongAdder[] acts = new LongAdder[UnitKind.COUNT];
+    private final LongAdder[] nanos = new LongAdder[UnitKind.COUNT];
+    private final LongAccumulator[] maxNanos = new LongAccumulator[UnitKind.COUNT];
+
+    private final LongAdder[] events = new LongAdder[EVENTS.length];
+    private final LongAdder ticks = new LongAdder();
+
+    /**
+     * Creates counters starting at zero.
+     */
+    public TickStats() {
+        for (int id = 0; id < UnitKind.COUNT; id++) {
+            acts[id] = new LongAdder();
+            nanos[id] = new LongAdder();
+            maxNanos[id] = new LongAccumulator(Math::max, 0);
+        }
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one act of a unit of the given kind.
+     *
+     * @param kind Kind of the unit, or {@code null} if its class is unknown.
+     * @param elapsed Nanoseconds spent in the act.
+     */
+    void recordAct(UnitKind kind, long elapsed) {
+        int id = kind == null ? 0 : kind.id();
+        acts[id].increment();
+        nanos[id].add(elapsed);
+        maxNanos[id].accumulate(elapsed);
+    }
+
+    /**
+     * Counts one event.
+     */
+    void count(Event event) {
+        events[event.ordinal()].increment();
+    }
+
+    /**
+     * Counts one finished tic-tac.
+     */
+    void tick() {
+        ticks.increment();
+    }
+
+    /**
+     * Sets every counter back to zero.
+     */
+    public void reset() {
+        for (int id = 0; id < UnitKind.COUNT; id++) {
+            acts[id].reset();
+            nanos[id].reset();
+            maxNanos[id].reset();
+        }
+        for (LongAdder event : events) {
+            event.reset();
+        }
+        ticks.reset();
+    }
+
+    /**
+     * Returns the current value of every counter. Counts that change
+     * while the snapshot is taken may or may not be included.
+     */
+    public Snapshot snapshot() {
+        long[] a = new long[UnitKind.COUNT];
+        long[] n = new long[UnitKind.COUNT];
+        long[] m = new long[UnitKind.COUNT];
+        for (int id = 0; id < UnitKind.COUNT; id++) {
+            a[id] = acts[id].sum();
+            n[id] = nanos[id].sum();
+            m[id] = maxNanos[id].get();
+        }
+        long[] e = new long[events.length];
+        for (int i = 0; i < e.length; i++) {
+            e[i] = events[i].sum();
+        }
+        return new Snapshot(ticks.sum(), a, n, m, e);
+    }
+
+    /**
+     * Immutable copy of the counters at one moment.
+     */
+    public static final class Snapshot {
+
+        private final long ticks;
+        private final long[] acts;
+        private final long[] nanos;
+        private final long[] maxNanos;
+        private final long[] events;
+
+        private Snapshot(long ticks, long[] acts, long[] nanos, long[] maxNanos, long[] events) {
+            this.ticks = ticks;
+            this.acts = acts;
+            this.nanos = nanos;
+            this.maxNanos = maxNanos;
+            this.events = events;
+        }
+
+        /**
+         * Returns the number of tic-tacs finished.
+         */
+        public long ticks() {
+            return ticks;
+        }
+
+        /**
+         * Returns the number of acts of units of the given kind, or of
+         * unknown classes if the kind is {@code null}.
+         */
+        public long acts(UnitKind kind) {
+            return acts[id(kind)];
+        }
+
+        /**
+         * Returns the nanoseconds spent in the acts of the given kind.
+         */
+        public long totalNanos(UnitKind kind) {
+            return nanos[id(kind)];
+        }
+
+        /**
+         * Returns the longest act of the given kind, in nanoseconds.
+         */
+        public long maxNanos(UnitKind kind) {
+            return maxNanos[id(kind)];
+        }
+
+        /**
+         * Returns how many times the event happened.
+         */
+        public long count(Event event) {
+            return events[event.ordinal()];
+        }
+
+        /**
+         * Returns a table with one line per kind that acted and one per event.
+         */
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append(String.format("ticks %d%n", ticks));
+            text.append(String.format("%-12s %10s %14s %12s%n", "unit", "acts", "total ns", "max ns"));
+            for (int id = 0; id < UnitKind.COUNT; id++) {
+                if (acts[id] > 0) {
+                    String name = id == 0 ? "other" : UnitKind.byId(id).typeName();
+                    text.append(String.format("%-12s %10d %14d %12d%n", name, acts[id], nanos[id], maxNanos[id]));
+                }
+            }
+            for (Event event : EVENTS) {
+                text.append(String.format("%-12s %10d%n", event.name().toLowerCase(), events[event.ordinal()]));
+            }
+            return text.toString();
+        }
+
+        private static int id(UnitKind kind) {
+            return kind == null ? 0 : kind.id();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package domain;
+
+/**
+ * Packs the whole state of a unit into a single {@code int}: kind id,
+ * energy, state flags and an auxiliary counter, one byte each. This is
+ * the cell record shared by the compact stores of the simulation.
+ *
+ * <pre>
+ *   bits  0-7   kind id (0 = empty cell)
+ *   bits  8-15  energy (animals, 0 to 255)
+ *   bits 16-23  flags
+ *   bits 24-31  auxiliary counter (grass regrowth, hay steps)
+ * </pre>
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+final class UnitCodec {
+
+    // Sheep: va hacia el norte. Fox: va hacia el este.
+    static final int DIRECTION = 1;
+
+    // Lobo u oveja LotVol recien nacido que no actua en su primer turno.
+    static final int NEWBORN = 2;
+
+    // Nivel de crecimiento del pasto en los bits 2 y 3 de las banderas.
+    static final int GROWTH_SHIFT = 2;
+    static final int GROWTH_MASK = 3 << GROWTH_SHIFT;
+
+    private UnitCodec() {
+    }
+
+    /**
+     * Builds a record from its four fields.
+     */
+    static int pack(int kind, int energy, int flags, int aux) {
+        return (kind & 0xFF) | (energy & 0xFF) << 8 | (flags & 0xFF) << 16 | (aux & 0xFF) << 24;
+    }
+
+    static int kind(int record) {
+        return record & 0xFF;
+    }
+
+    static int energy(int record) {
+        return (record >>> 8) & 0xFF;
+    }
+
+    static int flags(int record) {
+        return (record >>> 16) & 0xFF;
+    }
+
+    static int aux(int record) {
+        return record >>> 24;
+    }
+
+    /**
+     * Encodes a unit. Empty cells are encoded as 0.
+     *
+     * @throws IllegalArgumentException if the unit is of an unknown class.
+     */
+    static int encode(Unit unit) {
+        if (unit == null) {
+            return 0;
+        }
+        UnitKind kind = UnitKind.of(unit);
+        if (kind == null) {
+            throw new IllegalArgumentException("Unknown unit " + unit.getClass().getName());
+        }
+        int energy = 0;
+        int flags = 0;
+        int aux = 0;
+        switch (kind) {
+            case SHEEP:
+                flags = ((Sheep) unit).isGoingNorth() ? DIRECTION : 0;
+                break;
+            case FOX:
+                flags = ((Fox) unit).isGoingEast() ? DIRECTION : 0;
+                break;
+            case WOLF_LOT_VOL:
+                flags = ((WolfLotVol) unit).isNewborn() ? NEWBORN : 0;
+                break;
+            case SHEEP_LOT_VOL:
+                flags = ((SheepLotVol) unit).isNewborn() ? NEWBORN : 0;
+                break;
+            case GRASS:
+                Grass grass = (Grass) unit;
+                flags = grass.getGrowthLevel() << GROWTH_SHIFT;
+                aux = grass.getTimeSinceEaten();
+                break;
+            case HAY:
+                aux = ((Hay) unit).getStepCounter();
+                break;
+            default:
+                break;
+        }
+        if (kind.isAnimal()) {
+            energy = Math.max(0, Math.min(255, ((Animal) unit).getEnergy()));
+        }
+        return pack(kind.id(), energy, flags, aux);
+    }
+
+    /**
+     * Creates the unit described by a record and places it in the valley.
+     *
+     * @return the new unit, or {@code null} for an empty record.
+     */
+    static Unit decode(Valley valley, int row, int column, int record) {
+        UnitKind kind = UnitKind.byId(kind(record));
+        if (kind == null) {
+            return null;
+        }
+        Unit unit = kind.create(valley, row, column);
+        int flags = flags(record);
+        switch (kind) {
+            case SHEEP:
+                ((Sheep) unit).setGoingNorth((flags & DIRECTION) != 0);
+                break;
+            case FOX:
+                ((Fox) unit).setGoingEast((flags & DIRECTION) != 0);
+                break;
+            case WOLF_LOT_VOL:
+                ((WolfLotVol) unit).setNewborn((flags & NEWBORN) != 0);
+                break;
+            case SHEEP_LOT_VOL:
+                ((SheepLotVol) unit).setNewborn((flags & NEWBORN) != 0);
+                break;
+            case GRASS:
+                ((Grass) unit).restore((flags & GROWTH_MASK) >>> GROWTH_SHIFT, aux(record));
+                break;
+            case HAY:
+                ((Hay) unit).setStepCounter(aux(record));
+                break;
+            default:
+                break;
+        }
+        if (kind.isAnimal()) {
+            ((Animal) unit).setEnergy(energy(record));
+        }
+        return unit;
+    }
+}
@@ -0,0 +1,143 @@
+package domain;
+
+/**
+ * The kinds of units known by the simulation. Each kind has a small
+ * numeric id, used by the compact stores and file formats, and the
+ * type name used in the text files.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public enum UnitKind {
+
+    WOLF(1, "Wolf"),
+    SHEEP(2, "Sheep"),
+    FOX(3, "Fox"),
+    HAY(4, "Hay"),
+    GRASS(5, "Grass"),
+    WOLF_LOT_VOL(6, "WolfLotVol"),
+    SHEEP_LOT_VOL(7, "SheepLotVol");
+
+    // Numero de ids reservados (el 0 significa celda vacia).
+    public static final int COUNT = 8;
+
+    private static final UnitKind[] BY_ID = new UnitKind[COUNT];
+
+    static {
+        for (UnitKind kind : values()) {
+            BY_ID[kind.id] = kind;
+        }
+    }
+
+    private final int id;
+    private final String typeName;
+
+    UnitKind(int id, String typeName) {
+        this.id = id;
+        this.typeName = typeName;
+    }
+
+    /**
+     * Returns the numeric id of this kind, between 1 and {@link #COUNT} - 1.
+     */
+    public int id() {
+        return id;
+    }
+
+    /**
+     * Returns the name used for this kind in the text files.
+     */
+    public String typeName() {
+        return typeName;
+    }
+
+    /**
+     * Returns the bit of this kind in a mask of kinds, as used by the
+     * neighbor queries of {@link Valley}; masks are combined with {@code |}.
+     */
+    public int mask() {
+        return 1 << id;
+    }
+
+    /**
+     * Returns true if units of this kind are animals.
+     */
+    public boolean isAnimal() {
+        return this != HAY && this != GRASS;
+    }
+
+    /**
+     * Creates a unit of this kind and places it in the valley.
+     *
+     * @param valley Valley where the unit lives.
+     * @param row Row of the unit.
+     * @param column Column of the unit.
+     * @return the new unit.
+     */
+    public Unit create(Valley valley, int row, int column) {
+        switch (this) {
+            case WOLF:
+                return new Wolf(valley, row, column);
+            case SHEEP:
+                return new Sheep(valley, row, column);
+            case FOX:
+                return new Fox(valley, row, column);
+            case HAY:
+                Hay hay = new Hay(row, column, valley);
+                valley.setUnit(row, column, hay);
+                return hay;
+            case GRASS:
+                return new Grass(row, column, valley);
+            case WOLF_LOT_VOL:
+                return new WolfLotVol(valley, row, column);
+            default:
+                return new SheepLotVol(valley, row, column);
+        }
+    }
+
+    /**
+     * Returns the kind of the given unit, or {@code null} if the unit is
+     * empty or of a class unknown to the simulation.
+     */
+    public static UnitKind of(Unit unit) {
+        if (unit == null) {
+            return null;
+        }
+        Class<?> type = unit.getClass();
+        if (type == Wolf.class) {
+            return WOLF;
+        } else if (type == Sheep.class) {
+            return SHEEP;
+        } else if (type == Fox.class) {
+            return FOX;
+        } else if (type == Hay.class) {
+            return HAY;
+        } else if (type == Grass.class) {
+            return GRASS;
+        } else if (type == WolfLotVol.class) {
+            return WOLF_LOT_VOL;
+        } else if (type == SheepLotVol.class) {
+            return SHEEP_LOT_VOL;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the kind with the given id, or {@code null}.
+     */
+    public static UnitKind byId(int id) {
+        return (id > 0 && id < COUNT) ? BY_ID[id] : null;
+    }
+
+    /**
+     * Returns the kind with the given type name, or {@code null}.
+     */
+    public static UnitKind byName(String typeName) {
+        for (UnitKind kind : values()) {
+            if (kind.typeName.equals(typeName)) {
+                return kind;
+            }
+        }
+        return null;
+    }
+}
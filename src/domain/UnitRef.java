@@ -0,0 +1,53 @@
+package domain;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+
+/**
+ * Serialized form of a unit that lives in a valley: its valley and its
+ * cell. The valley is written once, as a snapshot that already holds
+ * the state of every unit, so the unit adds only two numbers to the
+ * stream instead of its fields, its color and its references to the
+ * valley. When it is read the unit is the one found in that cell.
+ *
+ * Units that are no longer in their valley, or whose valley is being
+ * written field by field, keep their default serialized form.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+final class UnitRef implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Valley valley;
+    private final int row;
+    private final int column;
+
+    private UnitRef(Valley valley, int row, int column) {
+        this.valley = valley;
+        this.row = row;
+        this.column = column;
+    }
+
+    /**
+     * Returns what must be serialized in place of a unit: a reference to
+     * its cell if it lives there, or the unit itself otherwise.
+     */
+    static Object of(Unit unit, Valley valley, int row, int column) {
+        if (valley == null || valley.writingFields
+                || !valley.inValley(row, column) || !valley.holds(row, column, unit)) {
+            return unit;
+        }
+        return new UnitRef(valley, row, column);
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+        Unit unit = valley.getUnit(row, column);
+        if (unit == null) {
+            throw new InvalidObjectException("No unit at (" + row + ", " + column + ")");
+        }
+        return unit;
+    }
+}
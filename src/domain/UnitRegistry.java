@@ -0,0 +1,113 @@
+package domain;
+
+import java.util.Arrays;
+
+/**
+ * Set of the occupied cells of a valley, kept up to date on every
+ * placement, move and removal. It lets the valley visit its units in
+ * time proportional to the population instead of the area.
+ *
+ * Cells are identified by {@code row * columns + column}.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+class UnitRegistry {
+
+    // Celdas ocupadas, sin orden particular.
+    private long[] cells;
+    private int size;
+
+    // Posicion de cada celda dentro de cells.
+    private final LongIntMap slots;
+
+    /**
+     * Creates an empty registry.
+     */
+    public UnitRegistry() {
+        cells = new long[16];
+        slots = new LongIntMap();
+    }
+
+    /**
+     * Returns true if the cell is registered as occupied.
+     */
+    public boolean contains(long cell) {
+        return slots.get(cell) != LongIntMap.MISSING;
+    }
+
+    /**
+     * Registers an occupied cell. Registering it twice has no effect.
+     */
+    public void add(long cell) {
+        if (contains(cell)) {
+            return;
+        }
+        if (size == cells.length) {
+            cells = Arrays.copyOf(cells, size * 2);
+        }
+        cells[size] = cell;
+        slots.put(cell, size);
+        size++;
+    }
+
+    /**
+     * Removes a cell from the registry, if present.
+     */
+    public void remove(long cell) {
+        int slot = slots.remove(cell);
+        if (slot == LongIntMap.MISSING) {
+            return;
+        }
+        size--;
+        if (slot != size) {
+            long last = cells[size];
+            cells[slot] = last;
+            slots.put(last, slot);
+        }
+    }
+
+    /**
+     * Replaces an occupied cell by another one, as when a unit moves.
+     */
+    public void move(long from, long to) {
+        int slot = slots.remove(from);
+        if (slot == LongIntMap.MISSING) {
+            add(to);
+            return;
+        }
+        cells[slot] = to;
+        slots.put(to, slot);
+    }
+
+    /**
+     * Returns the number of occupied cells.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Copies the occupied cells in increasing order (row by row) into the
+     * given buffer, growing it if needed.
+     *
+     * @param buffer Array to reuse; may be too small.
+     * @return the array holding the cells in its first {@link #size()} slots.
+     */
+    public long[] sortedCells(long[] buffer) {
+        if (buffer == null || buffer.length < size) {
+            buffer = new long[Math.max(16, size + (size >> 1))];
+        }
+        System.arraycopy(cells, 0, buffer, 0, size);
+        Arrays.sort(buffer, 0, size);
+        return buffer;
+    }
+
+    /**
+     * Removes every cell from the registry.
+     */
+    public void clear() {
+        slots.clear();
+        size = 0;
+    }
+}
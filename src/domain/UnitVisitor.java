@@ -0,0 +1,20 @@
+package domain;
+
+/**
+ * Action applied to each occupied cell of a {@link Valley}.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+@FunctionalInterface
+public interface UnitVisitor {
+
+    /**
+     * Visits the unit placed at the given cell.
+     *
+     * @param row Row of the cell.
+     * @param column Column of the cell.
+     * @param unit Unit placed in the cell, never {@code null}.
+     */
+    void visit(int row, int column, Unit unit);
+}
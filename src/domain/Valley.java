@@ -1,7 +1,17 @@
 package domain;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.random.RandomGenerator;
+import java.io.File;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 
 /**
  * The Valley class represents the simulation environment where all units
@@ -18,38 +28,239 @@ public class Valley implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
-    // Tamaño del valle (numero de filas y columnas de la cuadricula).
-    static private int SIZE = 25;
+    // Tamaño por defecto del valle (numero de filas y columnas de la cuadricula).
+    public static final int DEFAULT_SIZE = 25;
 
-    // Matriz bidimensional que almacena las unidades (animales y recursos).
-    private Unit[][] places;
+    // Area maxima con tableros de ocupacion; los valles mayores revisan celda por celda.
+    static final long MAX_INDEXED_AREA = 1L << 24;
+
+    // Numero de filas de este valle.
+    private int rows;
+
+    // Numero de columnas de este valle.
+    private int columns;
+
+    // Forma en que se guardan las celdas en memoria.
+    private StorageMode mode;
+
+    // Verdadero si el valle mantiene la tabla de conteos de vecinos.
+    private boolean neighborCounting;
+
+    // Forma en que se ejecuta cada tic-tac.
+    private TickMode tickMode = TickMode.SEQUENTIAL;
+
+    // Semilla de los numeros aleatorios de las unidades.
+    private long seed = new SplittableRandom().nextLong();
+
+    // Numero de tic-tacs ejecutados, parte de la semilla de cada paso.
+    private long tickCount;
+
+    // Almacenamiento de las unidades (animales y recursos) por celda.
+    private Grid grid;
+
+    // Verdadero mientras se reconstruyen unidades ya existentes en la cuadricula.
+    transient boolean restoring;
+
+    // Celdas ocupadas, para recorrer solo las unidades vivas.
+    private transient UnitRegistry registry = new UnitRegistry();
+
+    // Tableros de ocupacion por tipo, para las consultas de vecinos.
+    private transient Bitboards bitboards;
+
+    // Vecinos de cada tipo por celda, si neighborCounting esta activo.
+    private transient NeighborCounts neighborCounts;
+
+    // Siguiente generacion de las celdas durante un tic-tac con doble buffer.
+    private transient BackBuffer back;
+    private transient boolean buffering;
+
+    // Verdadero mientras varios hilos actuan a la vez.
+    private transient volatile boolean concurrent;
+
+    // Generador de cada hilo, ubicado en el flujo de la unidad que actua.
+    private transient ThreadLocal<CellRandom> randoms = newRandoms();
+
+    // Buffers reutilizados por cada tic-tac.
+    private transient long[] tickCells;
+    private transient int tickSize;
+
+    // Celdas de la foto a las que llego una unidad durante el paso y que ya no actuan.
+    private transient boolean[] tickSkips;
+
+    // Celdas ordenadas de forEachUnit, reutilizadas por cada recorrido.
+    private transient long[] visitCells;
+
+    // Frente del tic-tac paralelo, y candado de las cuadriculas no densas mientras corre.
+    private transient Wavefront wavefront;
+    private transient LockedGrid lockedGrid;
+
+    // Contadores de la instrumentacion; nulo si esta desactivada.
+    private transient TickStats stats;
+
+    // Celdas cambiadas por el ultimo tic-tac, y si se estan registrando.
+    private transient ChangeSet changes;
+    private transient boolean tracking;
+
+    // Verdadero mientras se serializan los campos en vez del snapshot.
+    transient boolean writingFields;
 
     /**
-     * Constructs a new Valley with a fixed size and initializes
+     * Constructs a new Valley with the default size and initializes
      * all positions as empty. Some default units (wolves and sheep)
      * are placed using the {@code someUnits()} method.
      */
     public Valley() {
-        places = new Unit[SIZE][SIZE];
-
-        // Inicializa todas las posiciones como vacias
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                places[r][c] = null;
-            }
-        }
+        this(DEFAULT_SIZE, DEFAULT_SIZE);
 
         // Crea algunas unidades iniciales (lobos y ovejas)
         someUnits();
     }
 
     /**
-     * Returns the total size of the valley.
+     * Constructs a new empty Valley with the given number of rows and columns,
+     * keeping one slot per cell.
+     *
+     * @param rows Number of rows of the grid.
+     * @param columns Number of columns of the grid.
+     * @throws IllegalArgumentException if any dimension is not positive.
+     */
+    public Valley(int rows, int columns) {
+        this(rows, columns, StorageMode.DENSE);
+    }
+
+    /**
+     * Constructs a new empty Valley with the given dimensions and storage mode.
+     * With {@link StorageMode#CHUNKED} only the occupied regions use memory,
+     * so the dimensions can be as large as the int range allows.
      *
-     * @return integer representing the number of rows and columns.
+     * @param rows Number of rows of the grid.
+     * @param columns Number of columns of the grid.
+     * @param mode How the cells are kept in memory.
+     * @throws IllegalArgumentException if any dimension is not positive.
+     */
+    public Valley(int rows, int columns, StorageMode mode) {
+        checkSize(rows, columns);
+        this.rows = rows;
+        this.columns = columns;
+        this.mode = mode;
+
+        // Todas las posiciones inician vacias
+        switch (mode) {
+            case CHUNKED:
+                grid = new ChunkedGrid();
+                break;
+            case OFF_HEAP:
+                grid = new OffHeapGrid(this, rows, columns);
+                break;
+            default:
+                grid = new DenseGrid(rows, columns);
+                break;
+        }
+        bitboards = newBitboards();
+    }
+
+    /**
+     * Creates an off-heap valley whose cells are mapped onto a file.
+     * If the file already holds a mapped valley of the same size, its
+     * cells are kept; otherwise the file is overwritten with an empty valley.
+     *
+     * @param file File that backs the cells.
+     * @param rows Number of rows of the grid.
+     * @param columns Number of columns of the grid.
+     * @return the mapped valley.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static Valley createMapped(File file, int rows, int columns) throws IOException {
+        return new Valley(rows, columns, file);
+    }
+
+    /**
+     * Constructs an off-heap valley mapped onto a file.
+     */
+    private Valley(int rows, int columns, File file) throws IOException {
+        checkSize(rows, columns);
+        this.rows = rows;
+        this.columns = columns;
+        this.mode = StorageMode.OFF_HEAP;
+        grid = new OffHeapGrid(this, rows, columns, file);
+        rebuildIndexes();
+    }
+
+    private static void checkSize(int rows, int columns) {
+        if (rows <= 0 || columns <= 0) {
+            throw new IllegalArgumentException("Invalid valley size " + rows + "x" + columns);
+        }
+    }
+
+    /**
+     * Opens a valley previously mapped onto a file, for example to resume
+     * a run after the program stopped. Only the state written by the last
+     * {@link #sync()} or completed tic-tac is guaranteed to be on disk.
+     *
+     * @param file File that backs the cells.
+     * @return the mapped valley.
+     * @throws IOException if the file is not a mapped valley.
+     */
+    public static Valley openMapped(File file) throws IOException {
+        int[] size = OffHeapGrid.readHeader(file);
+        return createMapped(file, size[0], size[1]);
+    }
+
+    /**
+     * Writes back the state of the units read from an off-heap valley and,
+     * when the valley is mapped onto a file, forces it to disk.
+     * It has no effect on other storage modes.
+     */
+    public void sync() {
+        grid.sync();
+    }
+
+    /**
+     * Returns the size of the valley. For square valleys this is the
+     * length of a side; in general it is the number of rows.
+     *
+     * @return integer representing the number of rows.
      */
     public int getSize() {
-        return SIZE;
+        return rows;
+    }
+
+    /**
+     * Returns the number of rows of the valley.
+     *
+     * @return integer representing the number of rows.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of columns of the valley.
+     *
+     * @return integer representing the number of columns.
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns how the cells of this valley are kept in memory.
+     *
+     * @return the storage mode of the valley.
+     */
+    public StorageMode getStorageMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the number of cell slots the storage currently reserves.
+     * For dense valleys this is the area; for chunked valleys it grows
+     * with the regions that hold units; off-heap valleys reserve none.
+     *
+     * @return number of allocated cell slots.
+     */
+    public long allocatedCells() {
+        return grid.allocatedCells();
     }
 
     /**
@@ -60,7 +271,8 @@ public class Valley implements Serializable {
      * @return the Unit at that position, or {@code null} if empty.
      */
     public Unit getUnit(int r, int c) {
-        return places[r][c];
+        checkBounds(r, c);
+        return grid.get(r, c);
     }
 
     /**
@@ -71,7 +283,401 @@ public class Valley implements Serializable {
      * @param e The Unit object to insert.
      */
     public void setUnit(int r, int c, Unit e) {
-        places[r][c] = e;
+        checkBounds(r, c);
+        if (concurrent && grid == lockedGrid) {
+            // La cuadricula compartida cambia entera bajo su candado, incluida la restauracion de vistas
+            synchronized (lockedGrid) {
+                place(r, c, e);
+            }
+        } else {
+            place(r, c, e);
+        }
+    }
+
+    private void place(int r, int c, Unit e) {
+        if (restoring) {
+            // Decodificar un registro guardado no es un cambio del valle
+            grid.set(r, c, e);
+            return;
+        }
+        if (tracking) {
+            track(current(r, c), e, cell(r, c));
+        }
+        if (buffering) {
+            // Durante un tic-tac con doble buffer se escribe la siguiente generacion
+            back.put(cell(r, c), e);
+            return;
+        }
+        grid.set(r, c, e);
+
+        // Mantiene el registro de celdas ocupadas y los tableros por tipo
+        index(r, c, UnitKind.of(e));
+        long cell = cell(r, c);
+        if (concurrent) {
+            synchronized (registry) {
+                register(cell, e != null);
+            }
+        } else {
+            register(cell, e != null);
+        }
+    }
+
+    private void register(long cell, boolean occupied) {
+        if (occupied) {
+            registry.add(cell);
+        } else {
+            registry.remove(cell);
+        }
+    }
+
+    /**
+     * Moves a unit from one cell to another, leaving the first one empty.
+     * Used by mammals to keep the registry of live units in a single step.
+     */
+    void moveUnit(int fromRow, int fromColumn, int toRow, int toColumn, Unit unit) {
+        checkBounds(fromRow, fromColumn);
+        checkBounds(toRow, toColumn);
+        if (tracking) {
+            record(ChangeSet.MOVED, cell(fromRow, fromColumn), cell(toRow, toColumn));
+            skip(cell(toRow, toColumn));
+        }
+        if (buffering) {
+            back.put(cell(fromRow, fromColumn), null);
+            back.put(cell(toRow, toColumn), unit);
+            return;
+        }
+        grid.set(fromRow, fromColumn, null);
+        grid.set(toRow, toColumn, unit);
+        if (concurrent) {
+            synchronized (registry) {
+                registry.move(cell(fromRow, fromColumn), cell(toRow, toColumn));
+            }
+        } else {
+            registry.move(cell(fromRow, fromColumn), cell(toRow, toColumn));
+        }
+        index(fromRow, fromColumn, null);
+        index(toRow, toColumn, UnitKind.of(unit));
+    }
+
+    /**
+     * Records in the change set that the unit of a cell was replaced.
+     */
+    private void track(Unit old, Unit unit, long cell) {
+        if (old == unit) {
+            return;
+        }
+        if (old != null) {
+            record(ChangeSet.DIED, cell, cell);
+        }
+        if (unit != null) {
+            record(ChangeSet.SPAWNED, cell, cell);
+            skip(cell);
+        }
+    }
+
+    /**
+     * Marks a cell of the snapshot of the current tic-tac as reached by
+     * a unit that was not there at the start, so its turn is skipped.
+     * With a double buffer the grid keeps the start of the step and
+     * nothing needs to be marked.
+     */
+    private void skip(long cell) {
+        if (buffering) {
+            return;
+        }
+        int i = Arrays.binarySearch(tickCells, 0, tickSize, cell);
+        if (i >= 0) {
+            tickSkips[i] = true;
+        }
+    }
+
+    private void record(int type, long from, long to) {
+        if (concurrent) {
+            synchronized (changes) {
+                changes.add(type, from, to);
+            }
+        } else {
+            changes.add(type, from, to);
+        }
+    }
+
+    /**
+     * Records that the unit of a cell changed the way it looks, such as
+     * the color of the hay, the growth of the grass or the energy of an
+     * animal.
+     */
+    void changed(int r, int c) {
+        if (tracking) {
+            long cell = cell(r, c);
+            record(ChangeSet.CHANGED, cell, cell);
+        }
+    }
+
+    /**
+     * Records in the bitboards and the neighbor counts that a cell now
+     * holds a unit of the given kind, or of no known kind.
+     */
+    private void index(int r, int c, UnitKind kind) {
+        if (bitboards == null) {
+            return;
+        }
+        if (neighborCounts != null) {
+            UnitKind old = bitboards.kindAt(r, c);
+            if (old != kind) {
+                neighborCounts.add(r, c, old, -1);
+                neighborCounts.add(r, c, kind, 1);
+            }
+        }
+        bitboards.set(r, c, kind);
+    }
+
+    /**
+     * Turns on or off the table of neighbor counts. While it is on, every
+     * change to a cell updates the counts of its eight neighbors, and
+     * {@link #countNeighbors(int, int, UnitKind)} and
+     * {@link #hasNeighbor(int, int, UnitKind)} answer in constant time.
+     * It costs eight bytes per cell, so it suits small and medium valleys.
+     *
+     * @param enabled true to keep the table.
+     * @throws IllegalStateException if the valley is larger than
+     *         {@link #MAX_INDEXED_AREA} cells.
+     */
+    public void setNeighborCounting(boolean enabled) {
+        if (enabled && bitboards == null) {
+            throw new IllegalStateException("Valley too large to count neighbors: " + rows + "x" + columns);
+        }
+        neighborCounting = enabled;
+        neighborCounts = enabled ? newNeighborCounts() : null;
+    }
+
+    /**
+     * Returns true if the valley keeps the table of neighbor counts.
+     *
+     * @return true if neighbor counting is on.
+     */
+    public boolean isNeighborCounting() {
+        return neighborCounting;
+    }
+
+    /**
+     * Returns true if the unit occupies the given cell. During a
+     * double-buffered tic-tac the cell is read from the next generation,
+     * so units see their own moves and deaths.
+     */
+    boolean holds(int r, int c, Unit unit) {
+        return current(r, c) == unit;
+    }
+
+    /**
+     * Returns the unit of a cell, read from the next generation during
+     * a double-buffered tic-tac.
+     */
+    private Unit current(int r, int c) {
+        if (buffering) {
+            int i = back.find(cell(r, c));
+            if (i != LongIntMap.MISSING) {
+                return back.unit(i);
+            }
+        }
+        return grid.get(r, c);
+    }
+
+    /**
+     * Returns how a tic-tac is run in this valley.
+     *
+     * @return the tick mode of the valley.
+     */
+    public TickMode getTickMode() {
+        return tickMode;
+    }
+
+    /**
+     * Chooses how the next tic-tacs are run.
+     *
+     * @param tickMode The new tick mode.
+     */
+    public void setTickMode(TickMode tickMode) {
+        this.tickMode = tickMode;
+    }
+
+    /**
+     * Returns the seed of the random numbers used by the units. Two
+     * valleys with the same units, seed and number of tic-tacs evolve
+     * the same way, whatever the tick mode or the number of threads.
+     *
+     * @return the seed of the valley.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the seed of the random numbers used by the units.
+     *
+     * @param seed The new seed.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the number of tic-tacs executed by this valley.
+     *
+     * @return number of tic-tacs.
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    void setTickCount(long tickCount) {
+        this.tickCount = tickCount;
+    }
+
+    /**
+     * Returns the random generator units must use while they act. During a
+     * tic-tac it yields the numbers reserved for the acting unit, taken
+     * from the valley seed, the tic-tac number and the unit's cell; each
+     * thread has its own generator, so parallel tic-tacs share no state.
+     *
+     * @return the random generator of the current thread.
+     */
+    public RandomGenerator random() {
+        return randoms.get();
+    }
+
+    /**
+     * Turns the instrumentation of the tic-tacs on or off. While it is on
+     * the valley times every act and counts the events of the units in a
+     * {@link TickStats}; while it is off it keeps no counters. Turning it
+     * on again starts new counters.
+     *
+     * @param instrumented true to record the tic-tacs.
+     */
+    public void setInstrumented(boolean instrumented) {
+        stats = instrumented ? new TickStats() : null;
+    }
+
+    /**
+     * Returns true if the tic-tacs are being instrumented.
+     */
+    public boolean isInstrumented() {
+        return stats != null;
+    }
+
+    /**
+     * Returns the cells changed by the last tic-tac: the units that moved,
+     * were born, died or changed the way they look. The set is reused by
+     * the next tic-tac, so it must be read before running it.
+     *
+     * @return the changes of the last tic-tac; empty if none has run.
+     */
+    public ChangeSet getChanges() {
+        if (changes == null) {
+            changes = new ChangeSet(columns);
+        }
+        return changes;
+    }
+
+    /**
+     * Returns the counters of the instrumentation.
+     *
+     * @return the counters, or {@code null} if the instrumentation is off.
+     */
+    public TickStats getTickStats() {
+        return stats;
+    }
+
+    /**
+     * Counts an event of a unit if the instrumentation is on.
+     */
+    void record(TickStats.Event event) {
+        TickStats s = stats;
+        if (s != null) {
+            s.count(event);
+        }
+    }
+
+    private ThreadLocal<CellRandom> newRandoms() {
+        return ThreadLocal.withInitial(() -> new CellRandom(seed));
+    }
+
+    /**
+     * Returns the number of units currently in the valley.
+     *
+     * @return number of occupied cells.
+     */
+    public int population() {
+        return registry.size();
+    }
+
+    /**
+     * Visits every unit of the valley, row by row. Only the occupied cells
+     * are traversed, so the cost depends on the population, not the area.
+     * Units placed or moved by the visitor are not visited in the same call.
+     *
+     * @param visitor Action applied to each occupied cell.
+     */
+    public void forEachUnit(UnitVisitor visitor) {
+        // Un recorrido anidado no encuentra el arreglo y crea el suyo
+        long[] cells = registry.sortedCells(visitCells);
+        visitCells = null;
+        int count = registry.size();
+        for (int i = 0; i < count; i++) {
+            int r = (int) (cells[i] / columns);
+            int c = (int) (cells[i] % columns);
+            Unit u = grid.get(r, c);
+            if (u != null) {
+                visitor.visit(r, c, u);
+            }
+        }
+        visitCells = cells;
+    }
+
+    /**
+     * Visits the units inside a rectangle of cells, row by row. Only the
+     * cells of the rectangle are read, so the cost depends on its area,
+     * not on the size of the valley. The rectangle is clipped to the
+     * valley; an empty intersection visits nothing.
+     *
+     * @param firstRow First row of the rectangle.
+     * @param firstColumn First column of the rectangle.
+     * @param lastRow Last row of the rectangle, included.
+     * @param lastColumn Last column of the rectangle, included.
+     * @param visitor Action applied to each occupied cell of the rectangle.
+     */
+    public void forEachUnit(int firstRow, int firstColumn, int lastRow, int lastColumn, UnitVisitor visitor) {
+        int top = Math.max(0, firstRow);
+        int left = Math.max(0, firstColumn);
+        int bottom = Math.min(rows - 1, lastRow);
+        int right = Math.min(columns - 1, lastColumn);
+        for (int r = top; r <= bottom; r++) {
+            for (int c = left; c <= right; c++) {
+                Unit u = grid.get(r, c);
+                if (u != null) {
+                    visitor.visit(r, c, u);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a spliterator over the units of the valley, row by row. It
+     * works on a copy of the units taken when this method is called, so
+     * the valley may change while it is traversed; it splits evenly, so
+     * it can back a parallel stream:
+     * {@code StreamSupport.stream(valley.units(), true)}.
+     *
+     * @return a sized spliterator over the live units.
+     */
+    public Spliterator<Unit> units() {
+        long[] cells = registry.sortedCells(null);
+        int count = registry.size();
+        Unit[] units = new Unit[count];
+        for (int i = 0; i < count; i++) {
+            units[i] = grid.get((int) (cells[i] / columns), (int) (cells[i] % columns));
+        }
+        return Spliterators.spliterator(units, 0, count,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
     }
 
     /**
@@ -94,9 +700,9 @@ public class Valley implements Serializable {
         
         // Crea henos
         Hay alarm = new Hay(0, 0, this);
-        Hay alert = new Hay(0, SIZE-1, this);
+        Hay alert = new Hay(0, columns-1, this);
         setUnit(0, 0, alarm);
-        setUnit(0, SIZE-1, alert);
+        setUnit(0, columns-1, alert);
         
         // Crea zorros
         //Fox beltran = new Fox(this, 12, 5);
@@ -136,13 +742,18 @@ public class Valley implements Serializable {
      */
     public int neighborsEquals(int r, int c) {
         int num = 0;
-        if (inValley(r, c) && places[r][c] != null) {
+        Unit center = inValley(r, c) ? grid.get(r, c) : null;
+        UnitKind kind = UnitKind.of(center);
+        if (kind != null) {
+            return countNeighbors(r, c, kind);
+        }
+        if (center != null) {
             for (int dr = -1; dr < 2; dr++) {
                 for (int dc = -1; dc < 2; dc++) {
                     // Verifica que no sea la misma posicion y que este dentro del valle
                     if ((dr != 0 || dc != 0) && inValley(r + dr, c + dc)
-                            && (places[r + dr][c + dc] != null)
-                            && (places[r][c].getClass() == places[r + dr][c + dc].getClass())) {
+                            && (grid.get(r + dr, c + dc) != null)
+                            && (center.getClass() == grid.get(r + dr, c + dc).getClass())) {
                         num++;
                     }
                 }
@@ -151,15 +762,136 @@ public class Valley implements Serializable {
         return num;
     }
 
+    /**
+     * Returns the first neighbor of a cell, in the order rows and then
+     * columns are scanned, that is a unit of one of the given kinds.
+     * Kinds are matched by exact class. During a double-buffered tic-tac
+     * units already killed in the same tic-tac are skipped.
+     *
+     * @param r Row index of the reference cell.
+     * @param c Column index of the reference cell.
+     * @param kinds Mask of kinds, e.g. {@code UnitKind.WOLF.mask() | UnitKind.SHEEP.mask()}.
+     * @return the neighbor found, or {@code null} if there is none.
+     */
+    public Unit findNeighbor(int r, int c, int kinds) {
+        if (neighborCounts != null && inValley(r, c) && !neighborCounts.any(r, c, kinds)) {
+            return null;
+        }
+        if (bitboards != null && inValley(r, c)) {
+            int window = bitboards.neighborhood(r, c, kinds);
+            while (window != 0) {
+                int bit = Integer.numberOfTrailingZeros(window);
+                window &= window - 1;
+                int nr = r + bit / 3 - 1;
+                int nc = c + bit % 3 - 1;
+                Unit neighbor = grid.get(nr, nc);
+                if (isAlive(neighbor, nr, nc)) {
+                    return neighbor;
+                }
+            }
+            return null;
+        }
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                if ((dr != 0 || dc != 0) && inValley(r + dr, c + dc)) {
+                    Unit neighbor = grid.get(r + dr, c + dc);
+                    UnitKind kind = UnitKind.of(neighbor);
+                    if (kind != null && (kinds & kind.mask()) != 0 && isAlive(neighbor, r + dr, c + dc)) {
+                        return neighbor;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if any neighbor of the cell is a unit of the given kind.
+     *
+     * @param r Row index of the reference cell.
+     * @param c Column index of the reference cell.
+     * @param kind Kind of unit looked for.
+     * @return true if such a neighbor exists.
+     */
+    public boolean hasNeighbor(int r, int c, UnitKind kind) {
+        if (neighborCounts != null && inValley(r, c)) {
+            return neighborCounts.get(r, c, kind) > 0;
+        }
+        return findNeighbor(r, c, kind.mask()) != null;
+    }
+
+    /**
+     * Counts the neighbors of a cell that are units of the given kind.
+     *
+     * @param r Row index of the reference cell.
+     * @param c Column index of the reference cell.
+     * @param kind Kind of unit counted.
+     * @return number of such neighbors, between 0 and 8.
+     */
+    public int countNeighbors(int r, int c, UnitKind kind) {
+        if (neighborCounts != null && inValley(r, c)) {
+            return neighborCounts.get(r, c, kind);
+        }
+        if (bitboards != null && inValley(r, c)) {
+            return Integer.bitCount(bitboards.neighborhood(r, c, kind.mask()));
+        }
+        return scanNeighbors(r, c, kind);
+    }
+
+    /**
+     * Counts the neighbors of the given kind looking at each of the eight cells.
+     */
+    private int scanNeighbors(int r, int c, UnitKind kind) {
+        int num = 0;
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                if ((dr != 0 || dc != 0) && inValley(r + dr, c + dc)
+                        && UnitKind.of(grid.get(r + dr, c + dc)) == kind) {
+                    num++;
+                }
+            }
+        }
+        return num;
+    }
+
+    /**
+     * Counts, for every cell of a row, the neighbors that are units of the
+     * given kind. With occupancy bitboards the whole row is computed with
+     * word operations, 64 cells at a time.
+     *
+     * @param kind Kind of unit counted.
+     * @param r Row index.
+     * @param counts Array of at least {@link #getColumns()} entries to fill.
+     */
+    public void countNeighbors(UnitKind kind, int r, byte[] counts) {
+        checkBounds(r, 0);
+        if (bitboards != null) {
+            bitboards.countRow(kind, r, counts);
+            return;
+        }
+        for (int c = 0; c < columns; c++) {
+            counts[c] = (byte) countNeighbors(r, c, kind);
+        }
+    }
+
     /**
      * Checks whether the specified position in the valley is empty.
+     * During a double-buffered tic-tac a cell is empty only if it was
+     * empty when the tic-tac started and nobody has claimed it since.
      *
      * @param r Row index to check.
      * @param c Column index to check.
      * @return true if the position is inside the valley and has no unit.
      */
     public boolean isEmpty(int r, int c) {
-        return (inValley(r, c) && places[r][c] == null);
+        if (buffering && inValley(r, c)) {
+            // Libre al inicio del tic-tac y sin reclamar en la siguiente generacion
+            int i = back.find(cell(r, c));
+            if (i != LongIntMap.MISSING && back.unit(i) != null) {
+                return false;
+            }
+        }
+        return (inValley(r, c) && grid.get(r, c) == null);
     }
 
     /**
@@ -169,25 +901,327 @@ public class Valley implements Serializable {
      * @param c Column index to check.
      * @return true if the position is inside the valley boundaries.
      */
-    private boolean inValley(int r, int c) {
-        return ((0 <= r) && (r < SIZE) && (0 <= c) && (c < SIZE));
+    public boolean inValley(int r, int c) {
+        return ((0 <= r) && (r < rows) && (0 <= c) && (c < columns));
+    }
+
+    private long cell(int r, int c) {
+        return (long) r * columns + c;
+    }
+
+    private void checkBounds(int r, int c) {
+        if (!inValley(r, c)) {
+            throw new IndexOutOfBoundsException("Cell (" + r + ", " + c + ") outside the valley");
+        }
     }
 
     /**
      * Executes one simulation step ("Tic-tac") across the entire valley.
-     * Each unit that exists in the valley performs its {@code act()} method.
-     * This simulates one round of activity for all entities.
+     * Each unit that exists in the valley when the step starts performs
+     * its {@code act()} method once, row by row; units that die before
+     * their turn do not act, units that move ahead onto a cell still to be
+     * visited do not act again there, and units born during the step wait
+     * for the next. Only the live units are visited, never the empty cells.
+     * In {@link TickMode#DOUBLE_BUFFERED} mode units read the cells as
+     * they were at the start and their writes take effect at the end.
+     * In {@link TickMode#PARALLEL} mode the units act on the threads of
+     * the fork/join pool of the calling thread (the common pool by
+     * default), with the same result as in sequential mode.
      */
     public void ticTac() {
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                Unit u = places[r][c];
-                if (u != null) {
-                    u.act(); // Cada unidad ejecuta su comportamiento
+        if (!TickEvent.isRecorded()) {
+            advance();
+            return;
+        }
+        TickEvent event = new TickEvent();
+        event.begin();
+        int before = registry.size();
+        advance();
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.tick = tickCount - 1;
+            event.mode = tickMode.name();
+            event.before = before;
+            event.after = registry.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Runs one tic-tac. Once the buffers have grown to the population it
+     * allocates nothing, unless units are born.
+     */
+    private void advance() {
+        // Toma una foto de las unidades vivas al inicio del paso
+        tickCells = registry.sortedCells(tickCells);
+        int count = registry.size();
+        tickSize = count;
+        if (tickSkips == null || tickSkips.length < tickCells.length) {
+            tickSkips = new boolean[tickCells.length];
+        } else {
+            Arrays.fill(tickSkips, 0, count, false);
+        }
+
+        if (changes == null) {
+            changes = new ChangeSet(columns);
+        }
+        changes.clear(tickCount);
+        tracking = true;
+
+        if (tickMode == TickMode.DOUBLE_BUFFERED) {
+            if (back == null) {
+                back = new BackBuffer();
+            }
+            buffering = true;
+        }
+        try {
+            // Cada unidad que sigue viva ejecuta su comportamiento
+            if (tickMode == TickMode.PARALLEL) {
+                actInParallel(count);
+            } else {
+                act(0, count);
+            }
+        } finally {
+            // Los cambios ya se registraron cuando las unidades actuaron
+            tracking = false;
+            if (buffering) {
+                buffering = false;
+                swap();
+            }
+            tickCount++;
+            if (stats != null) {
+                stats.tick();
+            }
+        }
+        grid.flush();
+    }
+
+    /**
+     * Executes several tic-tacs in a row.
+     *
+     * @param n Number of tic-tacs to execute.
+     * @return the number of units visited, added over all the tic-tacs.
+     * @throws IllegalArgumentException if n is negative.
+     */
+    public long ticTac(long n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Negative number of tic-tacs: " + n);
+        }
+        long visited = 0;
+        for (long i = 0; i < n; i++) {
+            visited += registry.size();
+            ticTac();
+        }
+        return visited;
+    }
+
+    /**
+     * Makes the units of the snapshot between the given positions act,
+     * skipping those that are no longer alive. Each unit is taken from
+     * its cell when its turn comes; a cell marked by {@link #skip(long)}
+     * holds a unit that arrived during the step and is passed over.
+     */
+    void act(int from, int to) {
+        CellRandom random = randoms.get();
+        TickStats s = stats;
+        for (int i = from; i < to; i++) {
+            if (tickSkips[i]) {
+                continue;
+            }
+            int r = (int) (tickCells[i] / columns);
+            int c = (int) (tickCells[i] % columns);
+            Unit u = grid.get(r, c);
+            if (isAlive(u, r, c)) {
+                random.reseed(seed, tickCount, tickCells[i]);
+                if (s == null) {
+                    u.act();
+                } else {
+                    long start = System.nanoTime();
+                    u.act();
+                    s.recordAct(UnitKind.of(u), System.nanoTime() - start);
                 }
             }
         }
     }
-}
 
+    /**
+     * Makes the units act on the threads of the fork/join pool of the
+     * calling thread, following the wavefront that keeps the order of a
+     * sequential tic-tac. Chunked and off-heap grids are reached through
+     * a lock while the units act. With a single thread the units simply
+     * act in order.
+     */
+    private void actInParallel(int count) {
+        ForkJoinPool pool = ForkJoinTask.getPool();
+        int threads = (pool != null ? pool : ForkJoinPool.commonPool()).getParallelism();
+        if (threads < 2 || count < 2) {
+            act(0, count);
+            return;
+        }
+        if (wavefront == null) {
+            wavefront = new Wavefront(this);
+            lockedGrid = new LockedGrid();
+        }
+        if (mode != StorageMode.DENSE) {
+            lockedGrid.wrap(grid);
+            grid = lockedGrid;
+        }
+        concurrent = true;
+        try {
+            wavefront.run(tickCells, count, columns, threads);
+        } finally {
+            concurrent = false;
+            if (grid == lockedGrid) {
+                grid = lockedGrid.target();
+                lockedGrid.wrap(null);
+            }
+        }
+    }
 
+    /**
+     * Makes the next generation written during a double-buffered
+     * tic-tac the current one.
+     */
+    private void swap() {
+        for (int i = 0; i < back.size(); i++) {
+            long cell = back.cell(i);
+            setUnit((int) (cell / columns), (int) (cell % columns), back.unit(i));
+        }
+        back.clear();
+    }
+
+    /**
+     * Returns true if the unit taken from the given cell is still in the
+     * valley. With a double buffer the grid holds the start of the step,
+     * so mammals are looked for where they are now, since they may have
+     * moved.
+     */
+    private boolean isAlive(Unit u, int r, int c) {
+        if (u instanceof Mammal) {
+            Mammal m = (Mammal) u;
+            return inValley(m.getRow(), m.getColumn()) && holds(m.getRow(), m.getColumn(), u);
+        }
+        return u != null && holds(r, c, u);
+    }
+
+    /**
+     * Registers every occupied cell of the grid in the registry of live
+     * units and in the occupancy bitboards.
+     */
+    private void rebuildIndexes() {
+        registry = new UnitRegistry();
+        bitboards = newBitboards();
+        grid.forEachUnit((r, c, u) -> {
+            registry.add(cell(r, c));
+            if (bitboards != null) {
+                bitboards.set(r, c, UnitKind.of(u));
+            }
+        });
+        grid.flush();
+        neighborCounts = neighborCounting && bitboards != null ? newNeighborCounts() : null;
+    }
+
+    private Bitboards newBitboards() {
+        return (long) rows * columns <= MAX_INDEXED_AREA ? new Bitboards(rows, columns) : null;
+    }
+
+    /**
+     * Builds the neighbor counts from the occupancy bitboards.
+     */
+    private NeighborCounts newNeighborCounts() {
+        NeighborCounts table = new NeighborCounts(rows, columns);
+        long[] cells = registry.sortedCells(null);
+        for (int i = 0; i < registry.size(); i++) {
+            int r = (int) (cells[i] / columns);
+            int c = (int) (cells[i] % columns);
+            table.add(r, c, bitboards.kindAt(r, c), 1);
+        }
+        return table;
+    }
+
+    /**
+     * Serializes the valley as its binary snapshot instead of its fields,
+     * so the stream carries one record per unit and no unit objects,
+     * colors or references back to the valley. A valley holding units of
+     * classes unknown to {@link UnitKind} keeps the serialized fields.
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        try {
+            return new SerialForm(ValleySnapshot.toBytes(this));
+        } catch (IllegalArgumentException e) {
+            // Unidades que el snapshot no sabe codificar: se guardan los objetos
+            return this;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the fields of a valley that cannot be written as a snapshot.
+     * Meanwhile its units are written as objects, not as references to
+     * their cells (see {@link UnitRef}).
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        writingFields = true;
+        try {
+            out.defaultWriteObject();
+        } finally {
+            writingFields = false;
+        }
+    }
+
+    /**
+     * Serialized form of a valley: the bytes of its snapshot.
+     */
+    private static final class SerialForm implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] snapshot;
+
+        SerialForm(byte[] snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        private Object readResolve() throws ObjectStreamException {
+            try {
+                return ValleySnapshot.fromBytes(snapshot);
+            } catch (IOException e) {
+                InvalidObjectException invalid = new InvalidObjectException("Invalid valley snapshot");
+                invalid.initCause(e);
+                throw invalid;
+            }
+        }
+    }
+
+    /**
+     * Restores a valley saved to a .dat file by a version that serialized
+     * its fields; newer files hold a {@link SerialForm} instead. Files
+     * written before the valley kept its own size and storage only carry
+     * the matrix of places, so the dimensions are taken from it.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        randoms = newRandoms();
+        if (fields.getObjectStreamClass().getField("places") != null) {
+            // Formato anterior: la matriz de unidades sin dimensiones ni modo
+            Unit[][] places = (Unit[][]) fields.get("places", null);
+            rows = places.length;
+            columns = rows == 0 ? 0 : places[0].length;
+            mode = StorageMode.DENSE;
+            tickMode = TickMode.SEQUENTIAL;
+            grid = new DenseGrid(places);
+        } else {
+            rows = fields.get("rows", 0);
+            columns = fields.get("columns", 0);
+            mode = (StorageMode) fields.get("mode", StorageMode.DENSE);
+            neighborCounting = fields.get("neighborCounting", false);
+            tickMode = (TickMode) fields.get("tickMode", TickMode.SEQUENTIAL);
+            seed = fields.get("seed", 0L);
+            tickCount = fields.get("tickCount", 0L);
+            grid = (Grid) fields.get("grid", null);
+        }
+        rebuildIndexes();
+    }
+}
@@ -0,0 +1,546 @@
+package domain;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary snapshot of a valley, the format of the .dat files written by
+ * {@link Fachada#save(java.io.File)}. Instead of the object graph of Java
+ * serialization it keeps one {@link UnitCodec} record per cell, so a
+ * unit costs four bytes and no class descriptors, colors or references
+ * to the valley are written. Runs of equal cells, empty ones above all,
+ * are written once with their length.
+ *
+ * <pre>
+ *   int     magic "VLSN"
+ *   short   version
+ *   int     rows, columns
+ *   byte    storage mode, tick mode, neighbor counting (0 or 1)
+ *   long    seed, number of tic-tacs
+ *   byte    number of kinds, then for each kind:
+ *           byte id, short length and UTF-8 bytes of its type name
+ *   runs    until every cell is covered, row by row:
+ *           varint number of cells, int record (0 = empty cells)
+ * </pre>
+ *
+ * The ids of the records are those of the kind table of the file, so a
+ * file stays readable if the ids of {@link UnitKind} change. Numbers are
+ * big-endian; a varint keeps seven bits per byte, lowest first. The file
+ * is written and read through a {@link FileChannel} with one buffer.
+ * The same bytes are the serialized form of a valley (see
+ * {@link #toBytes(Valley)}).
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+final class ValleySnapshot {
+
+    // Primeros bytes de un snapshot ("VLSN") y version del formato.
+    static final int MAGIC = 0x564C534E;
+    static final int VERSION = 1;
+
+    // Tamaño del buffer de lectura y escritura.
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Canal de donde se lee o a donde se escribe.
+    private final ReadableByteChannel input;
+    private final WritableByteChannel output;
+    private final ByteBuffer buffer;
+
+    // Corrida pendiente de escribir, o la ultima leida: registro y numero de celdas.
+    private int runRecord;
+    private long runLength;
+
+    // Siguiente celda por escribir o leer.
+    private long next;
+
+    // Tipos de los ids del archivo que se lee.
+    private UnitKind[] kinds;
+
+    private ValleySnapshot(ReadableByteChannel input, WritableByteChannel output) {
+        this.input = input;
+        this.output = output;
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        if (input != null) {
+            buffer.limit(0);
+        }
+    }
+
+    /**
+     * Returns true if the file starts like a snapshot; false for older
+     * .dat files written with Java serialization.
+     *
+     * @throws IOException if the file cannot be read.
+     */
+    static boolean isSnapshot(File file) throws IOException {
+        try (FileChannel channel = new FileInputStream(file).getChannel()) {
+            ByteBuffer head = ByteBuffer.allocate(4);
+            while (head.hasRemaining() && channel.read(head) >= 0) {
+                // Lee hasta tener la magia o llegar al final
+            }
+            return !head.hasRemaining() && head.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the valley, replacing the file.
+     *
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if the valley holds unknown units.
+     */
+    static void write(Valley valley, File file) throws IOException {
+        try (FileChannel channel = new FileOutputStream(file).getChannel()) {
+            new ValleySnapshot(null, channel).writeValley(valley);
+        }
+    }
+
+    /**
+     * Writes an image taken before, for example in another thread, to a
+     * channel, such as one positioned at the start of an empty file.
+     *
+     * @throws IOException if the channel cannot be written.
+     */
+    static void write(Image image, WritableByteChannel channel) throws IOException {
+        new ValleySnapshot(null, channel).writeImage(image);
+    }
+
+    /**
+     * Copies the state of the valley: its settings and the cell and
+     * record of every unit. It costs the population, not the area, and
+     * the copy shares nothing with the valley, so it can be written
+     * while the valley keeps running.
+     *
+     * @throws IllegalArgumentException if the valley holds unknown units.
+     */
+    static Image capture(Valley valley) {
+        return capture(valley, null);
+    }
+
+    /**
+     * Copies the state of the valley like {@link #capture(Valley)}, into
+     * the arrays of an image no longer needed when they are big enough.
+     *
+     * @param spare Image whose arrays may be reused, or null.
+     * @throws IllegalArgumentException if the valley holds unknown units.
+     */
+    static Image capture(Valley valley, Image spare) {
+        int population = valley.population();
+        long[] cells;
+        int[] records;
+        if (spare != null && spare.cells.length >= population && spare.records.length >= population) {
+            cells = spare.cells;
+            records = spare.records;
+        } else {
+            // Crece con margen para no crear arreglos cada vez que la poblacion aumenta
+            int length = spare == null ? population : Math.max(population, spare.cells.length * 2);
+            cells = new long[length];
+            records = new int[length];
+        }
+        Image image = new Image(valley, cells, records, population);
+        int columns = valley.getColumns();
+        int[] i = {0};
+        valley.forEachUnit((r, c, u) -> {
+            cells[i[0]] = (long) r * columns + c;
+            records[i[0]] = UnitCodec.encode(u);
+            i[0]++;
+        });
+        return image;
+    }
+
+    /**
+     * State of a valley copied at a tic-tac boundary, ready to be written.
+     */
+    static final class Image {
+
+        final int rows;
+        final int columns;
+        final StorageMode mode;
+        final TickMode tickMode;
+        final boolean neighborCounting;
+        final long seed;
+        final long tickCount;
+
+        // Celda y registro de cada unidad, en orden de celda; solo cuentan las primeras size.
+        final long[] cells;
+        final int[] records;
+        final int size;
+
+        private Image(Valley valley, long[] cells, int[] records, int size) {
+            rows = valley.getRows();
+            columns = valley.getColumns();
+            mode = valley.getStorageMode();
+            tickMode = valley.getTickMode();
+            neighborCounting = valley.isNeighborCounting();
+            seed = valley.getSeed();
+            tickCount = valley.getTickCount();
+            this.cells = cells;
+            this.records = records;
+            this.size = size;
+        }
+
+        private Image(int rows, int columns, StorageMode mode, TickMode tickMode, boolean neighborCounting,
+                long seed, long tickCount, long[] cells, int[] records, int size) {
+            this.rows = rows;
+            this.columns = columns;
+            this.mode = mode;
+            this.tickMode = tickMode;
+            this.neighborCounting = neighborCounting;
+            this.seed = seed;
+            this.tickCount = tickCount;
+            this.cells = cells;
+            this.records = records;
+            this.size = size;
+        }
+
+        /**
+         * Creates an image with the settings of this one and other units.
+         *
+         * @param cells Cells of the units, in increasing order.
+         * @param records Records of the units.
+         * @param size Number of units; the arrays may be longer.
+         */
+        Image with(long tickCount, long[] cells, int[] records, int size) {
+            return new Image(rows, columns, mode, tickMode, neighborCounting, seed, tickCount, cells, records, size);
+        }
+
+        /**
+         * Returns true if the other image is of a valley of the same size
+         * and settings, whatever its units and tic-tacs.
+         */
+        boolean sameSettings(Image other) {
+            return rows == other.rows && columns == other.columns && mode == other.mode
+                    && tickMode == other.tickMode && neighborCounting == other.neighborCounting
+                    && seed == other.seed;
+        }
+
+        /**
+         * Returns the number of units of the image.
+         */
+        int units() {
+            return size;
+        }
+    }
+
+    /**
+     * Rebuilds the valley of an image. Its units may be in any order.
+     */
+    static Valley restore(Image image) {
+        Valley valley = new Valley(image.rows, image.columns, image.mode);
+        for (int i = 0; i < image.size; i++) {
+            UnitCodec.decode(valley, (int) (image.cells[i] / image.columns),
+                    (int) (image.cells[i] % image.columns), image.records[i]);
+        }
+        settle(valley, image);
+        return valley;
+    }
+
+    /**
+     * Returns the snapshot of the valley as an array of bytes.
+     *
+     * @throws IllegalArgumentException if the valley holds unknown units.
+     */
+    static byte[] toBytes(Valley valley) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new ValleySnapshot(null, Channels.newChannel(bytes)).writeValley(valley);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads the valley of a snapshot held in an array of bytes.
+     *
+     * @throws IOException if the bytes are not a valid snapshot.
+     */
+    static Valley fromBytes(byte[] bytes) throws IOException {
+        return new ValleySnapshot(Channels.newChannel(new ByteArrayInputStream(bytes)), null).readValley();
+    }
+
+    /**
+     * Reads, without building the valley, the image held in the first
+     * bytes of an array.
+     *
+     * @throws IOException if the bytes are not a valid snapshot.
+     */
+    static Image readImage(byte[] bytes, int length) throws IOException {
+        return new ValleySnapshot(Channels.newChannel(new ByteArrayInputStream(bytes, 0, length)), null).readImage();
+    }
+
+    /**
+     * Reads the valley of a snapshot.
+     *
+     * @throws StreamCorruptedException if the file is not a valid snapshot.
+     * @throws InvalidClassException if the file holds kinds of units this
+     *         version does not know, or was written by a newer version.
+     * @throws IOException if the file cannot be read.
+     */
+    static Valley read(File file) throws IOException {
+        try (FileChannel channel = new FileInputStream(file).getChannel()) {
+            return new ValleySnapshot(channel, null).readValley();
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Escritura
+
+    private void writeValley(Valley valley) throws IOException {
+        writeImage(capture(valley));
+    }
+
+    private void writeImage(Image image) throws IOException {
+        ensure(33);
+        buffer.putInt(MAGIC);
+        buffer.putShort((short) VERSION);
+        buffer.putInt(image.rows);
+        buffer.putInt(image.columns);
+        buffer.put((byte) image.mode.ordinal());
+        buffer.put((byte) image.tickMode.ordinal());
+        buffer.put((byte) (image.neighborCounting ? 1 : 0));
+        buffer.putLong(image.seed);
+        buffer.putLong(image.tickCount);
+
+        // Tabla de tipos: los ids de los registros y el nombre de cada uno
+        UnitKind[] kinds = UnitKind.values();
+        ensure(1);
+        buffer.put((byte) kinds.length);
+        for (UnitKind kind : kinds) {
+            byte[] name = kind.typeName().getBytes(StandardCharsets.UTF_8);
+            ensure(3 + name.length);
+            buffer.put((byte) kind.id());
+            buffer.putShort((short) name.length);
+            buffer.put(name);
+        }
+
+        // Las celdas vacias entre dos unidades forman una corrida de ceros
+        for (int i = 0; i < image.size; i++) {
+            add(0, image.cells[i] - next);
+            add(image.records[i], 1);
+            next = image.cells[i] + 1;
+        }
+        add(0, (long) image.rows * image.columns - next);
+        endRun();
+
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+    }
+
+    /**
+     * Appends cells with the same record to the pending run, writing the
+     * run first if its record is different.
+     */
+    private void add(int record, long length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        if (runLength > 0 && record != runRecord) {
+            endRun();
+        }
+        runRecord = record;
+        runLength += length;
+    }
+
+    private void endRun() throws IOException {
+        if (runLength == 0) {
+            return;
+        }
+        ensure(14);
+        long n = runLength;
+        while ((n & ~0x7FL) != 0) {
+            buffer.put((byte) ((n & 0x7F) | 0x80));
+            n >>>= 7;
+        }
+        buffer.put((byte) n);
+        buffer.putInt(runRecord);
+        runLength = 0;
+    }
+
+    /**
+     * Makes room in the buffer for the given number of bytes, writing
+     * what it holds to the channel if needed.
+     */
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // ------------------------------------------------------------------
+    // Lectura
+
+    private Valley readValley() throws IOException {
+        Image header = readHeader();
+        Valley valley = new Valley(header.rows, header.columns, header.mode);
+        long area = (long) header.rows * header.columns;
+        while (next < area) {
+            int record = readRun(area);
+            if (record == 0) {
+                next += runLength;
+                continue;
+            }
+            for (long i = 0; i < runLength; i++, next++) {
+                UnitCodec.decode(valley, (int) (next / header.columns), (int) (next % header.columns), record);
+            }
+        }
+        settle(valley, header);
+        return valley;
+    }
+
+    private Image readImage() throws IOException {
+        Image header = readHeader();
+        long area = (long) header.rows * header.columns;
+        long[] cells = new long[16];
+        int[] records = new int[16];
+        int size = 0;
+        while (next < area) {
+            int record = readRun(area);
+            if (record == 0) {
+                next += runLength;
+                continue;
+            }
+            for (long i = 0; i < runLength; i++, next++) {
+                if (size == cells.length) {
+                    cells = java.util.Arrays.copyOf(cells, size * 2);
+                    records = java.util.Arrays.copyOf(records, size * 2);
+                }
+                cells[size] = next;
+                records[size] = record;
+                size++;
+            }
+        }
+        return header.with(header.tickCount, cells, records, size);
+    }
+
+    /**
+     * Reads the header and the kind table, and returns an image with the
+     * settings of the valley and no units.
+     */
+    private Image readHeader() throws IOException {
+        fill(6);
+        if (buffer.getInt() != MAGIC) {
+            throw new StreamCorruptedException("Not a valley snapshot");
+        }
+        int version = buffer.getShort();
+        if (version != VERSION) {
+            throw new InvalidClassException("Unsupported snapshot version " + version);
+        }
+        fill(27);
+        int rows = buffer.getInt();
+        int columns = buffer.getInt();
+        StorageMode mode = constant(StorageMode.values(), buffer.get());
+        TickMode tickMode = constant(TickMode.values(), buffer.get());
+        boolean neighborCounting = buffer.get() != 0;
+        long seed = buffer.getLong();
+        long tickCount = buffer.getLong();
+        if (rows <= 0 || columns <= 0) {
+            throw new StreamCorruptedException("Invalid valley size " + rows + "x" + columns);
+        }
+
+        // Ids del archivo traducidos a los tipos de esta version
+        fill(1);
+        int count = buffer.get() & 0xFF;
+        kinds = new UnitKind[256];
+        for (int i = 0; i < count; i++) {
+            fill(3);
+            int id = buffer.get() & 0xFF;
+            byte[] name = new byte[buffer.getShort() & 0xFFFF];
+            fill(name.length);
+            buffer.get(name);
+            String typeName = new String(name, StandardCharsets.UTF_8);
+            kinds[id] = UnitKind.byName(typeName);
+            if (kinds[id] == null) {
+                throw new InvalidClassException(typeName, "Unknown kind of unit");
+            }
+        }
+        return new Image(rows, columns, mode, tickMode, neighborCounting, seed, tickCount, new long[0], new int[0], 0);
+    }
+
+    /**
+     * Reads the next run, leaving its number of cells in
+     * {@link #runLength}, and returns its record with the id of this
+     * version, or 0 for empty cells.
+     */
+    private int readRun(long area) throws IOException {
+        runLength = readVarint();
+        fill(4);
+        int record = buffer.getInt();
+        if (runLength <= 0 || runLength > area - next) {
+            throw new StreamCorruptedException("Run of " + runLength + " cells at cell " + next);
+        }
+        int id = UnitCodec.kind(record);
+        if (id == 0) {
+            return 0;
+        }
+        if (kinds[id] == null) {
+            throw new StreamCorruptedException("Undeclared kind " + id + " at cell " + next);
+        }
+        return (record & ~0xFF) | kinds[id].id();
+    }
+
+    /**
+     * Gives a rebuilt valley the settings of its image.
+     */
+    private static void settle(Valley valley, Image image) {
+        valley.setSeed(image.seed);
+        valley.setTickCount(image.tickCount);
+        valley.setTickMode(image.tickMode);
+        valley.setNeighborCounting(image.neighborCounting);
+        valley.sync();
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            fill(1);
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed run length at cell " + next);
+    }
+
+    /**
+     * Makes sure the buffer holds at least the given number of unread
+     * bytes, reading more from the channel if needed.
+     *
+     * @throws EOFException if the file ends before.
+     */
+    private void fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (input.read(buffer) < 0) {
+                throw new EOFException("Truncated valley snapshot");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static <T> T constant(T[] values, byte ordinal) throws StreamCorruptedException {
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new StreamCorruptedException("Invalid constant " + ordinal);
+        }
+        return values[ordinal];
+    }
+}
@@ -0,0 +1,218 @@
+package domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Runs the turns of a parallel tic-tac on several threads so that the
+ * valley ends exactly as after a sequential one. The threads take the
+ * occupied rows of the snapshot in order and walk each row from west
+ * to east in blocks of 64 columns, one word of the bitboards. Before
+ * acting in a block, a row waits until every occupied row close enough
+ * to share a cell with it has gone {@code LEAD} blocks further. Units
+ * only reach cells {@code REACH} rows and columns away, so any two
+ * units that could touch the same cell act in the same order as in a
+ * sequential tic-tac, and units acting at the same time never write the
+ * same word of the bitboards or the same neighbor count.
+ *
+ * Rows are taken in increasing order and a row only waits for rows
+ * taken before it, so the threads always progress, whatever their
+ * number. The arrays and the tasks are reused from one tic-tac to the
+ * next.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+class Wavefront {
+
+    // Distancia maxima, en filas o columnas, de una celda que una unidad lee o escribe,
+    // contando los conteos de vecinos alrededor de las celdas que cambia.
+    static final int REACH = 3;
+
+    // Columnas de cada bloque: una palabra de los tableros.
+    private static final int BLOCK_SHIFT = 6;
+
+    // Bloques de ventaja que una fila debe llevar sobre las filas que esperan por ella.
+    private static final int LEAD = 3;
+
+    // Vueltas de espera activa antes de ceder el procesador.
+    private static final int SPINS = 64;
+
+    private final Valley valley;
+
+    // Foto del tic-tac actual.
+    private long[] cells;
+    private int columns;
+    private int blocks;
+
+    // Fila ocupada de cada tarea y posicion de su primera unidad en la foto.
+    private int[] rows = new int[16];
+    private int[] starts = new int[17];
+    private int items;
+
+    // Bloques terminados por cada fila, y siguiente fila por tomar.
+    private AtomicIntegerArray done = new AtomicIntegerArray(16);
+    private final AtomicInteger next = new AtomicInteger();
+
+    // Primer error de una unidad; las demas filas dejan de esperar.
+    private volatile Throwable failure;
+
+    private final List<Worker> workers = new ArrayList<>();
+    private final List<Worker> pending = new ArrayList<>();
+
+    /**
+     * Creates the wavefront of a valley.
+     */
+    Wavefront(Valley valley) {
+        this.valley = valley;
+    }
+
+    /**
+     * Makes the units of the snapshot act on the given number of tasks
+     * of the current fork/join pool, and returns when all have acted.
+     *
+     * @param cells Occupied cells at the start of the step, sorted.
+     * @param count Number of cells of the snapshot.
+     * @param columns Columns of the valley.
+     * @param threads Number of tasks to run.
+     */
+    void run(long[] cells, int count, int columns, int threads) {
+        this.cells = cells;
+        this.columns = columns;
+        blocks = (columns + (1 << BLOCK_SHIFT) - 1) >>> BLOCK_SHIFT;
+        split(count);
+
+        next.set(0);
+        int tasks = Math.min(threads, items);
+        while (workers.size() < tasks) {
+            workers.add(new Worker());
+        }
+        for (int i = 0; i < tasks; i++) {
+            Worker worker = workers.get(i);
+            worker.reinitialize();
+            pending.add(worker);
+        }
+        try {
+            ForkJoinTask.invokeAll(pending);
+        } finally {
+            pending.clear();
+            this.cells = null;
+        }
+
+        Throwable error = failure;
+        if (error != null) {
+            failure = null;
+            if (error instanceof Error) {
+                throw (Error) error;
+            }
+            throw (RuntimeException) error;
+        }
+    }
+
+    /**
+     * Finds the occupied rows of the snapshot and clears their progress.
+     */
+    private void split(int count) {
+        items = 0;
+        int previous = -1;
+        for (int i = 0; i < count; i++) {
+            int row = (int) (cells[i] / columns);
+            if (row != previous) {
+                if (items == rows.length) {
+                    rows = Arrays.copyOf(rows, items * 2);
+                    starts = Arrays.copyOf(starts, items * 2 + 1);
+                }
+                rows[items] = row;
+                starts[items] = i;
+                items++;
+                previous = row;
+            }
+        }
+        starts[items] = count;
+        if (done.length() < items) {
+            done = new AtomicIntegerArray(rows.length);
+        }
+        for (int k = 0; k < items; k++) {
+            done.set(k, 0);
+        }
+    }
+
+    /**
+     * Makes the units of one occupied row act, block by block.
+     */
+    private void row(int k) {
+        // Filas anteriores lo bastante cerca para compartir alguna celda
+        int first = k;
+        while (first > 0 && rows[k] - rows[first - 1] <= 2 * REACH) {
+            first--;
+        }
+        int end = starts[k + 1];
+        int i = starts[k];
+        while (i < end) {
+            int block = (int) (cells[i] % columns) >>> BLOCK_SHIFT;
+            int to = i + 1;
+            while (to < end && (int) (cells[to] % columns) >>> BLOCK_SHIFT == block) {
+                to++;
+            }
+            done.set(k, block);
+            if (!await(first, k, Math.min(block + LEAD, blocks))) {
+                return;
+            }
+            valley.act(i, to);
+            i = to;
+        }
+        done.set(k, blocks);
+    }
+
+    /**
+     * Waits until the rows between the given tasks have finished the
+     * given number of blocks.
+     *
+     * @return false if another row failed and the tic-tac is abandoned.
+     */
+    private boolean await(int from, int to, int blocks) {
+        for (int j = from; j < to; j++) {
+            int spins = 0;
+            while (done.get(j) < blocks) {
+                if (failure != null) {
+                    return false;
+                }
+                if (++spins < SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Task that takes the next occupied row until none is left.
+     */
+    private final class Worker extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            int k;
+            while (failure == null && (k = next.getAndIncrement()) < items) {
+                try {
+                    row(k);
+                } catch (RuntimeException | Error e) {
+                    synchronized (Wavefront.this) {
+                        if (failure == null) {
+                            failure = e;
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@
 package domain;
 
 import java.awt.Color;
+import java.util.random.RandomGenerator;
 
 /**
  * The Wolf class represents a wolf that lives in the valley.
@@ -13,6 +14,9 @@ import java.awt.Color;
  * @version 2025-2
  */
 public class Wolf extends Mammal {
+
+    private static final long serialVersionUID = 7688347574478512105L;
+
     /**
      * Creates a new wolf in the specified valley and position.
      * The wolf is represented in black color.
@@ -44,15 +48,17 @@ public class Wolf extends Mammal {
     public void act() {
         // Si no tiene energía, muere
         if (getEnergy() == 0) {
+            getValley().record(TickStats.Event.STARVATION);
             die();
         } else {
             // Intenta moverse a una posición aleatoria cercana
-            if (!move(row + (int)(Math.random() * 3) - 1,
-                      column + (int)(Math.random() * 3) - 1)) {
+            RandomGenerator random = getValley().random();
+            if (!move(row + random.nextInt(3) - 1,
+                      column + random.nextInt(3) - 1)) {
 
                 // Si no se pudo mover, intenta nuevamente otra posición aleatoria
-                move(row + (int)(Math.random() * 3) - 1,
-                     column + (int)(Math.random() * 3) - 1);
+                move(row + random.nextInt(3) - 1,
+                     column + random.nextInt(3) - 1);
             }
         }
     }
@@ -1,6 +1,7 @@
 package domain;
 
 import java.awt.Color;
+import java.util.random.RandomGenerator;
 
 /**
  * The WolfLotVol class represents a wolf following the Lotka-Volterra model.
@@ -10,6 +11,8 @@ import java.awt.Color;
  * @version 2025-2
  */
 public class WolfLotVol extends Mammal {
+
+    private static final long serialVersionUID = 1457139694542273590L;
     
     private Valley myValley;
     private boolean hasActedThisTurn; // Para controlar que los recién nacidos no actúen
@@ -37,6 +40,20 @@ public class WolfLotVol extends Mammal {
         this.hasActedThisTurn = skipFirstTurn;
     }
 
+    /**
+     * Returns true if this wolf was just born and skips its next turn.
+     */
+    boolean isNewborn() {
+        return hasActedThisTurn;
+    }
+
+    /**
+     * Marks whether this wolf skips its next turn.
+     */
+    void setNewborn(boolean newborn) {
+        this.hasActedThisTurn = newborn;
+    }
+
     public int getShape() {
         return Unit.ROUND;
     }
@@ -51,6 +68,7 @@ public class WolfLotVol extends Mammal {
 
         // Si no tiene energía, muere
         if (getEnergy() <= 0) {
+            myValley.record(TickStats.Event.STARVATION);
             die();
             return;
         }
@@ -74,72 +92,37 @@ public class WolfLotVol extends Mammal {
      * @return true if hunted successfully, false otherwise.
      */
     private boolean huntSheep() {
-        int size = myValley.getSize();
-
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) continue;
-
-                int r = row + dr;
-                int c = column + dc;
-
-                if (r >= 0 && r < size && c >= 0 && c < size) {
-                    Unit neighbor = myValley.getUnit(r, c);
-
-                    // Caza de oveja
-                    if (neighbor instanceof SheepLotVol) {
-                        Animal prey = (Animal) neighbor;
-                        
-                        // Gana 90% de la energía de la oveja
-                        int energyGained = (prey.getEnergy() * 90) / 100;
-                        int newEnergy = getEnergy() + energyGained;
-                        if (newEnergy > 100) newEnergy = 100;
-                        setEnergy(newEnergy);
-
-                        // La oveja muere
-                        if (neighbor instanceof SheepLotVol) {
-                            ((SheepLotVol) neighbor).die();
-                        } 
-                        return true;
-                    }
-                }
-            }
+        Unit neighbor = myValley.findNeighbor(row, column, UnitKind.SHEEP_LOT_VOL.mask());
+
+        // Caza de oveja
+        if (neighbor == null) {
+            return false;
         }
-        return false;
+        SheepLotVol prey = (SheepLotVol) neighbor;
+
+        // Gana 90% de la energía de la oveja
+        int energyGained = (prey.getEnergy() * 90) / 100;
+        int newEnergy = getEnergy() + energyGained;
+        if (newEnergy > 100) newEnergy = 100;
+        setEnergy(newEnergy);
+
+        // La oveja muere
+        myValley.record(TickStats.Event.KILL);
+        prey.die();
+        return true;
     }
 
     /**
      * Attempts to reproduce with a nearby wolf if there's an empty adjacent cell.
      */
     private void tryReproduce() {
-        int size = myValley.getSize();
-        WolfLotVol partner = null;
-        int partnerRow = -1, partnerCol = -1;
-
         // Busca un lobo LotVol vecino
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) continue;
-
-                int r = row + dr;
-                int c = column + dc;
-
-                if (r >= 0 && r < size && c >= 0 && c < size) {
-                    Unit neighbor = myValley.getUnit(r, c);
-
-                    if (neighbor instanceof WolfLotVol && neighbor != this) {
-                        partner = (WolfLotVol) neighbor;
-                        partnerRow = r;
-                        partnerCol = c;
-                        break;
-                    }
-                }
-            }
-            if (partner != null) break;
-        }
+        WolfLotVol partner = (WolfLotVol) myValley.findNeighbor(row, column, UnitKind.WOLF_LOT_VOL.mask());
 
         // Si encontró pareja, busca espacio vacío entre ellos
         if (partner != null) {
+            int partnerRow = partner.getRow();
+            int partnerCol = partner.getColumn();
             for (int dr = -1; dr <= 1; dr++) {
                 for (int dc = -1; dc <= 1; dc++) {
                     if (dr == 0 && dc == 0) continue;
@@ -152,6 +135,7 @@ public class WolfLotVol extends Mammal {
                         // Verifica que también esté cerca del partner
                         if (Math.abs(r - partnerRow) <= 1 && Math.abs(c - partnerCol) <= 1) {
                             // Crea nuevo lobo que no actuará este turno
+                            myValley.record(TickStats.Event.BIRTH);
                             new WolfLotVol(myValley, r, c, true);
                             return;
                         }
@@ -166,10 +150,11 @@ public class WolfLotVol extends Mammal {
      */
     private void moveRandomly() {
         // Intenta moverse aleatoriamente
+        RandomGenerator random = myValley.random();
         int attempts = 0;
         while (attempts < 5) {
-            int newRow = row + (int)(Math.random() * 3) - 1;
-            int newCol = column + (int)(Math.random() * 3) - 1;
+            int newRow = row + random.nextInt(3) - 1;
+            int newCol = column + random.nextInt(3) - 1;
 
             if (move(newRow, newCol)) {
                 return; // Movimiento exitoso
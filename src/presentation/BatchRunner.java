@@ -0,0 +1,282 @@
+package presentation;
+
+import domain.*;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Runs the simulation without a window, for long runs on servers.
+ * It loads a scenario through {@link Fachada}, executes the requested
+ * number of tic-tacs and prints the throughput and the final population;
+ * the final state can be saved or exported. With {@code --checkpoint}
+ * the valley is saved every given number of tic-tacs in the background,
+ * keeping only the newest checkpoints, and once more at the end; with
+ * {@code --journal} every tic-tac is recorded in a journal that
+ * {@code --replay} can later open at any recorded tic-tac.
+ *
+ * <pre>
+ * java presentation.BatchRunner [--open file.dat | --import file.txt | --size rows columns | --replay file.vlj tick]
+ *                               [--ticks n] [--mode SEQUENTIAL|DOUBLE_BUFFERED|PARALLEL]
+ *                               [--seed n] [--report n] [--stats] [--save file.dat] [--export file.txt]
+ *                               [--checkpoint directory interval keep] [--journal file.vlj keyframes]
+ * </pre>
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class BatchRunner {
+
+    private static final String USAGE =
+            "Uso: java presentation.BatchRunner [--open archivo.dat | --import archivo.txt | --size filas columnas\n"
+          + "                                    | --replay archivo.vlj tic-tac]\n"
+          + "                                   [--ticks n] [--mode SEQUENTIAL|DOUBLE_BUFFERED|PARALLEL]\n"
+          + "                                   [--seed n] [--report n] [--stats] [--save archivo.dat] [--export archivo.txt]\n"
+          + "                                   [--checkpoint directorio intervalo cantidad] [--journal archivo.vlj keyframes]";
+
+    // Escenario y opciones de la corrida.
+    private File openFile;
+    private File importFile;
+    private File replayFile;
+    private long replayTick;
+    private int rows;
+    private int columns;
+    private long ticks = 1000;
+    private TickMode mode;
+    private Long seed;
+    private long report;
+    private boolean stats;
+    private File saveFile;
+    private File exportFile;
+    private File checkpointDirectory;
+    private long checkpointInterval;
+    private int checkpointKeep;
+    private File journalFile;
+    private int journalKeyframes;
+
+    public static void main(String[] args) {
+        BatchRunner runner = new BatchRunner();
+        try {
+            runner.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        try {
+            runner.run();
+        } catch (ValleyException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the command line options.
+     *
+     * @throws IllegalArgumentException if an option is unknown or invalid.
+     */
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            switch (option) {
+                case "--open":
+                    openFile = new File(value(args, ++i, option));
+                    break;
+                case "--import":
+                    importFile = new File(value(args, ++i, option));
+                    break;
+                case "--replay":
+                    replayFile = new File(value(args, ++i, option));
+                    replayTick = number(value(args, ++i, option), option, Long.MAX_VALUE);
+                    break;
+                case "--size":
+                    rows = (int) number(value(args, ++i, option), option, Integer.MAX_VALUE);
+                    columns = (int) number(value(args, ++i, option), option, Integer.MAX_VALUE);
+                    if (rows == 0 || columns == 0) {
+                        throw new IllegalArgumentException("Las filas y columnas de --size deben ser positivas");
+                    }
+                    break;
+                case "--ticks":
+                    ticks = number(value(args, ++i, option), option, Long.MAX_VALUE);
+                    break;
+                case "--mode":
+                    try {
+                        mode = TickMode.valueOf(value(args, ++i, option));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Modo desconocido: " + args[i]);
+                    }
+                    break;
+                case "--seed":
+                    try {
+                        seed = Long.parseLong(value(args, ++i, option));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Semilla invalida: " + args[i]);
+                    }
+                    break;
+                case "--report":
+                    report = number(value(args, ++i, option), option, Long.MAX_VALUE);
+                    break;
+                case "--stats":
+                    stats = true;
+                    break;
+                case "--save":
+                    saveFile = new File(value(args, ++i, option));
+                    break;
+                case "--export":
+                    exportFile = new File(value(args, ++i, option));
+                    break;
+                case "--checkpoint":
+                    checkpointDirectory = new File(value(args, ++i, option));
+                    checkpointInterval = number(value(args, ++i, option), option, Long.MAX_VALUE);
+                    checkpointKeep = (int) number(value(args, ++i, option), option, Integer.MAX_VALUE);
+                    if (checkpointInterval == 0 || checkpointKeep == 0) {
+                        throw new IllegalArgumentException("El intervalo y la cantidad de --checkpoint deben ser positivos");
+                    }
+                    break;
+                case "--journal":
+                    journalFile = new File(value(args, ++i, option));
+                    journalKeyframes = (int) number(value(args, ++i, option), option, Integer.MAX_VALUE);
+                    if (journalKeyframes == 0) {
+                        throw new IllegalArgumentException("El intervalo de keyframes de --journal debe ser positivo");
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opcion desconocida: " + option);
+            }
+        }
+    }
+
+    /**
+     * Loads the scenario, runs the tic-tacs and prints the results.
+     */
+    private void run() throws ValleyException {
+        Fachada fachada = new Fachada();
+        if (openFile != null) {
+            fachada.open(openFile);
+        } else if (importFile != null) {
+            fachada.importFile(importFile);
+        } else if (replayFile != null) {
+            fachada.replay(replayFile, replayTick);
+        } else if (rows > 0) {
+            fachada.newValley(rows, columns);
+        }
+        Valley valley = fachada.getValley();
+        if (mode != null) {
+            valley.setTickMode(mode);
+        }
+        if (seed != null) {
+            valley.setSeed(seed);
+        }
+        valley.setInstrumented(stats);
+
+        System.out.printf("Valle %dx%d, %d unidades, modo %s, semilla %d%n", valley.getRows(),
+                valley.getColumns(), valley.population(), valley.getTickMode(), valley.getSeed());
+
+        CheckpointService checkpoints = null;
+        if (checkpointDirectory != null) {
+            checkpointDirectory.mkdirs();
+            checkpoints = new CheckpointService(checkpointDirectory, "valley", checkpointInterval, checkpointKeep);
+        }
+        TickJournal journal = null;
+        if (journalFile != null) {
+            try {
+                journal = new TickJournal(journalFile, journalKeyframes);
+                journal.record(valley);
+            } catch (IOException e) {
+                throw new ValleyException("Error al escribir el diario '" + journalFile.getName() + "': " + e.getMessage());
+            }
+        }
+
+        // Corre por tramos para poder informar el avance y guardar los checkpoints; el diario registra cada tic-tac
+        long done = 0;
+        long visited = 0;
+        boolean saved = false;
+        long start = System.nanoTime();
+        while (done < ticks) {
+            long n = journal != null ? 1 : ticks - done;
+            if (report > 0) {
+                n = Math.min(n, report - done % report);
+            }
+            if (checkpoints != null) {
+                n = Math.min(n, checkpointInterval - valley.getTickCount() % checkpointInterval);
+            }
+            visited += valley.ticTac(n);
+            done += n;
+            if (report > 0 && (done % report == 0 || done == ticks)) {
+                System.out.printf("  tic-tac %d: %d unidades%n", valley.getTickCount(), valley.population());
+            }
+            if (checkpoints != null) {
+                saved = checkpoints.afterTicTac(valley);
+            }
+            if (journal != null) {
+                try {
+                    journal.record(valley);
+                } catch (IOException e) {
+                    throw new ValleyException("Error al escribir el diario '" + journalFile.getName() + "': " + e.getMessage());
+                }
+            }
+        }
+        double seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+
+        System.out.printf("Tic-tacs:          %d en %.3f s%n", done, seconds);
+        System.out.printf("Tic-tacs/s:        %.1f%n", done / seconds);
+        System.out.printf("Unidades/s:        %.1f%n", visited / seconds);
+        System.out.printf("Poblacion final:   %d%n", valley.population());
+        if (stats) {
+            System.out.print(valley.getTickStats().snapshot());
+        }
+        if (checkpoints != null) {
+            // El estado final siempre se guarda, aunque no caiga en un intervalo o el anterior siga escribiendose
+            if (!saved) {
+                try {
+                    checkpoints.await();
+                    checkpoints.checkpoint(valley);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            checkpoints.close();
+            for (CheckpointService.Checkpoint checkpoint : checkpoints.getHistory()) {
+                System.out.println("  " + checkpoint);
+            }
+            System.out.printf("Checkpoints omitidos: %d%n", checkpoints.getSkipped());
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                throw new ValleyException("Error al escribir el diario '" + journalFile.getName() + "': " + e.getMessage());
+            }
+            System.out.printf("Diario en %s: %d keyframes, %d deltas, %d bytes%n", journalFile.getPath(),
+                    journal.getKeyframes(), journal.getDeltas(), journal.getBytes());
+        }
+
+        if (saveFile != null) {
+            fachada.save(saveFile);
+            System.out.println("Guardado en " + saveFile.getPath());
+        }
+        if (exportFile != null) {
+            fachada.export(exportFile);
+            System.out.println("Exportado a " + exportFile.getPath());
+        }
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Falta el valor de " + option);
+        }
+        return args[i];
+    }
+
+    private static long number(String text, String option, long max) {
+        try {
+            long n = Long.parseLong(text);
+            if (n < 0 || n > max) {
+                throw new NumberFormatException();
+            }
+            return n;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor invalido para " + option + ": " + text);
+        }
+    }
+}
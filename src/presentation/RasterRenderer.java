@@ -0,0 +1,191 @@
+package presentation;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Keeps an image of the visible cells of the valley and draws each cell by writing its
+ * pixels straight into the {@code int[]} buffer of the image. The shapes
+ * and the energy glyphs are rendered once into masks with the same
+ * calls the panels use, so a cell is copied pixel by pixel instead of
+ * going through {@link java.awt.Graphics} for every unit.
+ *
+ * The image only covers the view of the painter, so its size depends on
+ * the panel and the cell size, not on the valley: a panel that sets its
+ * view to its visible area stays under {@link #MAX_PIXELS} for any valley.
+ *
+ * Cells of fewer than {@link #MIN_DETAIL_SIDE} pixels are filled with
+ * the color of their unit, without grid lines, shapes or glyphs; the
+ * energy glyphs need at least {@link #MIN_GLYPH_SIDE} pixels.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+class RasterRenderer {
+
+    // Pixeles maximos de la imagen (128 MB); las vistas mayores se dibujan con Graphics.
+    static final long MAX_PIXELS = 1L << 25;
+
+    // Lado minimo de una celda para dibujar cuadricula, formas y energia.
+    static final int MIN_DETAIL_SIDE = 4;
+
+    // Lado minimo de una celda para escribir el estado energetico.
+    static final int MIN_GLYPH_SIDE = 16;
+
+    private static final int WHITE = 0xFFFFFF;
+    private static final int BLACK = 0x000000;
+    private static final int RED = Color.red.getRGB() & 0xFFFFFF;
+
+    // Tamaño en pixeles de cada celda.
+    private final int side;
+
+    // Mascaras de side*side pixeles: cuadrado, circulo, energia alta y baja.
+    private final boolean[] square;
+    private final boolean[] oval;
+    private final boolean[] high;
+    private final boolean[] low;
+
+    private BufferedImage image;
+    private int[] pixels;
+    private int width;
+
+    /**
+     * Creates a renderer for cells of the given size.
+     *
+     * @param side Size in pixels of each cell.
+     */
+    RasterRenderer(int side) {
+        this.side = side;
+        square = mask(g -> g.fillRoundRect(1, 1, side - 2, side - 2, 2, 2));
+        oval = mask(g -> g.fillOval(1, 1, side - 2, side - 2));
+        high = side < MIN_GLYPH_SIDE ? new boolean[side * side]
+                : mask(g -> g.drawString("u", glyphX(side), highGlyphY(side)));
+        low = side < MIN_GLYPH_SIDE ? new boolean[side * side]
+                : mask(g -> g.drawString("~", glyphX(side), lowGlyphY(side)));
+    }
+
+    /**
+     * Returns the size in pixels of the cells drawn by this renderer.
+     */
+    int side() {
+        return side;
+    }
+
+    /**
+     * Returns where the energy glyphs start inside a cell of the given
+     * size; they keep the place they have in a cell of 20 pixels.
+     */
+    static int glyphX(int side) {
+        return side * 6 / 20;
+    }
+
+    /**
+     * Returns the baseline of the high energy glyph inside a cell of the given size.
+     */
+    static int highGlyphY(int side) {
+        return side * 15 / 20;
+    }
+
+    /**
+     * Returns the baseline of the low energy glyph inside a cell of the given size.
+     */
+    static int lowGlyphY(int side) {
+        return side * 17 / 20;
+    }
+
+    /**
+     * Returns true if an image of the given number of cells fits in the pixel budget.
+     */
+    boolean fits(int rows, int columns) {
+        return ((long) columns * side + 1) * ((long) rows * side + 1) <= MAX_PIXELS;
+    }
+
+    /**
+     * Creates an empty image for the given number of cells, with its grid lines.
+     */
+    void resize(int rows, int columns) {
+        width = columns * side + 1;
+        int height = rows * side + 1;
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        Arrays.fill(pixels, WHITE);
+        if (side < MIN_DETAIL_SIDE) {
+            return;
+        }
+        for (int y = 0; y < height; y += side) {
+            Arrays.fill(pixels, y * width, (y + 1) * width, BLACK);
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x += side) {
+                pixels[y * width + x] = BLACK;
+            }
+        }
+    }
+
+    /**
+     * Writes the pixels of one cell: white if it is empty, otherwise the
+     * shape of the unit in its color and, for animals, the energy glyph.
+     * The row and column are those of the cell inside the image.
+     *
+     * @param look What the cell shows, packed as by {@link ValleyPainter#look(Unit)}.
+     */
+    void drawCell(int r, int c, int look) {
+        int color = look == 0 ? WHITE : look & 0xFFFFFF;
+        int origin = r * side * width + c * side;
+        if (side < MIN_DETAIL_SIDE) {
+            for (int y = 0; y < side; y++) {
+                Arrays.fill(pixels, origin + y * width, origin + y * width + side, color);
+            }
+            return;
+        }
+        boolean[] shape = look == 0 ? null : ((look & ValleyPainter.SQUARE) != 0 ? square : oval);
+        boolean[] glyph = (look & ValleyPainter.HIGH_ENERGY) != 0 ? high
+                : ((look & ValleyPainter.LOW_ENERGY) != 0 ? low : null);
+        // El interior de la celda, sin las lineas de la cuadricula
+        for (int y = 1; y < side; y++) {
+            int row = origin + y * width;
+            int m = y * side;
+            for (int x = 1; x < side; x++) {
+                int pixel = WHITE;
+                if (glyph != null && glyph[m + x]) {
+                    pixel = RED;
+                } else if (shape != null && shape[m + x]) {
+                    pixel = color;
+                }
+                pixels[row + x] = pixel;
+            }
+        }
+    }
+
+    /**
+     * Returns the image of the cells.
+     */
+    BufferedImage image() {
+        return image;
+    }
+
+    /**
+     * Renders a drawing of one cell and returns which of its pixels were painted.
+     */
+    private boolean[] mask(Consumer<Graphics2D> drawing) {
+        boolean[] mask = new boolean[side * side];
+        if (side < MIN_DETAIL_SIDE) {
+            return mask;
+        }
+        BufferedImage cell = new BufferedImage(side, side, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = cell.createGraphics();
+        g.setColor(Color.black);
+        drawing.accept(g);
+        g.dispose();
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                mask[y * side + x] = (cell.getRGB(x, y) >>> 24) > 127;
+            }
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,44 @@
+package presentation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event emitted each time the valley panel is painted,
+ * with the number of cells and units drawn. The panel only creates it
+ * while a recording has it enabled.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+@Name("valley.Repaint")
+@Label("Valley Repaint")
+@Category({"Valley", "GUI"})
+@Description("Painting of the valley panel")
+@StackTrace(false)
+final class RepaintEvent extends Event {
+
+    // Tipo del evento, para saber si alguna grabacion lo pide.
+    private static final EventType TYPE = EventType.getEventType(RepaintEvent.class);
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Columns")
+    int columns;
+
+    @Label("Units")
+    int units;
+
+    /**
+     * Returns true if a running recording has the repaint events enabled.
+     */
+    static boolean isRecorded() {
+        return TYPE.isEnabled();
+    }
+}
@@ -0,0 +1,248 @@
+package presentation;
+
+import domain.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs the tic-tacs of the valley in its own thread, so a slow tic-tac
+ * never blocks the Swing event thread. The simulation can play at a
+ * target rate or as fast as possible, be paused, or advance one
+ * tic-tac at a time.
+ *
+ * After a tic-tac the worker publishes a frame, at most
+ * {@link #MAX_FRAMES_PER_SECOND} times per second: the tic-tacs run in
+ * between are not shown one by one, the next frame shows their result.
+ * Every access to the valley from other threads must hold {@link #lock()}.
+ *
+ * A tic-tac or a frame that throws, even an {@link Error} such as running
+ * out of memory, pauses the simulation: the error is handed to the
+ * failure action and the thread waits for the next order, as after
+ * {@link #pause()}.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class SimulationWorker implements Runnable {
+
+    // Cuadros publicados por segundo como maximo.
+    static final int MAX_FRAMES_PER_SECOND = 30;
+
+    private static final long FRAME_NANOS = TimeUnit.SECONDS.toNanos(1) / MAX_FRAMES_PER_SECOND;
+
+    // Candado del valle y aviso de que hay trabajo.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wake = lock.newCondition();
+
+    // Valle que se simula, accion que publica un cuadro (se llama con el candado tomado)
+    // y accion que recibe los errores (sin el candado).
+    private final Supplier<Valley> valley;
+    private final Runnable frame;
+    private final Consumer<Throwable> failure;
+
+    // Estado protegido por el candado.
+    private boolean playing;
+    private int steps;
+    private boolean stopped;
+
+    // Tic-tacs por segundo deseados; 0 es lo mas rapido posible.
+    private volatile int rate;
+
+    private volatile long ticks;
+    private long lastFrame;
+    private long nextTick;
+    private Thread thread;
+
+    /**
+     * Creates a worker, still stopped.
+     *
+     * @param valley Gives the valley to simulate; it may change between tic-tacs.
+     * @param frame Publishes the state of the valley, called by the worker
+     *        with the lock held after the tic-tacs.
+     * @param failure Receives the error of a tic-tac or a frame, called by
+     *        the worker without the lock once the simulation is paused.
+     */
+    public SimulationWorker(Supplier<Valley> valley, Runnable frame, Consumer<Throwable> failure) {
+        this.valley = valley;
+        this.frame = frame;
+        this.failure = failure;
+    }
+
+    /**
+     * Starts the thread of the worker, paused.
+     */
+    public void start() {
+        thread = new Thread(this, "valley-simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns the lock that guards the valley.
+     */
+    public ReentrantLock lock() {
+        return lock;
+    }
+
+    /**
+     * Runs tic-tacs continuously until paused.
+     */
+    public void play() {
+        signal(() -> playing = true);
+    }
+
+    /**
+     * Stops after the tic-tac in progress. When it returns no more
+     * tic-tacs run until {@link #play()} or {@link #step()}.
+     */
+    public void pause() {
+        signal(() -> {
+            playing = false;
+            steps = 0;
+        });
+    }
+
+    /**
+     * Runs one more tic-tac, if paused.
+     */
+    public void step() {
+        signal(() -> {
+            if (!playing) {
+                steps++;
+            }
+        });
+    }
+
+    /**
+     * Stops the thread for good and waits for it to end, unless called
+     * from the worker itself.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void stop() throws InterruptedException {
+        signal(() -> stopped = true);
+        if (thread != null && thread != Thread.currentThread()) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Sets the tic-tacs per second while playing.
+     *
+     * @param ticksPerSecond Target rate; 0 runs as fast as possible.
+     */
+    public void setRate(int ticksPerSecond) {
+        if (ticksPerSecond < 0) {
+            throw new IllegalArgumentException("Negative rate: " + ticksPerSecond);
+        }
+        rate = ticksPerSecond;
+    }
+
+    /**
+     * Returns the tic-tacs per second while playing; 0 is as fast as possible.
+     */
+    public int getRate() {
+        return rate;
+    }
+
+    /**
+     * Returns true if the simulation is playing.
+     */
+    public boolean isPlaying() {
+        lock.lock();
+        try {
+            return playing;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of tic-tacs run by the worker.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            boolean last;
+            Throwable error = null;
+            lock.lock();
+            try {
+                while (!stopped && !playing && steps == 0) {
+                    wake.await();
+                }
+                if (stopped) {
+                    return;
+                }
+                if (steps > 0) {
+                    steps--;
+                }
+                try {
+                    valley.get().ticTac();
+                    ticks++;
+
+                    // Publica un cuadro si ya toca o si la simulacion se detiene
+                    last = !playing && steps == 0;
+                    long now = System.nanoTime();
+                    if (last || now - lastFrame >= FRAME_NANOS) {
+                        lastFrame = now;
+                        frame.run();
+                    }
+                } catch (Throwable e) {
+                    // Un error pausa la simulacion; el hilo sigue esperando ordenes
+                    playing = false;
+                    steps = 0;
+                    last = true;
+                    error = e;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            if (error != null) {
+                failure.accept(error);
+            } else if (!last) {
+                pace();
+            }
+        }
+    }
+
+    /**
+     * Waits until the next tic-tac is due at the target rate.
+     */
+    private void pace() {
+        int r = rate;
+        long now = System.nanoTime();
+        if (r == 0) {
+            nextTick = now;
+            return;
+        }
+        long period = TimeUnit.SECONDS.toNanos(1) / r;
+        // Si va atrasado mas de un periodo no intenta recuperar los tic-tacs perdidos
+        nextTick += period;
+        if (nextTick < now - period) {
+            nextTick = now;
+        }
+        while ((now = System.nanoTime()) < nextTick) {
+            LockSupport.parkNanos(nextTick - now);
+        }
+    }
+
+    private void signal(Runnable change) {
+        lock.lock();
+        try {
+            change.run();
+            wake.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -25,8 +25,11 @@ public class ValleyGUI extends JFrame {
     // Tamaño en píxeles de cada celda de la cuadrícula.
     public static final int SIDE = 20;
 
-    // Tamaño total del valle (número de celdas por lado).
-    public final int SIZE;
+    // Número de filas del valle.
+    public final int ROWS;
+
+    // Número de columnas del valle.
+    public final int COLUMNS;
 
     // Botón que ejecuta un paso en la simulación (un "tic-tac").
     private JButton ticTacButton;
@@ -43,7 +46,8 @@ public class ValleyGUI extends JFrame {
      */
     private ValleyGUI() {
         theValley = new Valley(); // Se crea el modelo del valle
-        SIZE = theValley.getSize(); // Se obtiene el tamaño del valle desde el modelo
+        ROWS = theValley.getRows(); // Se obtienen las dimensiones del valle desde el modelo
+        COLUMNS = theValley.getColumns();
         prepareElements(); // Configura los elementos gráficos
         prepareActions();  // Asocia los eventos del botón y la ventana
     }
@@ -62,7 +66,7 @@ public class ValleyGUI extends JFrame {
         add(ticTacButton, BorderLayout.SOUTH); // Agrega el botón inferior
 
         // Ajusta el tamaño de la ventana según el tamaño del valle
-        setSize(new Dimension(SIDE * SIZE + 15, SIDE * SIZE + 72));
+        setSize(new Dimension(SIDE * COLUMNS + 15, SIDE * ROWS + 72));
         setResizable(false); // Se evita el cambio de tamaño manual
         photo.repaint();     // Redibuja el valle al iniciar
         
@@ -89,8 +93,8 @@ public class ValleyGUI extends JFrame {
      * This method updates the model and refreshes the graphical representation.
      */
     private void ticTacButtonAction() {
-        theValley.ticTac(); // Avanza un ciclo en la simulación
-        photo.repaint();    // Redibuja el valle con los cambios
+        theValley.ticTac();      // Avanza un ciclo en la simulación
+        photo.repaintChanges();  // Redibuja solo las celdas que cambiaron
     }
 
     /**
@@ -126,6 +130,9 @@ class PhotoValley extends JPanel {
     /** Referencia a la interfaz principal para acceder al modelo y sus constantes. */
     private ValleyGUI gui;
 
+    // Dibuja el valle y recuerda lo dibujado para repintar solo lo que cambia.
+    private final ValleyPainter painter = new ValleyPainter(ValleyGUI.SIDE);
+
     /**
      * Constructs a new PhotoValley panel linked to the given ValleyGUI.
      *
@@ -134,53 +141,24 @@ class PhotoValley extends JPanel {
     public PhotoValley(ValleyGUI gui) {
         this.gui = gui; // Se guarda la referencia a la GUI principal
         setBackground(Color.white); // Fondo blanco para el valle
-        setPreferredSize(new Dimension(gui.SIDE * gui.SIZE + 10, gui.SIDE * gui.SIZE + 10)); // Tamaño del panel
+        setPreferredSize(new Dimension(gui.SIDE * gui.COLUMNS + 10, gui.SIDE * gui.ROWS + 10)); // Tamaño del panel
     }
 
     /**
-     * Draws the grid representing the valley and all units in it.
+     * Draws the grid and the units inside the area being repainted.
      * Automatically called by Swing when the panel needs to be redrawn.
      *
      * @param g Graphics object used for drawing operations.
      */
     public void paintComponent(Graphics g) {
-        Valley theValley = gui.gettheValley(); // Obtiene el modelo del valle actual
         super.paintComponent(g);
+        painter.paint(g, gui.gettheValley());
+    }
 
-        // --- Dibuja las líneas de la cuadrícula ---
-        for (int c = 0; c <= theValley.getSize(); c++) {
-            g.drawLine(c * gui.SIDE, 0, c * gui.SIDE, theValley.getSize() * gui.SIDE);
-        }
-        for (int f = 0; f <= theValley.getSize(); f++) {
-            g.drawLine(0, f * gui.SIDE, theValley.getSize() * gui.SIDE, f * gui.SIDE);
-        }
-
-        // --- Recorre todas las posiciones para dibujar las unidades ---
-        for (int f = 0; f < theValley.getSize(); f++) {
-            for (int c = 0; c < theValley.getSize(); c++) {
-
-                if (theValley.getUnit(f, c) != null) {
-                    // Color base de la unidad
-                    g.setColor(theValley.getUnit(f, c).getColor());
-
-                    // Forma: cuadrado o círculo
-                    if (theValley.getUnit(f, c).shape() == Unit.SQUARE) {
-                        g.fillRoundRect(gui.SIDE * c + 1, gui.SIDE * f + 1, gui.SIDE - 2, gui.SIDE - 2, 2, 2);
-                    } else {
-                        g.fillOval(gui.SIDE * c + 1, gui.SIDE * f + 1, gui.SIDE - 2, gui.SIDE - 2);
-                    }
-
-                    // Si la unidad es un animal, muestra su estado energético
-                    if (theValley.getUnit(f, c).isAnimal()) {
-                        g.setColor(Color.red);
-                        if (((Animal) theValley.getUnit(f, c)).getEnergy() >= 50) {
-                            g.drawString("u", gui.SIDE * c + 6, gui.SIDE * f + 15); // Energía alta
-                        } else {
-                            g.drawString("~", gui.SIDE * c + 6, gui.SIDE * f + 17); // Energía baja
-                        }
-                    }
-                }
-            }
-        }
+    /**
+     * Repaints the cells that changed in the last tic-tac.
+     */
+    public void repaintChanges() {
+        painter.repaintChanges(gui.gettheValley(), this);
     }
 }
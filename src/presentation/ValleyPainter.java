@@ -0,0 +1,431 @@
+package presentation;
+
+import domain.*;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.Arrays;
+import javax.swing.JComponent;
+
+/**
+ * Draws a valley in a Swing component and keeps what was last drawn in
+ * each cell, so that after a tic-tac only the cells that look different
+ * are repainted. Both valley panels share it.
+ *
+ * The painter shows a view of the valley: the cells from a first row and
+ * column that fit in a given width and height, at a given cell size. It
+ * only reads and remembers those cells, through the range query of the
+ * valley, so its cost depends on the size of the view, not on the size
+ * of the valley. By default the view is the whole valley.
+ *
+ * The painter only draws the cells inside the clip of the graphics, so
+ * repainting a few cell rectangles costs a few cells, not the whole view.
+ * In raster mode it keeps an image of the view, updated cell by cell
+ * with a {@link RasterRenderer}, and painting only copies that image.
+ *
+ * Painting uses only what the painter remembers, never the valley, so
+ * the valley can keep changing in another thread while Swing paints the
+ * last frame; {@link #repaintChanges(Valley, JComponent)} is the only
+ * method that reads the valley. A view too large to remember cell by
+ * cell keeps instead the occupied cells of the last frame, so it is
+ * painted from memory too.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class ValleyPainter {
+
+    // Area maxima cuyo aspecto se recuerda celda por celda; las vistas mayores recuerdan solo las ocupadas.
+    static final long MAX_TRACKED_AREA = 1L << 24;
+
+    // Numero de celdas cambiadas a partir del cual se redibuja todo el panel.
+    static final int MAX_DIRTY_CELLS = 512;
+
+    // Bits del aspecto de una celda, ademas de su color.
+    static final int PRESENT = 1 << 24;
+    static final int SQUARE = 1 << 25;
+    static final int HIGH_ENERGY = 1 << 26;
+    static final int LOW_ENERGY = 1 << 27;
+
+    // Vista: tamaño en pixeles de cada celda, primera celda y tamaño en pixeles (0 es todo el valle).
+    private int side;
+    private int viewRow;
+    private int viewColumn;
+    private int viewWidth;
+    private int viewHeight;
+
+    // Valle dibujado y tic-tacs vistos.
+    private Valley valley;
+    private long tickCount;
+
+    // Celdas visibles y aspecto de cada una, fila por fila.
+    private int top;
+    private int left;
+    private int rows;
+    private int columns;
+    private int[] looks;
+
+    // Si la vista es demasiado grande: celdas ocupadas, en orden de fila, y su aspecto.
+    private long[] shown = new long[0];
+    private int[] shownLooks = new int[0];
+    private int shownCount;
+
+    // Celdas repintadas por la llamada en curso.
+    private int dirty;
+
+    // Recuerda las celdas ocupadas de una vista demasiado grande.
+    private final UnitVisitor occupied = (r, c, u) -> {
+        if (shownCount == shown.length) {
+            shown = Arrays.copyOf(shown, Math.max(64, shownCount * 2));
+            shownLooks = Arrays.copyOf(shownLooks, shown.length);
+        }
+        shown[shownCount] = (long) (r - top) * columns + (c - left);
+        shownLooks[shownCount] = look(u);
+        shownCount++;
+    };
+
+    // Colores ya creados, indexados por los bits bajos de su valor.
+    private final Color[] colors = new Color[256];
+
+    // Imagen de la vista para el modo raster, y si corresponde al valle dibujado.
+    private boolean rasterMode;
+    private RasterRenderer raster;
+    private boolean rasterValid;
+
+    /**
+     * Creates a painter for cells of the given size, showing the whole valley.
+     *
+     * @param side Size in pixels of each cell.
+     */
+    public ValleyPainter(int side) {
+        this.side = side;
+    }
+
+    /**
+     * Changes the part of the valley that is shown. The new view is read
+     * from the valley at the next call to
+     * {@link #repaintChanges(Valley, JComponent)}.
+     *
+     * @param side Size in pixels of each cell.
+     * @param firstRow First row shown.
+     * @param firstColumn First column shown.
+     * @param width Width in pixels of the view; 0 shows every column.
+     * @param height Height in pixels of the view; 0 shows every row.
+     */
+    public synchronized void setView(int side, int firstRow, int firstColumn, int width, int height) {
+        if (side <= 0) {
+            throw new IllegalArgumentException("Invalid cell size: " + side);
+        }
+        this.side = side;
+        viewRow = Math.max(0, firstRow);
+        viewColumn = Math.max(0, firstColumn);
+        viewWidth = Math.max(0, width);
+        viewHeight = Math.max(0, height);
+        valley = null;
+    }
+
+    /**
+     * Draws the given valley. A valley never seen before is read first,
+     * so this is only for valleys that do not change in other threads;
+     * otherwise use {@link #paint(Graphics)}.
+     *
+     * @param g Graphics to draw on.
+     * @param theValley Valley to draw.
+     */
+    synchronized void paint(Graphics g, Valley theValley) {
+        if (theValley != valley) {
+            rebuild(theValley);
+        }
+        paint(g);
+    }
+
+    /**
+     * Draws the grid lines and the units of the visible cells inside the
+     * clip, as they were at the last call to
+     * {@link #repaintChanges(Valley, JComponent)}, without reading the
+     * valley. The first visible cell is drawn at the origin of the
+     * graphics. Nothing is drawn before the first call.
+     *
+     * @param g Graphics to draw on.
+     */
+    synchronized void paint(Graphics g) {
+        if (valley == null) {
+            return;
+        }
+        if (rasterValid) {
+            g.drawImage(raster.image(), 0, 0, null);
+            return;
+        }
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, columns * side + 1, rows * side + 1);
+        }
+        int firstRow = Math.max(0, clip.y / side - 1);
+        int lastRow = Math.min(rows - 1, (clip.y + clip.height) / side);
+        int firstColumn = Math.max(0, clip.x / side - 1);
+        int lastColumn = Math.min(columns - 1, (clip.x + clip.width) / side);
+        if (firstRow > lastRow || firstColumn > lastColumn) {
+            return;
+        }
+
+        // Lineas de la cuadricula visibles, si las celdas son bastante grandes
+        if (side >= RasterRenderer.MIN_DETAIL_SIDE) {
+            int y0 = firstRow * side;
+            int y1 = (lastRow + 1) * side;
+            int x0 = firstColumn * side;
+            int x1 = (lastColumn + 1) * side;
+            for (int c = firstColumn; c <= lastColumn + 1; c++) {
+                g.drawLine(c * side, y0, c * side, y1);
+            }
+            for (int f = firstRow; f <= lastRow + 1; f++) {
+                g.drawLine(x0, f * side, x1, f * side);
+            }
+        }
+
+        // Unidades visibles, leyendo cada celda una sola vez
+        for (int f = firstRow; f <= lastRow; f++) {
+            if (looks == null) {
+                paintShown(g, f, firstColumn, lastColumn);
+                continue;
+            }
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                int look = looks[f * columns + c];
+                if (look != 0) {
+                    paintUnit(g, look, color(look & 0xFFFFFF), f, c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws the remembered occupied cells of one row of a view too large
+     * to remember cell by cell, between the given columns.
+     */
+    private void paintShown(Graphics g, int f, int firstColumn, int lastColumn) {
+        long first = (long) f * columns;
+        int i = Arrays.binarySearch(shown, 0, shownCount, first + firstColumn);
+        for (i = i < 0 ? -i - 1 : i; i < shownCount && shown[i] <= first + lastColumn; i++) {
+            int look = shownLooks[i];
+            paintUnit(g, look, color(look & 0xFFFFFF), f, (int) (shown[i] - first));
+        }
+    }
+
+    /**
+     * Returns a color with the given RGB value, reusing the last one
+     * created with the same low bits.
+     */
+    private Color color(int rgb) {
+        int slot = (rgb ^ (rgb >>> 8) ^ (rgb >>> 16)) & (colors.length - 1);
+        Color color = colors[slot];
+        if (color == null || (color.getRGB() & 0xFFFFFF) != rgb) {
+            color = new Color(rgb);
+            colors[slot] = color;
+        }
+        return color;
+    }
+
+    /**
+     * Draws one unit: its shape in its color and, for animals, the energy
+     * glyph. Small cells are only filled with the color.
+     *
+     * @param f Row of the cell inside the view.
+     * @param c Column of the cell inside the view.
+     */
+    private void paintUnit(Graphics g, int look, Color color, int f, int c) {
+        g.setColor(color);
+        if (side < RasterRenderer.MIN_DETAIL_SIDE) {
+            g.fillRect(side * c, side * f, side, side);
+            return;
+        }
+        if ((look & SQUARE) != 0) {
+            g.fillRoundRect(side * c + 1, side * f + 1, side - 2, side - 2, 2, 2);
+        } else {
+            g.fillOval(side * c + 1, side * f + 1, side - 2, side - 2);
+        }
+
+        // Si la unidad es un animal, muestra su estado energético
+        if ((look & (HIGH_ENERGY | LOW_ENERGY)) != 0 && side >= RasterRenderer.MIN_GLYPH_SIDE) {
+            int x = side * c + RasterRenderer.glyphX(side);
+            g.setColor(Color.red);
+            if ((look & HIGH_ENERGY) != 0) {
+                g.drawString("u", x, side * f + RasterRenderer.highGlyphY(side)); // Energía alta
+            } else {
+                g.drawString("~", x, side * f + RasterRenderer.lowGlyphY(side)); // Energía baja
+            }
+        }
+    }
+
+    /**
+     * Finds the visible cells that look different since the last call and
+     * asks the view to repaint only their rectangles. After one tic-tac
+     * the candidates are only the visible cells of its change set, which
+     * also lists the animals whose energy changed without moving, so the
+     * cost follows the number of changes; after several tic-tacs every
+     * visible cell is compared. A new valley, a new view, or too many
+     * changes, repaint the whole view.
+     *
+     * The valley must not change during the call; the view may be
+     * repainted from any thread.
+     *
+     * @param theValley Valley shown by the view.
+     * @param view Component where the valley is painted.
+     */
+    public synchronized void repaintChanges(Valley theValley, JComponent view) {
+        if (theValley != valley || looks == null) {
+            rebuild(theValley);
+            view.repaint();
+            return;
+        }
+
+        long now = theValley.getTickCount();
+        dirty = 0;
+        if (now == tickCount + 1) {
+            ChangeSet changes = theValley.getChanges();
+            for (int i = 0; i < changes.size(); i++) {
+                dirty += check(changes.fromRow(i), changes.fromColumn(i), view);
+                dirty += check(changes.toRow(i), changes.toColumn(i), view);
+            }
+        } else if (now != tickCount) {
+            // Varios tic-tacs desde el ultimo cuadro: se compara toda la vista
+            for (int r = top; r < top + rows; r++) {
+                for (int c = left; c < left + columns; c++) {
+                    dirty += check(r, c, view);
+                }
+            }
+        }
+        tickCount = now;
+        if (dirty > MAX_DIRTY_CELLS) {
+            view.repaint();
+        }
+    }
+
+    /**
+     * Compares the look of a cell of the valley with the one last drawn
+     * and, if it differs, remembers it and repaints the cell. Cells out of
+     * the view are ignored.
+     *
+     * @return 1 if the cell changed, 0 otherwise.
+     */
+    private int check(int r, int c, JComponent view) {
+        int f = r - top;
+        int k = c - left;
+        if (f < 0 || f >= rows || k < 0 || k >= columns) {
+            return 0;
+        }
+        int i = f * columns + k;
+        int now = look(valley.getUnit(r, c));
+        if (looks[i] == now) {
+            return 0;
+        }
+        looks[i] = now;
+        if (rasterValid) {
+            raster.drawCell(f, k, now);
+        }
+        view.repaint(k * side, f * side, side + 1, side + 1);
+        return 1;
+    }
+
+    /**
+     * Takes the given valley as the one drawn: finds the cells of the
+     * view, remembers their look and, in raster mode, draws the image of
+     * the view again.
+     */
+    private void rebuild(Valley theValley) {
+        valley = theValley;
+        tickCount = theValley.getTickCount();
+        top = Math.min(viewRow, Math.max(0, theValley.getRows() - 1));
+        left = Math.min(viewColumn, Math.max(0, theValley.getColumns() - 1));
+        rows = shown(theValley.getRows() - top, viewHeight);
+        columns = shown(theValley.getColumns() - left, viewWidth);
+        long area = (long) rows * columns;
+        looks = area <= MAX_TRACKED_AREA ? new int[(int) area] : null;
+
+        // El modo raster necesita el aspecto de cada celda para actualizar la imagen
+        rasterValid = false;
+        if (rasterMode && looks != null) {
+            if (raster == null || raster.side() != side) {
+                raster = new RasterRenderer(side);
+            }
+            if (raster.fits(rows, columns)) {
+                raster.resize(rows, columns);
+                rasterValid = true;
+            }
+        }
+        shownCount = 0;
+        if (looks == null) {
+            theValley.forEachUnit(top, left, top + rows - 1, left + columns - 1, occupied);
+        } else {
+            theValley.forEachUnit(top, left, top + rows - 1, left + columns - 1, (r, c, u) -> {
+                int i = (r - top) * columns + (c - left);
+                looks[i] = look(u);
+                if (rasterValid) {
+                    raster.drawCell(r - top, c - left, looks[i]);
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns how many cells of a row or column are shown.
+     *
+     * @param available Cells of the valley from the first one shown.
+     * @param pixels Size in pixels of the view; 0 shows every cell.
+     */
+    private int shown(int available, int pixels) {
+        if (pixels == 0) {
+            return available;
+        }
+        // La ultima celda puede verse solo en parte
+        return Math.min(available, (pixels + side - 1) / side);
+    }
+
+    /**
+     * Turns the raster mode on or off, drawing the image again from what
+     * the painter remembers.
+     *
+     * @param on true to paint from a cached image of the view.
+     */
+    synchronized void setRaster(boolean on) {
+        rasterMode = on;
+        rasterValid = false;
+        if (on && looks != null) {
+            if (raster == null || raster.side() != side) {
+                raster = new RasterRenderer(side);
+            }
+            if (raster.fits(rows, columns)) {
+                raster.resize(rows, columns);
+                for (int i = 0; i < looks.length; i++) {
+                    if (looks[i] != 0) {
+                        raster.drawCell(i / columns, i % columns, looks[i]);
+                    }
+                }
+                rasterValid = true;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the painter is in raster mode.
+     */
+    synchronized boolean isRaster() {
+        return rasterMode;
+    }
+
+    /**
+     * Packs what is drawn for a unit in one int: its color, its shape and
+     * its energy glyph; 0 for an empty cell.
+     */
+    static int look(Unit unit) {
+        if (unit == null) {
+            return 0;
+        }
+        int look = PRESENT | (unit.getColor().getRGB() & 0xFFFFFF);
+        if (unit.shape() == Unit.SQUARE) {
+            look |= SQUARE;
+        }
+        if (unit.isAnimal()) {
+            look |= ((Animal) unit).getEnergy() >= 50 ? HIGH_ENERGY : LOW_ENERGY;
+        }
+        return look;
+    }
+}
@@ -23,12 +23,24 @@ public class VentanaValley extends JFrame {
     private JMenuItem itemImportar;
     private JMenuItem itemExportar;
     private JMenuItem itemSalir;
+    private JMenu menuVista;
+    private JCheckBoxMenuItem itemRaster;
+    private JMenuItem itemAcercar;
+    private JMenuItem itemAlejar;
     
     private Fachada fachada;
     private PhotoValleyPanel photoValley;
+    private JButton playButton;
     private JButton ticTacButton;
+    private JComboBox<String> speedBox;
+
+    // Hilo que ejecuta los tic-tacs fuera del hilo de eventos.
+    private SimulationWorker worker;
     
     public static final int SIDE = 20;
+
+    // Velocidades ofrecidas en tic-tacs por segundo; 0 es lo mas rapido posible.
+    private static final int[] SPEEDS = {1, 5, 10, 30, 60, 0};
     
     public VentanaValley() {
         super("Valley Simulation");
@@ -36,10 +48,10 @@ public class VentanaValley extends JFrame {
         prepareElementsMenu();
         prepareElementsView();
         prepareActionsMenu();
+        prepareSimulation();
         
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         pack();
-        setResizable(false);
         setLocationRelativeTo(null);
         setVisible(true);
     }
@@ -77,27 +89,144 @@ public class VentanaValley extends JFrame {
 
         itemSalir = new JMenuItem("Salir");
         menuArchivo.add(itemSalir);
+
+        menuVista = new JMenu("Vista");
+        menuBar.add(menuVista);
+
+        itemRaster = new JCheckBoxMenuItem("Dibujo por pixeles");
+        menuVista.add(itemRaster);
+
+        menuVista.addSeparator();
+
+        itemAcercar = new JMenuItem("Acercar");
+        menuVista.add(itemAcercar);
+
+        itemAlejar = new JMenuItem("Alejar");
+        menuVista.add(itemAlejar);
     }
 
     /**
-     * Prepares the valley visualization panel and control button.
+     * Prepares the valley visualization panel and the simulation controls.
      */
     private void prepareElementsView() {
         photoValley = new PhotoValleyPanel(this);
+        playButton = new JButton("Iniciar");
         ticTacButton = new JButton("Tic-tac");
+        speedBox = new JComboBox<>();
+        for (int speed : SPEEDS) {
+            speedBox.addItem(speed == 0 ? "Maxima" : speed + " tic-tacs/s");
+        }
+        speedBox.setSelectedIndex(2);
+
+        JPanel controls = new JPanel(new FlowLayout());
+        controls.add(playButton);
+        controls.add(ticTacButton);
+        controls.add(new JLabel("Velocidad"));
+        controls.add(speedBox);
         
         setLayout(new BorderLayout());
         add(photoValley, BorderLayout.CENTER);
-        add(ticTacButton, BorderLayout.SOUTH);
-        
+        add(controls, BorderLayout.SOUTH);
+    }
+
+    /**
+     * Starts the simulation thread, paused, and connects the controls to it.
+     * The thread publishes its frames through the panel, which repaints
+     * only the cells that changed, and its errors through a message.
+     */
+    private void prepareSimulation() {
+        worker = new SimulationWorker(fachada::getValley, photoValley::repaintChanges, this::simulationFailed);
+        worker.setRate(SPEEDS[speedBox.getSelectedIndex()]);
+        worker.start();
+
+        playButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                if (worker.isPlaying()) {
+                    pauseSimulation();
+                } else {
+                    worker.play();
+                    playButton.setText("Pausar");
+                    ticTacButton.setEnabled(false);
+                }
+            }
+        });
+
         ticTacButton.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent e) {
-                fachada.getValley().ticTac();
-                photoValley.repaint();
+                worker.step();
+            }
+        });
+
+        speedBox.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                worker.setRate(SPEEDS[speedBox.getSelectedIndex()]);
             }
         });
     }
 
+    /**
+     * Pauses the simulation after the tic-tac in progress.
+     */
+    private void pauseSimulation() {
+        worker.pause();
+        playButton.setText("Iniciar");
+        ticTacButton.setEnabled(true);
+    }
+
+    /**
+     * Shows the error that paused the simulation. Called by the
+     * simulation thread; the window is updated on the event thread.
+     */
+    private void simulationFailed(Throwable error) {
+        // Algunos errores, como el desbordamiento de pila, no tienen mensaje
+        String message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        SwingUtilities.invokeLater(() -> {
+            playButton.setText("Iniciar");
+            ticTacButton.setEnabled(true);
+            photoValley.applyView();
+            JOptionPane.showMessageDialog(this, "La simulacion se detuvo por un error: " + message,
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    /**
+     * Operation on the valley of the facade.
+     */
+    private interface ValleyAction {
+        void run() throws ValleyException;
+    }
+
+    /**
+     * Pauses the simulation and runs an operation holding the lock of
+     * the valley, so no tic-tac runs while the valley is read or replaced.
+     */
+    private void runPaused(ValleyAction action) throws ValleyException {
+        pauseSimulation();
+        worker.lock().lock();
+        try {
+            action.run();
+        } finally {
+            worker.lock().unlock();
+        }
+    }
+
+    /**
+     * Runs an action holding the lock of the valley, so no tic-tac runs
+     * while the valley is read. Used by the panel to change its view.
+     */
+    void runLocked(Runnable action) {
+        if (worker == null) {
+            action.run();
+            return;
+        }
+        worker.lock().lock();
+        try {
+            action.run();
+        } finally {
+            worker.lock().unlock();
+        }
+    }
+
     /**
      * Configures action listeners for menu items.
      */
@@ -137,6 +266,24 @@ public class VentanaValley extends JFrame {
                 optionExit();
             }
         });
+
+        itemRaster.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                photoValley.setRaster(itemRaster.isSelected());
+            }
+        });
+
+        itemAcercar.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                photoValley.zoomIn();
+            }
+        });
+
+        itemAlejar.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                photoValley.zoomOut();
+            }
+        });
     }
 
     /**
@@ -144,8 +291,8 @@ public class VentanaValley extends JFrame {
      */
     private void optionNew() {
         try {
-            fachada.newValley();
-            photoValley.repaint();
+            runPaused(() -> fachada.newValley());
+            refreshView();
             JOptionPane.showMessageDialog(this, "Nuevo valle creado exitosamente");
         } catch (ValleyException ex) {
             JOptionPane.showMessageDialog(this, ex.getMessage(), 
@@ -165,8 +312,8 @@ public class VentanaValley extends JFrame {
         if (result == JFileChooser.APPROVE_OPTION) {
             try {
                 File file = fileChooser.getSelectedFile();
-                fachada.open(file);
-                photoValley.repaint();
+                runPaused(() -> fachada.open(file));
+                refreshView();
                 JOptionPane.showMessageDialog(this, "Archivo abierto correctamente");
             } catch (ValleyException ex) {
                 JOptionPane.showMessageDialog(this, ex.getMessage(), 
@@ -190,7 +337,8 @@ public class VentanaValley extends JFrame {
                 if (!file.getName().endsWith(".dat")) {
                     file = new File(file.getAbsolutePath() + ".dat");
                 }
-                fachada.save(file);
+                File target = file;
+                runPaused(() -> fachada.save(target));
                 JOptionPane.showMessageDialog(this, "Archivo guardado correctamente");
             } catch (ValleyException ex) {
                 JOptionPane.showMessageDialog(this, ex.getMessage(), 
@@ -211,8 +359,8 @@ public class VentanaValley extends JFrame {
         if (result == JFileChooser.APPROVE_OPTION) {
             try {
                 File file = fileChooser.getSelectedFile();
-                fachada.importFile(file);
-                photoValley.repaint();
+                runPaused(() -> fachada.importFile(file));
+                refreshView();
                 JOptionPane.showMessageDialog(this, "Archivo importado correctamente");
             } catch (ValleyException ex) {
                 JOptionPane.showMessageDialog(this, ex.getMessage(), 
@@ -236,7 +384,8 @@ public class VentanaValley extends JFrame {
                 if (!file.getName().endsWith(".txt")) {
                     file = new File(file.getAbsolutePath() + ".txt");
                 }
-                fachada.export(file);
+                File target = file;
+                runPaused(() -> fachada.export(target));
                 JOptionPane.showMessageDialog(this, "Archivo exportado correctamente");
             } catch (ValleyException ex) {
                 JOptionPane.showMessageDialog(this, ex.getMessage(), 
@@ -261,6 +410,21 @@ public class VentanaValley extends JFrame {
         }
     }
     
+    /**
+     * Resizes the window to the dimensions of the current valley, up to
+     * the maximum size of the panel, and shows it from its first cell.
+     */
+    private void refreshView() {
+        worker.lock().lock();
+        try {
+            photoValley.resetView();
+            pack();
+            photoValley.applyView();
+        } finally {
+            worker.lock().unlock();
+        }
+    }
+
     /**
      * Returns the current valley from the facade.
      * Used by PhotoValleyPanel to render the valley.
@@ -281,87 +445,206 @@ public class VentanaValley extends JFrame {
  */
 class PhotoValleyPanel extends JPanel {
 
+    // Tamaños de celda ofrecidos por el zoom, en pixeles.
+    static final int[] ZOOMS = {1, 2, 3, 4, 6, 8, 12, 16, 20, 28, 40};
+
+    // Tamaño maximo preferido del panel; los valles mayores se recorren arrastrando.
+    static final int MAX_WIDTH = 1000;
+    static final int MAX_HEIGHT = 700;
+
     private VentanaValley ventana;
 
+    // Dibuja el valle y recuerda lo dibujado para repintar solo lo que cambia.
+    private final ValleyPainter painter = new ValleyPainter(VentanaValley.SIDE);
+
+    // Vista: tamaño de celda y primera celda visible.
+    private int side = VentanaValley.SIDE;
+    private int firstRow;
+    private int firstColumn;
+
+    // Punto donde sigue el arrastre del raton.
+    private Point drag;
+
     /**
      * Constructs a new PhotoValleyPanel linked to the given VentanaValley.
+     * The mouse wheel zooms around the pointer and dragging moves the view.
      *
      * @param ventana Main window that holds the valley model.
      */
     public PhotoValleyPanel(VentanaValley ventana) {
         this.ventana = ventana;
         setBackground(Color.white);
-        int size = ventana.getValley().getSize();
+        updateSize();
+
+        MouseAdapter mouse = new MouseAdapter() {
+            public void mousePressed(MouseEvent e) {
+                drag = e.getPoint();
+            }
+
+            public void mouseDragged(MouseEvent e) {
+                pan(e.getPoint());
+            }
+
+            public void mouseReleased(MouseEvent e) {
+                drag = null;
+            }
+
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoom(-e.getWheelRotation(), e.getPoint());
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
+
+        addComponentListener(new ComponentAdapter() {
+            public void componentResized(ComponentEvent e) {
+                applyView();
+            }
+        });
+    }
+
+    /**
+     * Adjusts the preferred size of the panel to the dimensions
+     * of the current valley, up to {@link #MAX_WIDTH} by {@link #MAX_HEIGHT}.
+     */
+    public void updateSize() {
+        Valley theValley = ventana.getValley();
         setPreferredSize(new Dimension(
-            VentanaValley.SIDE * size + 10, 
-            VentanaValley.SIDE * size + 10
+            Math.min(side * theValley.getColumns() + 10, MAX_WIDTH),
+            Math.min(side * theValley.getRows() + 10, MAX_HEIGHT)
         ));
     }
 
     /**
-     * Draws the grid representing the valley and all units in it.
+     * Shows the valley from its first cell at the default cell size.
+     */
+    public void resetView() {
+        side = VentanaValley.SIDE;
+        firstRow = 0;
+        firstColumn = 0;
+        updateSize();
+    }
+
+    /**
+     * Makes the cells bigger, keeping the center of the panel in place.
+     */
+    public void zoomIn() {
+        zoom(1, new Point(getWidth() / 2, getHeight() / 2));
+    }
+
+    /**
+     * Makes the cells smaller, keeping the center of the panel in place.
+     */
+    public void zoomOut() {
+        zoom(-1, new Point(getWidth() / 2, getHeight() / 2));
+    }
+
+    /**
+     * Moves through the zoom levels, keeping the cell under a point in place.
+     *
+     * @param steps Levels to move; positive makes the cells bigger.
+     * @param anchor Point of the panel that stays over the same cell.
+     */
+    private void zoom(int steps, Point anchor) {
+        int level = 0;
+        while (level < ZOOMS.length - 1 && ZOOMS[level] < side) {
+            level++;
+        }
+        int next = ZOOMS[Math.max(0, Math.min(ZOOMS.length - 1, level + steps))];
+        if (next == side) {
+            return;
+        }
+        int row = firstRow + anchor.y / side;
+        int column = firstColumn + anchor.x / side;
+        side = next;
+        firstRow = row - anchor.y / side;
+        firstColumn = column - anchor.x / side;
+        applyView();
+    }
+
+    /**
+     * Moves the view with the mouse, by whole cells, so the cells keep
+     * their place on the grid and the remembered looks stay aligned.
+     */
+    private void pan(Point to) {
+        if (drag == null) {
+            return;
+        }
+        int rows = (to.y - drag.y) / side;
+        int columns = (to.x - drag.x) / side;
+        if (rows == 0 && columns == 0) {
+            return;
+        }
+        firstRow -= rows;
+        firstColumn -= columns;
+        drag.translate(columns * side, rows * side);
+        applyView();
+    }
+
+    /**
+     * Keeps the view inside the valley and tells the painter which cells
+     * are visible, holding the lock of the valley while it reads them.
+     */
+    void applyView() {
+        ventana.runLocked(() -> {
+            Valley theValley = ventana.getValley();
+            firstRow = Math.max(0, Math.min(firstRow, theValley.getRows() - getHeight() / side));
+            firstColumn = Math.max(0, Math.min(firstColumn, theValley.getColumns() - getWidth() / side));
+            painter.setView(side, firstRow, firstColumn, getWidth(), getHeight());
+            painter.repaintChanges(theValley, this);
+        });
+    }
+
+    /**
+     * Repaints the cells that changed in the last tic-tac.
+     */
+    public void repaintChanges() {
+        painter.repaintChanges(ventana.getValley(), this);
+    }
+
+    /**
+     * Chooses between drawing each unit with Graphics and copying a
+     * cached image of the visible cells, and redraws the panel. The view
+     * is set to the visible area first, so the image never holds more
+     * than the panel shows, whatever the size of the valley.
+     *
+     * @param raster true to paint from the cached image.
+     */
+    public void setRaster(boolean raster) {
+        painter.setRaster(raster);
+        applyView();
+        repaint();
+    }
+
+    /**
+     * Draws the grid and the units inside the area being repainted.
      * Automatically called by Swing when the panel needs to be redrawn.
      *
      * @param g Graphics object used for drawing operations.
      */
     @Override
     public void paintComponent(Graphics g) {
-        Valley theValley = ventana.getValley();
-        super.paintComponent(g);
-
-        int size = theValley.getSize();
-
-        // Draw grid lines
-        for (int c = 0; c <= size; c++) {
-            g.drawLine(c * VentanaValley.SIDE, 0, 
-                      c * VentanaValley.SIDE, size * VentanaValley.SIDE);
-        }
-        for (int f = 0; f <= size; f++) {
-            g.drawLine(0, f * VentanaValley.SIDE, 
-                      size * VentanaValley.SIDE, f * VentanaValley.SIDE);
+        if (!RepaintEvent.isRecorded()) {
+            super.paintComponent(g);
+            painter.paint(g);
+            return;
         }
+        RepaintEvent event = new RepaintEvent();
+        event.begin();
+        super.paintComponent(g);
+        painter.paint(g);
 
-        // Draw units
-        for (int f = 0; f < size; f++) {
-            for (int c = 0; c < size; c++) {
-                Unit unit = theValley.getUnit(f, c);
-                
-                if (unit != null) {
-                    g.setColor(unit.getColor());
-
-                    if (unit.shape() == Unit.SQUARE) {
-                        g.fillRoundRect(
-                            VentanaValley.SIDE * c + 1, 
-                            VentanaValley.SIDE * f + 1, 
-                            VentanaValley.SIDE - 2, 
-                            VentanaValley.SIDE - 2, 
-                            2, 2
-                        );
-                    } else {
-                        g.fillOval(
-                            VentanaValley.SIDE * c + 1, 
-                            VentanaValley.SIDE * f + 1, 
-                            VentanaValley.SIDE - 2, 
-                            VentanaValley.SIDE - 2
-                        );
-                    }
-
-                    // Show energy indicator for animals
-                    if (unit.isAnimal()) {
-                        g.setColor(Color.red);
-                        Animal animal = (Animal) unit;
-                        if (animal.getEnergy() >= 50) {
-                            g.drawString("u", 
-                                VentanaValley.SIDE * c + 6, 
-                                VentanaValley.SIDE * f + 15);
-                        } else {
-                            g.drawString("~", 
-                                VentanaValley.SIDE * c + 6, 
-                                VentanaValley.SIDE * f + 17);
-                        }
-                    }
-                }
-            }
+        event.end();
+        if (event.shouldCommit()) {
+            // El tamaño del valle se lee con el candado, como todo acceso fuera del hilo de simulacion
+            ventana.runLocked(() -> {
+                Valley theValley = ventana.getValley();
+                event.rows = theValley.getRows();
+                event.columns = theValley.getColumns();
+                event.units = theValley.population();
+            });
+            event.commit();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,128 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import domain.*;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Unit tests for the Flight Recorder events of the valley. Each test
+ * records the valley events in a recording dumped to a file and reads
+ * their fields back.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class FlightRecorderTest {
+
+    private Recording recording;
+    private Path dump;
+    private File testFile;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        recording = new Recording();
+        recording.enable("valley.TicTac").withThreshold(Duration.ZERO);
+        recording.enable("valley.File").withThreshold(Duration.ZERO);
+        dump = Files.createTempFile("valley", ".jfr");
+        testFile = new File("testRecording.dat");
+    }
+
+    /**
+     * Test 1: Verifies that every tic-tac emits an event with its number,
+     * its tick mode and the population before and after it.
+     */
+    @Test
+    public void testTicTacEvents() throws Exception {
+        Valley valley = new Valley(10, 10);
+        valley.setTickMode(TickMode.DOUBLE_BUFFERED);
+        new Sheep(valley, 5, 5);
+        Wolf hungry = new Wolf(valley, 0, 0);
+        hungry.setEnergy(0);
+
+        recording.start();
+        valley.ticTac();
+        valley.ticTac();
+        List<RecordedEvent> events = stop("valley.TicTac");
+
+        assertEquals(2, events.size(), "Each tic-tac should emit one event.");
+        RecordedEvent first = events.get(0);
+        assertEquals(0L, first.getLong("tick"));
+        assertEquals("DOUBLE_BUFFERED", first.getString("mode"));
+        assertEquals(2, first.getInt("before"));
+        assertEquals(1, first.getInt("after"), "The starving wolf should die.");
+        RecordedEvent second = events.get(1);
+        assertEquals(1L, second.getLong("tick"));
+        assertEquals(1, second.getInt("before"));
+        assertEquals(1, second.getInt("after"));
+        assertFalse(second.getDuration().isNegative());
+    }
+
+    /**
+     * Test 2: Verifies that saving a valley emits an event with the
+     * operation, the path and size of the file and the units saved, and
+     * that a failed save is recorded as such.
+     */
+    @Test
+    public void testSaveEvents() throws Exception {
+        Fachada fachada = new Fachada();
+        int units = fachada.getValley().population();
+        File missing = new File("no-such-directory", "valley.dat");
+
+        recording.start();
+        fachada.save(testFile);
+        assertThrows(ValleyException.class, () -> fachada.save(missing));
+        List<RecordedEvent> events = stop("valley.File");
+
+        assertEquals(2, events.size(), "Each save should emit one event.");
+        RecordedEvent saved = events.get(0);
+        assertEquals("save", saved.getString("operation"));
+        assertEquals(testFile.getPath(), saved.getString("path"));
+        assertEquals(testFile.length(), saved.getLong("bytes"));
+        assertEquals(units, saved.getInt("units"));
+        assertTrue(saved.getBoolean("succeeded"));
+
+        RecordedEvent failed = events.get(1);
+        assertEquals("save", failed.getString("operation"));
+        assertEquals(missing.getPath(), failed.getString("path"));
+        assertEquals(0L, failed.getLong("bytes"));
+        assertFalse(failed.getBoolean("succeeded"));
+    }
+
+    /**
+     * Stops the recording, dumps it and returns its events of the given
+     * type in the order they started.
+     */
+    private List<RecordedEvent> stop(String type) throws Exception {
+        recording.stop();
+        recording.dump(dump);
+        List<RecordedEvent> events = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+            if (event.getEventType().getName().equals(type)) {
+                events.add(event);
+            }
+        }
+        events.sort((a, b) -> a.getStartTime().compareTo(b.getStartTime()));
+        return events;
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        recording.close();
+        Files.deleteIfExists(dump);
+        if (testFile.exists()) {
+            testFile.delete();
+        }
+    }
+}
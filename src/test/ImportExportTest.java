@@ -215,6 +215,157 @@ public class ImportExportTest {
         }
     }
 
+    /**
+     * Test 9: Verifies the valley size is carried through export and import.
+     */
+    @Test
+    public void testExportImportKeepsSize() {
+        try {
+            fachada.newValley(40, 60);
+            new Wolf(fachada.getValley(), 39, 59);
+
+            fachada.export(testFile);
+            fachada.newValley();
+            fachada.importFile(testFile);
+
+            Valley loadedValley = fachada.getValley();
+            assertEquals(40, loadedValley.getRows(), "Rows should be preserved");
+            assertEquals(60, loadedValley.getColumns(), "Columns should be preserved");
+            assertTrue(loadedValley.getUnit(39, 59) instanceof Wolf,
+                "Unit at (39,59) should be a Wolf");
+
+        } catch (ValleyException e) {
+            fail("Export/Import cycle should not throw exception: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test 10: Verifies import rejects a size line placed after the units.
+     */
+    @Test
+    public void testImportSizeAfterUnits() {
+        try {
+            PrintWriter writer = new PrintWriter(testFile);
+            writer.println("Wolf 5 5");
+            writer.println("Size 100 100");
+            writer.close();
+
+            ValleyException exception = assertThrows(ValleyException.class, () -> {
+                fachada.importFile(testFile);
+            });
+
+            assertTrue(exception.getMessage().contains("linea 2"),
+                "Exception should mention the line number");
+
+        } catch (IOException e) {
+            fail("Test setup failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test 11: Verifies the seed of the valley is carried through export and import.
+     */
+    @Test
+    public void testExportImportKeepsSeed() {
+        try {
+            fachada.getValley().setSeed(123456789L);
+
+            fachada.export(testFile);
+            fachada.newValley();
+            fachada.importFile(testFile);
+
+            assertEquals(123456789L, fachada.getValley().getSeed(), "Seed should be preserved");
+
+        } catch (ValleyException e) {
+            fail("Export/Import cycle should not throw exception: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test 12: Verifies import accepts Windows and old Mac line endings,
+     * tabs, blank lines and comments, counting the lines as before.
+     */
+    @Test
+    public void testImportLineEndingsAndSpaces() {
+        try {
+            try (OutputStream out = new FileOutputStream(testFile)) {
+                out.write(("Size 40 30\r\n# comment\r\n\r\n\tWolf\t1  2 \rSheep 3 4\nSeed -7\r\n"
+                        + "Grass +5 6\r\nFox x 7").getBytes("UTF-8"));
+            }
+
+            ValleyException exception = assertThrows(ValleyException.class, () -> {
+                fachada.importFile(testFile);
+            });
+            assertTrue(exception.getMessage().contains("linea 8"),
+                "Exception should mention the line number");
+            assertTrue(exception.getMessage().contains("'x'"),
+                "Exception should quote the invalid row");
+
+            try (OutputStream out = new FileOutputStream(testFile, true)) {
+                out.write("\r".getBytes("UTF-8"));
+            }
+            try (RandomAccessFile file = new RandomAccessFile(testFile, "rw")) {
+                file.seek(file.length() - 4);
+                file.write("8".getBytes("UTF-8"));
+            }
+            fachada.importFile(testFile);
+            Valley valley = fachada.getValley();
+            assertEquals(40, valley.getRows());
+            assertEquals(30, valley.getColumns());
+            assertEquals(-7L, valley.getSeed());
+            assertEquals(4, valley.population());
+            assertTrue(valley.getUnit(1, 2) instanceof Wolf);
+            assertTrue(valley.getUnit(3, 4) instanceof Sheep);
+            assertTrue(valley.getUnit(5, 6) instanceof Grass);
+            assertTrue(valley.getUnit(8, 7) instanceof Fox);
+
+        } catch (IOException | ValleyException e) {
+            fail("Import should accept the file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test 13: Verifies import reports lines longer than its read buffer,
+     * and numbers too large for an int, with their line numbers.
+     */
+    @Test
+    public void testImportLongLineAndOverflow() {
+        try {
+            PrintWriter writer = new PrintWriter(testFile);
+            writer.println("Sheep 1 1");
+            writer.println("Wolf 2 2147483648");
+            writer.close();
+
+            ValleyException exception = assertThrows(ValleyException.class, () -> {
+                fachada.importFile(testFile);
+            });
+            assertTrue(exception.getMessage().contains("linea 2"),
+                "Exception should mention the line number");
+            assertTrue(exception.getMessage().contains("'2147483648'"),
+                "Exception should quote the invalid column");
+
+            writer = new PrintWriter(testFile);
+            writer.println("Sheep 1 1");
+            StringBuilder name = new StringBuilder();
+            for (int i = 0; i < 3_000_000; i++) {
+                name.append('W');
+            }
+            writer.println(name + " 2 2");
+            writer.close();
+
+            exception = assertThrows(ValleyException.class, () -> {
+                fachada.importFile(testFile);
+            });
+            assertTrue(exception.getMessage().contains("linea 2"),
+                "Exception should mention the line number");
+            assertTrue(exception.getMessage().contains("desconocido"),
+                "Exception should report the unknown type");
+
+        } catch (IOException e) {
+            fail("Test setup failed: " + e.getMessage());
+        }
+    }
+
     @AfterEach
     public void tearDown() {
         if (testFile.exists()) {
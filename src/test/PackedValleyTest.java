@@ -0,0 +1,120 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import domain.*;
+
+/**
+ * Unit tests for the PackedValley class.
+ * Verifies the conversion from and to regular valleys and that the
+ * packed behaviors follow the ones of each unit class.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class PackedValleyTest {
+
+    private PackedValley packed;
+
+    @BeforeEach
+    public void setUp() {
+        packed = new PackedValley(25, 25);
+    }
+
+    /**
+     * Test 1: Verifies a valley keeps its units and their state when it is
+     * packed and converted back.
+     */
+    @Test
+    public void testRoundTripKeepsState() {
+        Valley valley = new Valley(25, 25);
+        Sheep sheep = new Sheep(valley, 4, 4);
+        sheep.setEnergy(42);
+        new Fox(valley, 7, 3);
+        new Grass(2, 2, valley).beEaten();
+
+        Valley back = PackedValley.of(valley).toValley();
+
+        assertTrue(back.getUnit(4, 4) instanceof Sheep, "Sheep should be restored at (4,4).");
+        assertEquals(42, ((Sheep) back.getUnit(4, 4)).getEnergy(), "Sheep energy should be kept.");
+        assertTrue(back.getUnit(7, 3) instanceof Fox, "Fox should be restored at (7,3).");
+        assertEquals(0, ((Grass) back.getUnit(2, 2)).getGrowthLevel(), "Grass should stay eaten.");
+    }
+
+    /**
+     * Test 2: Verifies a packed sheep walks north one cell per step.
+     */
+    @Test
+    public void testSheepMovesNorth() {
+        packed.add(UnitKind.SHEEP, 10, 10);
+        packed.ticTac();
+
+        assertNull(packed.kindAt(10, 10), "The sheep should have left (10,10).");
+        assertEquals(UnitKind.SHEEP, packed.kindAt(9, 10), "The sheep should be at (9,10).");
+        assertEquals(4, packed.energyAt(9, 10), "Moving should cost one energy point.");
+    }
+
+    /**
+     * Test 3: Verifies a packed fox hunts an adjacent sheep.
+     */
+    @Test
+    public void testFoxHuntsSheep() {
+        packed.add(UnitKind.FOX, 5, 5);
+        packed.add(UnitKind.SHEEP, 6, 5);
+        packed.ticTac();
+
+        assertEquals(1, packed.population(), "Only the fox should remain.");
+        assertEquals(UnitKind.FOX, packed.kindAt(5, 6), "The fox should have moved east.");
+    }
+
+    /**
+     * Test 4: Verifies a packed SheepLotVol dies next to a WolfLotVol.
+     */
+    @Test
+    public void testSheepLotVolDiesNearWolfLotVol() {
+        packed.add(UnitKind.SHEEP_LOT_VOL, 5, 5);
+        packed.add(UnitKind.WOLF_LOT_VOL, 5, 6);
+        packed.ticTac();
+
+        for (int r = 0; r < 25; r++) {
+            for (int c = 0; c < 25; c++) {
+                assertNotEquals(UnitKind.SHEEP_LOT_VOL, packed.kindAt(r, c),
+                    "No SheepLotVol should survive.");
+            }
+        }
+    }
+
+    /**
+     * Test 5: Verifies packed wolves reproduce when they are next to each other.
+     */
+    @Test
+    public void testWolfLotVolReproduces() {
+        packed.add(UnitKind.WOLF_LOT_VOL, 10, 10);
+        packed.add(UnitKind.WOLF_LOT_VOL, 10, 11);
+        packed.ticTac();
+
+        assertTrue(packed.population() > 2, "A newborn wolf should have been created.");
+    }
+
+    /**
+     * Test 6: Verifies a packed wolf without energy dies.
+     */
+    @Test
+    public void testWolfDiesWithoutEnergy() {
+        Valley valley = new Valley(25, 25);
+        new Wolf(valley, 3, 3).setEnergy(0);
+
+        PackedValley tired = PackedValley.of(valley);
+        tired.ticTac();
+
+        assertEquals(0, tired.population(), "The wolf should have died.");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        packed = null;
+    }
+}
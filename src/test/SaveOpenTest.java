@@ -0,0 +1,395 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import domain.*;
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for saving and opening valleys in .dat files.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class SaveOpenTest {
+
+    private Fachada fachada;
+    private File testFile;
+
+    @BeforeEach
+    public void setUp() {
+        fachada = new Fachada();
+        testFile = new File("testSave.dat");
+    }
+
+    /**
+     * Test 1: Verifies that saving and opening a valley keeps its size,
+     * seed, tic-tacs, and the kind and state of every unit.
+     */
+    @Test
+    public void testSaveOpenKeepsState() {
+        try {
+            fachada.newValley(30, 40);
+            Valley valley = fachada.getValley();
+            valley.setSeed(77L);
+            valley.setTickMode(TickMode.DOUBLE_BUFFERED);
+            for (int c = 0; c < 40; c += 4) {
+                new Sheep(valley, 2, c);
+                new Wolf(valley, 10, c);
+                new Grass(20, c, valley);
+                valley.setUnit(29, c, new Hay(29, c, valley));
+                new SheepLotVol(valley, 15, c);
+            }
+            new Fox(valley, 25, 5);
+            valley.ticTac(7);
+
+            fachada.save(testFile);
+            Fachada other = new Fachada();
+            other.open(testFile);
+            Valley copy = other.getValley();
+
+            assertEquals(30, copy.getRows());
+            assertEquals(40, copy.getColumns());
+            assertEquals(77L, copy.getSeed());
+            assertEquals(7L, copy.getTickCount());
+            assertEquals(TickMode.DOUBLE_BUFFERED, copy.getTickMode());
+            assertEquals(valley.population(), copy.population());
+            for (int r = 0; r < 30; r++) {
+                for (int c = 0; c < 40; c++) {
+                    Unit u = valley.getUnit(r, c);
+                    Unit v = copy.getUnit(r, c);
+                    assertEquals(UnitKind.of(u), UnitKind.of(v), "Kind at (" + r + ", " + c + ")");
+                    if (u instanceof Animal) {
+                        assertEquals(((Animal) u).getEnergy(), ((Animal) v).getEnergy(),
+                                "Energy at (" + r + ", " + c + ")");
+                    }
+                    if (u != null) {
+                        assertEquals(u.getColor(), v.getColor(), "Color at (" + r + ", " + c + ")");
+                    }
+                }
+            }
+            ValleyIndexes.check(copy);
+
+            // Ambos valles siguen igual despues de mas tic-tacs
+            valley.ticTac(5);
+            copy.ticTac(5);
+            for (int r = 0; r < 30; r++) {
+                for (int c = 0; c < 40; c++) {
+                    assertEquals(UnitKind.of(valley.getUnit(r, c)), UnitKind.of(copy.getUnit(r, c)),
+                            "Kind after the tic-tacs at (" + r + ", " + c + ")");
+                }
+            }
+
+        } catch (ValleyException e) {
+            fail("Save/Open cycle should not throw exception: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test 2: Verifies that a valley with few units makes a small file.
+     */
+    @Test
+    public void testSaveIsCompact() {
+        try {
+            fachada.newValley(1000, 1000);
+            new Wolf(fachada.getValley(), 500, 500);
+            fachada.save(testFile);
+            assertTrue(testFile.length() < 200, "File has " + testFile.length() + " bytes");
+
+            fachada.newValley();
+            fachada.open(testFile);
+            assertEquals(1, fachada.getValley().population());
+            assertTrue(fachada.getValley().getUnit(500, 500) instanceof Wolf);
+
+        } catch (ValleyException e) {
+            fail("Save/Open cycle should not throw exception: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test 3: Verifies that files written with Java serialization still open.
+     */
+    @Test
+    public void testOpenSerializedFile() {
+        try {
+            Valley valley = fachada.getValley();
+            int units = valley.population();
+            fachada.save01(testFile);
+
+            Fachada other = new Fachada();
+            other.open(testFile);
+            assertEquals(units, other.getValley().population());
+            assertEquals(valley.getSeed(), other.getValley().getSeed());
+
+        } catch (ValleyException e) {
+            fail("Opening a serialized valley should not throw exception: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test 4: Verifies that a truncated file is rejected with a ValleyException.
+     */
+    @Test
+    public void testOpenTruncatedFile() {
+        try {
+            fachada.save(testFile);
+            try (RandomAccessFile file = new RandomAccessFile(testFile, "rw")) {
+                file.setLength(testFile.length() - 3);
+            }
+            assertThrows(ValleyException.class, () -> fachada.open(testFile));
+
+        } catch (ValleyException | IOException e) {
+            fail("Test setup failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test 5: Verifies that a serialized valley is written as its snapshot,
+     * without one object per unit.
+     */
+    @Test
+    public void testSerializedValleyIsCompact() throws Exception {
+        Valley valley = new Valley(200, 200);
+        for (int r = 0; r < 200; r += 2) {
+            for (int c = 0; c < 200; c += 2) {
+                new Sheep(valley, r, c);
+            }
+        }
+        byte[] bytes = serialize(valley);
+        assertTrue(bytes.length < 12 * valley.population(),
+                "Serialized valley takes " + bytes.length + " bytes for " + valley.population() + " units");
+
+        Valley copy = (Valley) deserialize(bytes);
+        assertEquals(valley.population(), copy.population());
+        assertTrue(copy.getUnit(198, 198) instanceof Sheep);
+        ValleyIndexes.check(copy);
+    }
+
+    /**
+     * Test 6: Verifies that a unit serialized with its valley is read back
+     * as the unit found in its cell of the valley read.
+     */
+    @Test
+    public void testSerializedUnitResolvesToItsCell() throws Exception {
+        Valley valley = new Valley(10, 10);
+        Sheep sheep = new Sheep(valley, 3, 4);
+        sheep.setEnergy(42);
+        Grass grass = new Grass(5, 6, valley);
+
+        Object[] copy = (Object[]) deserialize(serialize(new Object[] {sheep, valley, grass}));
+        Valley valleyCopy = (Valley) copy[1];
+        assertSame(valleyCopy.getUnit(3, 4), copy[0]);
+        assertSame(valleyCopy.getUnit(5, 6), copy[2]);
+        assertEquals(42, ((Sheep) copy[0]).getEnergy());
+    }
+
+    /**
+     * Test 7: Verifies that a valley holding units unknown to the snapshot
+     * is still serialized, with its unit objects.
+     */
+    @Test
+    public void testSerializedValleyWithCustomUnit() throws Exception {
+        Valley valley = new Valley(10, 10);
+        new Wolf(valley, 1, 1);
+        valley.setUnit(2, 2, new Rock());
+
+        Valley copy = (Valley) deserialize(serialize(valley));
+        assertTrue(copy.getUnit(1, 1) instanceof Wolf);
+        assertTrue(copy.getUnit(2, 2) instanceof Rock);
+    }
+
+    /**
+     * Test 8: Verifies that checkpoints are written every interval, that
+     * only the newest are kept and that each one opens with its tic-tacs.
+     */
+    @Test
+    public void testCheckpointsAreRotated() throws Exception {
+        File directory = Files.createTempDirectory("checkpoints").toFile();
+        try {
+            fachada.newValley(20, 20);
+            Valley valley = fachada.getValley();
+            new Sheep(valley, 3, 3);
+            new Wolf(valley, 10, 10);
+            try (CheckpointService service = new CheckpointService(directory, "valley", 5, 2)) {
+                for (int i = 0; i < 20; i++) {
+                    valley.ticTac();
+                    if (service.afterTicTac(valley)) {
+                        service.await();
+                    }
+                }
+                assertEquals(4, service.getHistory().size());
+                assertEquals(0, service.getSkipped());
+                for (CheckpointService.Checkpoint checkpoint : service.getHistory()) {
+                    assertTrue(checkpoint.succeeded());
+                    assertTrue(checkpoint.bytes() > 0);
+                    assertTrue(checkpoint.totalNanos() >= checkpoint.writeNanos());
+                }
+            }
+            String[] names = directory.list();
+            Arrays.sort(names);
+            assertEquals(Arrays.asList("valley-15.dat", "valley-20.dat"), Arrays.asList(names));
+
+            Fachada opened = new Fachada();
+            opened.open(new File(directory, "valley-20.dat"));
+            assertEquals(20, opened.getValley().getTickCount());
+            assertEquals(valley.population(), opened.getValley().population());
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    /**
+     * Test 9: Verifies that a checkpoint saves the valley as it was when
+     * requested, even if the valley changes while it is being written.
+     */
+    @Test
+    public void testCheckpointKeepsCopy() throws Exception {
+        File directory = Files.createTempDirectory("checkpoints").toFile();
+        try {
+            fachada.newValley(10, 10);
+            Valley valley = fachada.getValley();
+            new Sheep(valley, 1, 1);
+            try (CheckpointService service = new CheckpointService(directory, "valley", 1, 1)) {
+                assertTrue(service.checkpoint(valley));
+                valley.setUnit(1, 1, null);
+                new Wolf(valley, 5, 5);
+                service.await();
+            }
+            Fachada opened = new Fachada();
+            opened.open(new File(directory, "valley-0.dat"));
+            assertTrue(opened.getValley().getUnit(1, 1) instanceof Sheep);
+            assertTrue(opened.getValley().isEmpty(5, 5));
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    /**
+     * Test 10: Verifies that a tick journal rebuilds every recorded
+     * tic-tac exactly, from its keyframe and the deltas after it.
+     */
+    @Test
+    public void testJournalReplaysEveryTick() throws Exception {
+        File journalFile = File.createTempFile("valley", ".vlj");
+        try {
+            fachada.newValley(15, 15);
+            Valley valley = fachada.getValley();
+            valley.setSeed(11L);
+            for (int i = 0; i < 15; i += 3) {
+                new Sheep(valley, i, 1);
+                new Fox(valley, 1, i);
+                valley.setUnit(i, i, new Grass(i, i, valley));
+                new WolfLotVol(valley, 14 - i, 7);
+            }
+            List<byte[]> saved = new ArrayList<>();
+            try (TickJournal journal = new TickJournal(journalFile, 8)) {
+                for (int t = 0; t <= 30; t++) {
+                    if (t > 0) {
+                        valley.ticTac();
+                    }
+                    journal.record(valley);
+                    fachada.save(testFile);
+                    saved.add(Files.readAllBytes(testFile.toPath()));
+                }
+                assertEquals(4, journal.getKeyframes());
+                assertEquals(27, journal.getDeltas());
+            }
+
+            try (TickJournal.Reader reader = new TickJournal.Reader(journalFile)) {
+                assertEquals(0, reader.getFirstTick());
+                assertEquals(30, reader.getLastTick());
+                for (int t = 30; t >= 0; t--) {
+                    Fachada replayed = new Fachada();
+                    replayed.replay(journalFile, t);
+                    replayed.save(testFile);
+                    assertArrayEquals(saved.get(t), Files.readAllBytes(testFile.toPath()),
+                            "Tick " + t + " should be rebuilt exactly.");
+                    reader.seek(t);
+                    assertTrue(reader.getFramesRead() <= reader.getKeyframeInterval());
+                }
+            }
+        } finally {
+            journalFile.delete();
+        }
+    }
+
+    /**
+     * Test 11: Verifies that a journal cut in the middle of a frame is
+     * read up to the last whole frame, and that a missing tic-tac is
+     * reported with a ValleyException.
+     */
+    @Test
+    public void testJournalIgnoresTruncatedFrame() throws Exception {
+        File journalFile = File.createTempFile("valley", ".vlj");
+        try {
+            fachada.newValley(10, 10);
+            Valley valley = fachada.getValley();
+            new Sheep(valley, 2, 2);
+            new Wolf(valley, 6, 6);
+            try (TickJournal journal = new TickJournal(journalFile, 4)) {
+                for (int t = 0; t < 10; t++) {
+                    valley.ticTac();
+                    journal.record(valley);
+                }
+            }
+            try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 2);
+            }
+            try (TickJournal.Reader reader = new TickJournal.Reader(journalFile)) {
+                assertEquals(1, reader.getFirstTick());
+                assertEquals(9, reader.getLastTick());
+            }
+            fachada.replay(journalFile, 9);
+            assertEquals(9, fachada.getValley().getTickCount());
+            assertThrows(ValleyException.class, () -> fachada.replay(journalFile, 10));
+        } finally {
+            journalFile.delete();
+        }
+    }
+
+    /**
+     * Unit unknown to the file formats.
+     */
+    private static class Rock implements Unit, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        public void act() {
+        }
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (testFile.exists()) {
+            testFile.delete();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import domain.*;
+import presentation.SimulationWorker;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Unit tests for the thread that runs the tic-tacs of the valley.
+ * The worker only needs a valley and the actions that publish its
+ * frames and its errors, so it runs without a window.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class SimulationWorkerTest {
+
+    // Tiempo maximo de espera de cada condicion, en milisegundos.
+    private static final long TIMEOUT = 5000;
+
+    private Valley valley;
+    private AtomicInteger frames;
+    private List<Throwable> failures;
+    private SimulationWorker worker;
+
+    @BeforeEach
+    public void setUp() {
+        valley = new Valley();
+        frames = new AtomicInteger();
+        failures = new CopyOnWriteArrayList<>();
+        worker = new SimulationWorker(() -> valley, frames::incrementAndGet, failures::add);
+    }
+
+    /**
+     * Test 1: Verifies that a started worker waits paused, runs one
+     * tic-tac per step and publishes its frame, and that once stopped
+     * it runs no more tic-tacs.
+     */
+    @Test
+    public void testStartStepAndStop() throws Exception {
+        worker.start();
+        Thread.sleep(50);
+        assertEquals(0, worker.getTicks(), "A started worker should wait paused.");
+        assertFalse(worker.isPlaying());
+
+        worker.step();
+        await(() -> worker.getTicks() == 1);
+        await(() -> frames.get() == 1);
+        assertEquals(1, valley.getTickCount(), "The valley should run one tic-tac.");
+
+        worker.stop();
+        worker.step();
+        Thread.sleep(50);
+        assertEquals(1, worker.getTicks(), "A stopped worker should run no more tic-tacs.");
+        assertTrue(failures.isEmpty());
+    }
+
+    /**
+     * Test 2: Verifies that while playing as fast as possible the frames
+     * are coalesced: many tic-tacs run between two frames, which are
+     * published at most {@code MAX_FRAMES_PER_SECOND} times per second.
+     */
+    @Test
+    public void testPlayCoalescesFrames() throws Exception {
+        worker.setRate(0);
+        worker.start();
+        long start = System.nanoTime();
+        worker.play();
+        assertTrue(worker.isPlaying());
+        Thread.sleep(500);
+        worker.pause();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long ticks = worker.getTicks();
+        assertFalse(worker.isPlaying());
+        assertTrue(ticks > frames.get(), ticks + " tic-tacs should be shown in fewer frames than " + frames.get());
+        assertTrue(frames.get() <= 30 * seconds + 2, frames.get() + " frames in " + seconds + " s.");
+
+        // Una vez pausado no corre mas tic-tacs
+        Thread.sleep(50);
+        assertEquals(ticks, worker.getTicks(), "A paused worker should run no more tic-tacs.");
+        assertEquals(ticks, valley.getTickCount());
+        worker.stop();
+    }
+
+    /**
+     * Test 3: Verifies that an error in a tic-tac pauses the simulation,
+     * is reported to the failure action without killing the thread, and
+     * that the worker can run tic-tacs again afterwards.
+     */
+    @Test
+    public void testErrorPausesAndIsReported() throws Exception {
+        int[] acts = {0};
+        valley.setUnit(0, 0, () -> {
+            if (++acts[0] == 3) {
+                throw new IllegalStateException("broken unit");
+            }
+        });
+        worker.start();
+        worker.play();
+        await(() -> !failures.isEmpty());
+
+        assertEquals("broken unit", failures.get(0).getMessage());
+        assertFalse(worker.isPlaying(), "An error should pause the simulation.");
+        assertEquals(2, worker.getTicks(), "The failed tic-tac should not be counted.");
+
+        worker.step();
+        await(() -> worker.getTicks() == 3);
+        assertEquals(1, failures.size(), "The next tic-tac should run normally.");
+        worker.stop();
+    }
+
+    /**
+     * Test 4: Verifies that an {@link Error} thrown by a tic-tac, such as
+     * a stack overflow, also pauses the simulation and is reported
+     * instead of ending the thread.
+     */
+    @Test
+    public void testFatalErrorPausesAndIsReported() throws Exception {
+        int[] acts = {0};
+        valley.setUnit(0, 0, () -> {
+            if (++acts[0] == 2) {
+                throw new StackOverflowError();
+            }
+        });
+        worker.start();
+        worker.play();
+        await(() -> !failures.isEmpty());
+
+        assertTrue(failures.get(0) instanceof StackOverflowError);
+        assertFalse(worker.isPlaying(), "An error should pause the simulation.");
+        assertEquals(1, worker.getTicks(), "The failed tic-tac should not be counted.");
+
+        worker.step();
+        await(() -> worker.getTicks() == 2);
+        assertEquals(1, failures.size(), "The thread should keep running tic-tacs.");
+        worker.stop();
+    }
+
+    /**
+     * Test 5: Verifies that other threads holding the lock of the worker
+     * keep the tic-tacs from running until they release it.
+     */
+    @Test
+    public void testLockHoldsTicTacs() throws Exception {
+        worker.start();
+        worker.lock().lock();
+        try {
+            worker.step();
+            Thread.sleep(50);
+            assertEquals(0, valley.getTickCount(), "No tic-tac should run while the lock is held.");
+        } finally {
+            worker.lock().unlock();
+        }
+        await(() -> worker.getTicks() == 1);
+        worker.stop();
+    }
+
+    /**
+     * Waits until a condition holds, failing after {@link #TIMEOUT} milliseconds.
+     */
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not reached in " + TIMEOUT + " ms.");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        // Detiene el hilo si la prueba no lo hizo
+        worker.stop();
+    }
+}
@@ -0,0 +1,75 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import domain.*;
+
+/**
+ * Test helper that checks the indexes a valley keeps beside its grid
+ * (the registry of live units, the occupancy bitboards and the neighbor
+ * counts) against the units of the grid. The indexes are reached through
+ * the public queries that use them, and each answer is compared with one
+ * computed by looking at the cells one by one.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+final class ValleyIndexes {
+
+    private ValleyIndexes() {
+    }
+
+    /**
+     * Fails the test at the first cell where an index disagrees with the grid.
+     *
+     * @param valley Valley between two tic-tacs.
+     */
+    static void check(Valley valley) {
+        int rows = valley.getRows();
+        int columns = valley.getColumns();
+
+        // El registro recorre exactamente las celdas ocupadas
+        int units = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                if (valley.getUnit(r, c) != null) {
+                    units++;
+                }
+            }
+        }
+        int[] visited = {0};
+        valley.forEachUnit((r, c, u) -> {
+            visited[0]++;
+            assertSame(valley.getUnit(r, c), u, "Registered unit at (" + r + ", " + c + ")");
+        });
+        assertEquals(units, visited[0], "Registered units");
+        assertEquals(units, valley.population(), "Population");
+
+        // Conteos de vecinos por celda y por fila contra los de cada celda
+        byte[] counts = new byte[columns];
+        for (UnitKind kind : UnitKind.values()) {
+            for (int r = 0; r < rows; r++) {
+                valley.countNeighbors(kind, r, counts);
+                for (int c = 0; c < columns; c++) {
+                    int expected = scanNeighbors(valley, r, c, kind);
+                    assertEquals(expected, valley.countNeighbors(r, c, kind),
+                            "Count of " + kind + " at (" + r + ", " + c + ")");
+                    assertEquals(expected, counts[c], "Row count of " + kind + " at (" + r + ", " + c + ")");
+                }
+            }
+        }
+    }
+
+    private static int scanNeighbors(Valley valley, int r, int c, UnitKind kind) {
+        int num = 0;
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                if ((dr != 0 || dc != 0) && valley.inValley(r + dr, c + dc)
+                        && UnitKind.of(valley.getUnit(r + dr, c + dc)) == kind) {
+                    num++;
+                }
+            }
+        }
+        return num;
+    }
+}
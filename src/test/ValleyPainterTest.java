@@ -0,0 +1,113 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import domain.*;
+import presentation.ValleyPainter;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.swing.JComponent;
+
+/**
+ * Unit tests for the painter that repaints only the cells of the valley
+ * that look different after a tic-tac. The painter draws on a component
+ * that writes down the rectangles it is asked to repaint.
+ *
+ * @author Alejandra Beltran - Adrian Ducuara
+ * @version 2025-2
+ */
+public class ValleyPainterTest {
+
+    // Tamaño en pixeles de cada celda.
+    private static final int SIDE = 10;
+
+    private Valley valley;
+    private ValleyPainter painter;
+    private RecordingView view;
+
+    @BeforeEach
+    public void setUp() {
+        valley = new Valley(20, 20);
+        painter = new ValleyPainter(SIDE);
+        view = new RecordingView();
+    }
+
+    /**
+     * Test 1: Verifies that after a tic-tac exactly the cells that look
+     * different are repainted: a hunted sheep, a fox whose energy rises
+     * without moving, and the hay that changes its color, but not the
+     * grass that stays the same.
+     */
+    @Test
+    public void testRepaintsOnlyChangedCells() {
+        // Zorro en el borde este: caza la oveja de abajo y da la vuelta sin moverse
+        Fox fox = new Fox(valley, 10, 19);
+        fox.setEnergy(49);
+        new Sheep(valley, 11, 19);
+        valley.setUnit(15, 15, new Hay(15, 15, valley));
+        Grass grass = new Grass(0, 0, valley);
+        assertEquals(2, grass.getGrowthLevel(), "The grass should start mature.");
+
+        painter.repaintChanges(valley, view);
+        assertTrue(view.whole, "A valley never seen should be repainted whole.");
+
+        view.clear();
+        valley.ticTac();
+        painter.repaintChanges(valley, view);
+        assertSame(fox, valley.getUnit(10, 19), "The fox should not move.");
+        assertEquals(51, fox.getEnergy(), "The fox should gain half the energy of the sheep.");
+        assertFalse(view.whole, "A few changes should not repaint the whole view.");
+        assertEquals(Set.of("10,19", "11,19", "15,15"), view.cells, "Repainted cells");
+
+        // Sin cambios en el valle no se repinta nada
+        view.clear();
+        painter.repaintChanges(valley, view);
+        assertTrue(view.cells.isEmpty() && !view.whole, "Nothing should be repainted twice.");
+    }
+
+    /**
+     * Test 2: Verifies that after several tic-tacs every cell that looks
+     * different is repainted, also inside a view that starts away from
+     * the first cell.
+     */
+    @Test
+    public void testRepaintsChangesOfSeveralTicTacs() {
+        new Sheep(valley, 12, 6);
+        painter.setView(SIDE, 5, 5, 10 * SIDE, 10 * SIDE);
+        painter.repaintChanges(valley, view);
+
+        view.clear();
+        valley.ticTac(3);
+        painter.repaintChanges(valley, view);
+        // Celdas relativas a la vista: la oveja paso de la fila 12 a la 9
+        assertEquals(Set.of("7,1", "4,1"), view.cells, "Repainted cells");
+    }
+
+    /**
+     * Component that writes down the cells it is asked to repaint.
+     */
+    private static final class RecordingView extends JComponent {
+
+        private static final long serialVersionUID = 1L;
+
+        // Celdas repintadas como "fila,columna", y si se pidio repintar todo.
+        final Set<String> cells = new TreeSet<>();
+        boolean whole;
+
+        @Override
+        public void repaint(long tm, int x, int y, int width, int height) {
+            if (width == SIDE + 1 && height == SIDE + 1) {
+                cells.add(y / SIDE + "," + x / SIDE);
+            } else {
+                whole = true;
+            }
+        }
+
+        void clear() {
+            cells.clear();
+            whole = false;
+        }
+    }
+}
@@ -1,10 +1,22 @@
 package test;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.sun.management.ThreadMXBean;
+import java.awt.Color;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.StreamSupport;
+
 import domain.*;
 
 /**
@@ -122,6 +134,721 @@ public class ValleyTest {
         assertTrue(dummy.acted, "The act() method should have been executed on the unit.");
     }
 
+    /**
+     * Test 7: Verifies that a valley can be created with its own
+     * number of rows and columns and that bounds follow them.
+     */
+    @Test
+    public void testCustomDimensions() {
+        Valley wide = new Valley(30, 2000);
+
+        assertEquals(30, wide.getRows(), "The valley should have 30 rows.");
+        assertEquals(2000, wide.getColumns(), "The valley should have 2000 columns.");
+        assertTrue(wide.isEmpty(29, 1999), "The last cell should exist and be empty.");
+        assertFalse(wide.isEmpty(30, 0), "A row outside the valley should not be empty.");
+
+        // Un mamifero no puede salir de los limites del valle
+        Wolf w = new Wolf(wide, 29, 1999);
+        w.move(29, 2000);
+        assertSame(w, wide.getUnit(29, 1999), "The wolf should stay inside the valley.");
+    }
+
+    /**
+     * Test 8: Verifies that a chunked valley only reserves memory for the
+     * regions that hold units and releases it when they become empty.
+     */
+    @Test
+    public void testChunkedValleyGrowsWithUnits() {
+        Valley huge = new Valley(1000000, 1000000, StorageMode.CHUNKED);
+        assertEquals(0, huge.allocatedCells(), "An empty chunked valley should not reserve cells.");
+
+        Sheep far = new Sheep(huge, 999999, 999999);
+        Wolf near = new Wolf(huge, 0, 0);
+        assertSame(far, huge.getUnit(999999, 999999), "Should retrieve the same sheep instance.");
+        assertEquals(2L * 64 * 64, huge.allocatedCells(), "Only two tiles should be reserved.");
+
+        huge.ticTac();
+        assertNotNull(huge.getUnit(999998, 999999), "The sheep should have moved north.");
+
+        far.die();
+        near.die();
+        assertEquals(0, huge.allocatedCells(), "Empty tiles should be released.");
+    }
+
+    /**
+     * Test 9: Verifies that an off-heap valley keeps the state of its units
+     * between tic-tacs and that a mapped valley can be opened again.
+     */
+    @Test
+    public void testOffHeapValleyKeepsState() throws Exception {
+        File file = File.createTempFile("valley", ".map");
+        file.deleteOnExit();
+
+        Valley mapped = Valley.createMapped(file, 30, 30);
+        new Sheep(mapped, 10, 10);
+        new Grass(2, 2, mapped);
+        mapped.ticTac();
+
+        assertTrue(mapped.getUnit(9, 10) instanceof Sheep, "The sheep should have moved north.");
+        assertEquals(4, ((Sheep) mapped.getUnit(9, 10)).getEnergy(), "Moving should cost one energy point.");
+        mapped.sync();
+
+        Valley resumed = Valley.openMapped(file);
+        assertEquals(StorageMode.OFF_HEAP, resumed.getStorageMode(), "The valley should be off-heap.");
+        assertEquals(30, resumed.getRows(), "Rows should be read from the file.");
+        assertEquals(4, ((Sheep) resumed.getUnit(9, 10)).getEnergy(), "Energy should be read from the file.");
+        assertTrue(resumed.getUnit(2, 2) instanceof Grass, "Grass should be read from the file.");
+        assertNull(resumed.getUnit(10, 10), "The old cell should be empty.");
+    }
+
+    /**
+     * Test 10: Verifies that the valley keeps track of its live units:
+     * each unit acts once per tic-tac even if it moves ahead of the
+     * traversal, and dead units are no longer visited.
+     */
+    @Test
+    public void testLiveUnitsAreTracked() {
+        Valley big = new Valley(100, 100, StorageMode.CHUNKED);
+        Fox fox = new Fox(big, 50, 10);
+        Sheep sheep = new Sheep(big, 80, 80);
+        assertEquals(2, big.population(), "The valley should have two units.");
+
+        // El zorro avanza hacia el este, pero solo actua una vez por paso
+        big.ticTac();
+        assertSame(fox, big.getUnit(50, 11), "The fox should move exactly one cell.");
+        assertEquals(2, big.population(), "Moving should not change the population.");
+
+        int[] visited = {0};
+        StreamSupport.stream(big.units(), true).forEach(u -> {
+            synchronized (visited) {
+                visited[0]++;
+            }
+        });
+        assertEquals(2, visited[0], "units() should visit every live unit.");
+
+        sheep.die();
+        sheep.die();
+        assertEquals(1, big.population(), "A dead unit should leave the valley only once.");
+        assertFalse(sheep.move(10, 10), "A dead unit should not move.");
+        assertTrue(big.isEmpty(10, 10), "A dead unit should not come back.");
+    }
+
+    /**
+     * Test 11: Verifies that the neighbor queries agree with a scan of the
+     * eight neighbors, including cells on the borders of the 64-bit words.
+     */
+    @Test
+    public void testNeighborQueriesMatchScan() {
+        Valley mixed = new Valley(40, 130);
+        Random random = new Random(7);
+        for (int i = 0; i < 1500; i++) {
+            int r = random.nextInt(40);
+            int c = random.nextInt(130);
+            if (mixed.isEmpty(r, c)) {
+                if (random.nextBoolean()) {
+                    new Sheep(mixed, r, c);
+                } else {
+                    mixed.setUnit(r, c, new Hay(r, c, mixed));
+                }
+            }
+        }
+
+        byte[] counts = new byte[130];
+        for (int r = 0; r < 40; r++) {
+            mixed.countNeighbors(UnitKind.SHEEP, r, counts);
+            for (int c = 0; c < 130; c++) {
+                // Recorrido directo de los ocho vecinos
+                int sheep = 0;
+                Unit first = null;
+                for (int dr = -1; dr <= 1; dr++) {
+                    for (int dc = -1; dc <= 1; dc++) {
+                        if ((dr != 0 || dc != 0) && mixed.inValley(r + dr, c + dc)) {
+                            Unit u = mixed.getUnit(r + dr, c + dc);
+                            if (u instanceof Sheep) {
+                                sheep++;
+                                if (first == null) {
+                                    first = u;
+                                }
+                            }
+                        }
+                    }
+                }
+                assertEquals(sheep, mixed.countNeighbors(r, c, UnitKind.SHEEP), "Wrong count at " + r + "," + c);
+                assertEquals(sheep, (int) counts[c], "Wrong row count at " + r + "," + c);
+                assertSame(first, mixed.findNeighbor(r, c, UnitKind.SHEEP.mask()), "Wrong first sheep at " + r + "," + c);
+            }
+        }
+    }
+
+    /**
+     * Test 12: Verifies that the neighbor counts stay consistent with the
+     * units while they move, eat, reproduce and die.
+     */
+    @Test
+    public void testNeighborCountsStayConsistent() {
+        Valley counted = new Valley(30, 30);
+        new WolfLotVol(counted, 10, 10);
+        new WolfLotVol(counted, 11, 11);
+        new SheepLotVol(counted, 20, 20);
+        new SheepLotVol(counted, 21, 20);
+        new Sheep(counted, 5, 5);
+        new Sheep(counted, 5, 6);
+        counted.setUnit(20, 22, new Hay(20, 22, counted));
+
+        counted.setNeighborCounting(true);
+        assertTrue(counted.isNeighborCounting(), "Neighbor counting should be on.");
+        assertEquals(1, counted.countNeighbors(10, 10, UnitKind.WOLF_LOT_VOL), "The wolves are neighbors.");
+        assertTrue(counted.hasNeighbor(21, 21, UnitKind.HAY), "The hay is next to (21, 21).");
+
+        for (int i = 0; i < 30; i++) {
+            counted.ticTac();
+            ValleyIndexes.check(counted);
+        }
+    }
+
+    /**
+     * Test 13: Verifies that in a double-buffered tic-tac units see the
+     * cells as they were at the start: a cell left by a unit cannot be
+     * taken until the next tic-tac, and a killed unit is not hunted twice.
+     */
+    @Test
+    public void testDoubleBufferedTicTac() {
+        Valley buffered = new Valley(20, 20);
+        buffered.setTickMode(TickMode.DOUBLE_BUFFERED);
+        Sheep leader = new Sheep(buffered, 10, 4);
+        Sheep follower = new Sheep(buffered, 11, 4);
+
+        // Dos zorros junto a la misma oveja
+        new Sheep(buffered, 5, 10);
+        Fox first = new Fox(buffered, 4, 9);
+        Fox second = new Fox(buffered, 6, 11);
+        int energy = second.getEnergy();
+
+        buffered.ticTac();
+        assertSame(leader, buffered.getUnit(9, 4), "The leader should move north.");
+        assertSame(follower, buffered.getUnit(11, 4), "The follower should wait, its cell was taken at the start.");
+        assertNull(buffered.getUnit(5, 10), "The prey should be hunted.");
+        assertSame(first, buffered.getUnit(4, 10), "The first fox should hunt and move.");
+        // Solo paga el paso que dio
+        assertEquals(energy - 1, second.getEnergy(), "The second fox should not eat the same sheep.");
+        ValleyIndexes.check(buffered);
+
+        buffered.ticTac();
+        assertSame(follower, buffered.getUnit(10, 4), "The follower should move once the cell is free.");
+
+        // En modo secuencial la celda liberada se puede tomar en el mismo paso
+        Valley sequential = new Valley(20, 20);
+        new Sheep(sequential, 10, 4);
+        Sheep next = new Sheep(sequential, 11, 4);
+        sequential.ticTac();
+        assertSame(next, sequential.getUnit(10, 4), "The follower should move right behind the leader.");
+    }
+
+    /**
+     * Test 14: Verifies that a parallel tic-tac on several threads gives,
+     * for a fixed seed, the same valley as a sequential one, in every
+     * storage mode.
+     */
+    @Test
+    public void testParallelTicTacMatchesSequential() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (StorageMode mode : StorageMode.values()) {
+                Valley parallel = new Valley(64, 200, mode);
+                Valley sequential = new Valley(64, 200, StorageMode.DENSE);
+                Random random = new Random(11);
+                for (int i = 0; i < 5000; i++) {
+                    int r = random.nextInt(64);
+                    int c = random.nextInt(200);
+                    int kind = random.nextInt(5);
+                    for (Valley v : new Valley[] {parallel, sequential}) {
+                        if (!v.isEmpty(r, c)) {
+                            continue;
+                        }
+                        if (kind == 0) {
+                            new Sheep(v, r, c);
+                        } else if (kind == 1) {
+                            new Fox(v, r, c);
+                        } else if (kind == 2) {
+                            v.setUnit(r, c, new Hay(r, c, v));
+                        } else if (kind == 3) {
+                            new Grass(r, c, v);
+                        } else {
+                            new Wolf(v, r, c);
+                        }
+                    }
+                }
+                for (Valley v : new Valley[] {parallel, sequential}) {
+                    v.setSeed(99L);
+                }
+                parallel.setTickMode(TickMode.PARALLEL);
+
+                for (int t = 0; t < 25; t++) {
+                    pool.submit(() -> parallel.ticTac()).get();
+                    sequential.ticTac();
+                    for (int r = 0; r < 64; r++) {
+                        for (int c = 0; c < 200; c++) {
+                            Unit a = parallel.getUnit(r, c);
+                            Unit b = sequential.getUnit(r, c);
+                            assertEquals(b == null ? null : b.getClass(), a == null ? null : a.getClass(),
+                                    mode + ": cells differ at (" + r + ", " + c + ") after tic-tac " + t);
+                            if (a instanceof Animal) {
+                                assertEquals(((Animal) b).getEnergy(), ((Animal) a).getEnergy(),
+                                        mode + ": energy differs at (" + r + ", " + c + ")");
+                            }
+                        }
+                    }
+                }
+                ValleyIndexes.check(parallel);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Test 15: Verifies that valleys with the same units and seed evolve
+     * the same way, also when the random units run on several threads.
+     */
+    @Test
+    public void testSameSeedSameRun() throws Exception {
+        Valley[] valleys = {
+            new Valley(48, 48), new Valley(48, 48), new Valley(48, 48, StorageMode.CHUNKED)
+        };
+        for (Valley v : valleys) {
+            v.setSeed(2025L);
+            for (int i = 0; i < 6; i++) {
+                new Wolf(v, 2 + 7 * i, 5);
+                new WolfLotVol(v, 3 + 7 * i, 20);
+                new SheepLotVol(v, 2 + 7 * i, 30);
+                new SheepLotVol(v, 3 + 7 * i, 31);
+                v.setUnit(4 + 7 * i, 32, new Hay(4 + 7 * i, 32, v));
+            }
+        }
+        valleys[1].setTickMode(TickMode.PARALLEL);
+        valleys[2].setTickMode(TickMode.PARALLEL);
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (int t = 0; t < 20; t++) {
+                valleys[0].ticTac();
+                pool.submit(() -> valleys[1].ticTac()).get();
+                valleys[2].ticTac();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        Valley copy = new Valley(48, 48);
+        copy.setSeed(2025L);
+        for (int i = 0; i < 6; i++) {
+            new Wolf(copy, 2 + 7 * i, 5);
+            new WolfLotVol(copy, 3 + 7 * i, 20);
+            new SheepLotVol(copy, 2 + 7 * i, 30);
+            new SheepLotVol(copy, 3 + 7 * i, 31);
+            copy.setUnit(4 + 7 * i, 32, new Hay(4 + 7 * i, 32, copy));
+        }
+        for (int t = 0; t < 20; t++) {
+            copy.ticTac();
+        }
+
+        for (int r = 0; r < 48; r++) {
+            for (int c = 0; c < 48; c++) {
+                assertEquals(kindAt(valleys[0], r, c), kindAt(copy, r, c), "Sequential runs differ at (" + r + ", " + c + ")");
+                assertEquals(kindAt(valleys[2], r, c), kindAt(valleys[1], r, c), "Parallel runs differ at (" + r + ", " + c + ")");
+            }
+        }
+        assertEquals(20L, copy.getTickCount(), "Every tic-tac should be counted.");
+    }
+
+    /**
+     * Test 16: Verifies that several tic-tacs can be run with one call.
+     */
+    @Test
+    public void testTicTacSeveralTimes() {
+        Valley small = new Valley(10, 10);
+        small.setUnit(1, 1, new Hay(1, 1, small));
+        small.setUnit(2, 2, new Hay(2, 2, small));
+
+        assertEquals(6L, small.ticTac(3), "Two units should be visited in each of three tic-tacs.");
+        assertEquals(3L, small.getTickCount(), "Three tic-tacs should be counted.");
+        assertThrows(IllegalArgumentException.class, () -> small.ticTac(-1));
+    }
+
+    /**
+     * Test 17: Verifies that an instrumented valley counts the acts
+     * of each kind of unit and the events of the tic-tac.
+     */
+    @Test
+    public void testTickStatsCountActsAndEvents() {
+        Valley small = new Valley(10, 10);
+        // Semilla fija: un intento de moverse a la propia celda contaria como fallido
+        small.setSeed(1L);
+        assertNull(small.getTickStats(), "The instrumentation should be off by default.");
+
+        Wolf hungry = new Wolf(small, 0, 0);
+        hungry.setEnergy(0);
+        new WolfLotVol(small, 5, 5);
+        new SheepLotVol(small, 5, 6);
+        small.setUnit(9, 9, new Hay(9, 9, small));
+        small.setInstrumented(true);
+
+        small.ticTac();
+        TickStats.Snapshot first = small.getTickStats().snapshot();
+        assertEquals(1L, first.ticks());
+        assertEquals(1L, first.acts(UnitKind.WOLF));
+        assertEquals(1L, first.acts(UnitKind.WOLF_LOT_VOL));
+        assertEquals(0L, first.acts(UnitKind.SHEEP_LOT_VOL), "The hunted sheep should not act.");
+        assertEquals(1L, first.acts(UnitKind.HAY));
+        assertEquals(1L, first.count(TickStats.Event.STARVATION));
+        assertEquals(1L, first.count(TickStats.Event.KILL));
+        assertTrue(first.maxNanos(UnitKind.WOLF_LOT_VOL) <= first.totalNanos(UnitKind.WOLF_LOT_VOL));
+
+        small.ticTac();
+        TickStats.Snapshot second = small.getTickStats().snapshot();
+        assertEquals(2L, second.ticks());
+        assertEquals(1L, second.count(TickStats.Event.MOVE) + second.count(TickStats.Event.FAILED_MOVE),
+                "The lone wolf should try one move.");
+
+        small.getTickStats().reset();
+        assertEquals(0L, small.getTickStats().snapshot().acts(UnitKind.HAY));
+        small.setInstrumented(false);
+        assertNull(small.getTickStats());
+    }
+
+    /**
+     * Test 18: Verifies that the change set of a tic-tac, applied to the
+     * cells occupied before it, gives the cells occupied after it.
+     */
+    @Test
+    public void testChangeSetReplaysTicTac() {
+        for (TickMode mode : TickMode.values()) {
+            Valley mixed = new Valley(20, 20);
+            mixed.setSeed(7L);
+            mixed.setTickMode(mode);
+            Wolf hungry = new Wolf(mixed, 0, 0);
+            hungry.setEnergy(0);
+            mixed.setUnit(19, 19, new Hay(19, 19, mixed));
+            for (int i = 0; i < 5; i++) {
+                new Sheep(mixed, 10, 2 + 3 * i);
+                new WolfLotVol(mixed, 4, 2 + 3 * i);
+                new SheepLotVol(mixed, 14, 2 + 3 * i);
+                new SheepLotVol(mixed, 15, 2 + 3 * i);
+            }
+            assertEquals(0, mixed.getChanges().size(), "No changes before the first tic-tac.");
+
+            for (int t = 0; t < 5; t++) {
+                boolean[][] occupied = new boolean[20][20];
+                for (int r = 0; r < 20; r++) {
+                    for (int c = 0; c < 20; c++) {
+                        occupied[r][c] = mixed.getUnit(r, c) != null;
+                    }
+                }
+                mixed.ticTac();
+
+                ChangeSet changes = mixed.getChanges();
+                assertEquals(t, changes.tick());
+                for (int i = 0; i < changes.size(); i++) {
+                    switch (changes.type(i)) {
+                        case ChangeSet.MOVED:
+                            occupied[changes.fromRow(i)][changes.fromColumn(i)] = false;
+                            occupied[changes.toRow(i)][changes.toColumn(i)] = true;
+                            break;
+                        case ChangeSet.SPAWNED:
+                            occupied[changes.toRow(i)][changes.toColumn(i)] = true;
+                            break;
+                        case ChangeSet.DIED:
+                            occupied[changes.toRow(i)][changes.toColumn(i)] = false;
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                for (int r = 0; r < 20; r++) {
+                    for (int c = 0; c < 20; c++) {
+                        assertEquals(mixed.getUnit(r, c) != null, occupied[r][c],
+                                mode + " tic-tac " + t + " differs at (" + r + ", " + c + ")");
+                    }
+                }
+                if (t == 0) {
+                    assertTrue(contains(changes, ChangeSet.DIED, 0, 0), mode + ": the hungry wolf should die.");
+                    assertTrue(contains(changes, ChangeSet.CHANGED, 19, 19), mode + ": the hay should change color.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Test 19: Verifies that the range query visits, row by row, exactly the
+     * units inside the rectangle, and clips rectangles that leave the valley.
+     */
+    @Test
+    public void testForEachUnitInRange() {
+        Valley big = new Valley(30, 40);
+        for (int i = 0; i < 30; i++) {
+            big.setUnit(i, (i * 7) % 40, new Hay(i, (i * 7) % 40, big));
+            new Sheep(big, (i * 11) % 30, (i * 13) % 40);
+        }
+
+        StringBuilder expected = new StringBuilder();
+        big.forEachUnit((r, c, u) -> {
+            if (r >= 5 && r <= 20 && c >= 10 && c <= 25) {
+                expected.append(r).append(',').append(c).append(' ');
+            }
+        });
+        StringBuilder visited = new StringBuilder();
+        big.forEachUnit(5, 10, 20, 25, (r, c, u) -> {
+            assertSame(big.getUnit(r, c), u);
+            visited.append(r).append(',').append(c).append(' ');
+        });
+        assertEquals(expected.toString(), visited.toString());
+
+        int[] count = {0};
+        big.forEachUnit(-10, -10, 100, 100, (r, c, u) -> count[0]++);
+        assertEquals(big.population(), count[0], "A rectangle larger than the valley visits every unit.");
+        count[0] = 0;
+        big.forEachUnit(35, 0, 50, 39, (r, c, u) -> count[0]++);
+        big.forEachUnit(20, 10, 10, 20, (r, c, u) -> count[0]++);
+        assertEquals(0, count[0], "Empty rectangles visit nothing.");
+    }
+
+    /**
+     * Test 20: Verifies that, once warmed up, 10,000 tic-tacs of a valley
+     * of hay, grass and sheep allocate almost nothing in every tick mode.
+     * The tic-tacs run on a pool of four threads and the bytes allocated
+     * by all of them are added.
+     */
+    @Test
+    public void testTicTacDoesNotAllocate() throws Exception {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        List<Thread> workers = new CopyOnWriteArrayList<>();
+        ForkJoinPool pool = newPool(4, workers);
+        try {
+            for (TickMode mode : TickMode.values()) {
+                Valley steady = new Valley(30, 30);
+                steady.setSeed(11L);
+                steady.setTickMode(mode);
+                for (int c = 0; c < 30; c += 3) {
+                    steady.setUnit(29, c, new Hay(29, c, steady));
+                    new Grass(28, c, steady);
+                    new Sheep(steady, 0, c);
+                    new Sheep(steady, 1, c + 1);
+                }
+                pool.submit(() -> steady.ticTac(1000)).get();
+
+                long before = allocated(threads, workers);
+                pool.submit(() -> steady.ticTac(10000)).get();
+                long allocated = allocated(threads, workers) - before;
+                assertTrue(steady.population() > 20, mode + ": the scenario should keep its units.");
+                assertTrue(allocated < 64 * 1024, mode + ": 10,000 tic-tacs allocated " + allocated + " bytes.");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Test 21: Verifies that each unit of a sequential tic-tac acts once:
+     * a sheep heading south and a fox taking the cell of its prey do not
+     * act again on the cells they reach, and a unit born on a cell still
+     * to be visited waits for the next tic-tac.
+     */
+    @Test
+    public void testUnitsActOncePerTicTac() {
+        Valley once = new Valley(20, 20);
+        Sheep sheep = new Sheep(once, 0, 5);
+        Fox fox = new Fox(once, 8, 4);
+        new Sheep(once, 8, 5);
+
+        // Una unidad que al actuar pone a otra sobre el pasto de la celda siguiente
+        int[] acts = {0};
+        Unit newborn = () -> acts[0]++;
+        once.setUnit(12, 3, (Unit) () -> once.setUnit(12, 4, newborn));
+        new Grass(12, 4, once);
+
+        once.ticTac();
+        assertSame(sheep, once.getUnit(1, 5), "The sheep should turn at the edge and move one row.");
+        assertSame(fox, once.getUnit(8, 5), "The fox should take the cell of its prey and stop there.");
+        assertSame(newborn, once.getUnit(12, 4), "The newborn should replace the grass.");
+        assertEquals(0, acts[0], "The newborn should wait for the next tic-tac.");
+        ValleyIndexes.check(once);
+
+        once.ticTac();
+        assertSame(sheep, once.getUnit(2, 5), "The sheep should move one row per tic-tac.");
+        assertSame(fox, once.getUnit(8, 6), "The fox should move one column per tic-tac.");
+        assertEquals(1, acts[0], "The newborn should act once.");
+    }
+
+    /**
+     * Test 22: Verifies that a unit taken from an off-heap valley stays
+     * the unit of its cell after the valley is synced and runs tic-tacs,
+     * so the changes made through it are kept.
+     */
+    @Test
+    public void testOffHeapUnitSurvivesFlush() {
+        Valley offHeap = new Valley(30, 30, StorageMode.OFF_HEAP);
+        new Sheep(offHeap, 20, 10);
+        new Grass(2, 2, offHeap);
+        Sheep sheep = (Sheep) offHeap.getUnit(20, 10);
+        Grass grass = (Grass) offHeap.getUnit(2, 2);
+
+        offHeap.sync();
+        assertSame(sheep, offHeap.getUnit(20, 10), "The sheep should be the same after a sync.");
+
+        offHeap.ticTac(3);
+        assertEquals(17, sheep.getRow(), "The held sheep should follow its moves.");
+        assertSame(sheep, offHeap.getUnit(17, 10), "The sheep should be the same after the tic-tacs.");
+        assertSame(grass, offHeap.getUnit(2, 2), "The grass should be the same after the tic-tacs.");
+        assertEquals(2, sheep.getEnergy(), "Every move should cost one energy point.");
+
+        // Lo que hace la oveja sostenida llega al registro de su celda
+        sheep.die();
+        offHeap.sync();
+        assertNull(offHeap.getUnit(17, 10), "The dead sheep should leave its cell.");
+        ValleyIndexes.check(offHeap);
+    }
+
+    /**
+     * Test 23: Verifies that tic-tacs where units are born and die every
+     * step only allocate the newborns, in every storage mode, running
+     * sequentially and in parallel and adding the bytes allocated by all
+     * the threads of the pool.
+     */
+    @Test
+    public void testBirthsAndDeathsOnlyAllocateNewborns() throws Exception {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        List<Thread> workers = new CopyOnWriteArrayList<>();
+        ForkJoinPool pool = newPool(4, workers);
+        try {
+            for (StorageMode storage : StorageMode.values()) {
+                // Con doble buffer este valle se llena y deja de haber nacimientos
+                for (TickMode mode : new TickMode[] {TickMode.SEQUENTIAL, TickMode.PARALLEL}) {
+                    // Ovejas que se reproducen y lobos que las cazan, en equilibrio
+                    Valley living = new Valley(30, 30, storage);
+                    living.setSeed(7L);
+                    living.setTickMode(mode);
+                    Random random = new Random(3);
+                    for (int r = 0; r < 30; r++) {
+                        for (int c = 0; c < 30; c++) {
+                            int k = random.nextInt(100);
+                            if (k < 5) {
+                                new SheepLotVol(living, r, c);
+                            } else if (k < 6) {
+                                new WolfLotVol(living, r, c);
+                            } else if (k < 16) {
+                                living.setUnit(r, c, new Hay(r, c, living));
+                            }
+                        }
+                    }
+                    living.setInstrumented(true);
+                    pool.submit(() -> living.ticTac(300)).get();
+                    living.getTickStats().reset();
+
+                    long before = allocated(threads, workers);
+                    pool.submit(() -> living.ticTac(1000)).get();
+                    long allocated = allocated(threads, workers) - before;
+                    TickStats.Snapshot stats = living.getTickStats().snapshot();
+                    long births = stats.count(TickStats.Event.BIRTH);
+                    long deaths = stats.count(TickStats.Event.KILL) + stats.count(TickStats.Event.STARVATION);
+                    String name = storage + "/" + mode;
+                    assertTrue(births > 1000 && deaths > 1000, name + ": units should be born and die.");
+                    assertTrue(allocated < births * 64 + 64 * 1024,
+                            name + ": " + births + " births allocated " + allocated + " bytes.");
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Test 24: Verifies that the units an off-heap valley reads back from
+     * its records during a tic-tac are not recorded as changes. With more
+     * units than views remembered every unit is decoded when it acts.
+     */
+    @Test
+    public void testRestoredUnitsAreNotChanges() {
+        Valley offHeap = new Valley(400, 400, StorageMode.OFF_HEAP);
+        for (int r = 0; r < 400; r++) {
+            for (int c = 0; c < 400; c += 2) {
+                new Grass(r, c, offHeap);
+            }
+        }
+        new Sheep(offHeap, 200, 201);
+        offHeap.ticTac(2);
+
+        // Solo la oveja cambia: el pasto maduro leido de su registro no
+        ChangeSet changes = offHeap.getChanges();
+        assertTrue(contains(changes, ChangeSet.MOVED, 198, 201), "The sheep should move north.");
+        for (int i = 0; i < changes.size(); i++) {
+            assertEquals(201, changes.toColumn(i), "Only the sheep should change, not " + changes.toRow(i)
+                    + ", " + changes.toColumn(i));
+        }
+        assertEquals(80001, offHeap.population());
+    }
+
+    /**
+     * Test 25: Verifies that an off-heap valley with more units than the
+     * views it remembers keeps running: after each tic-tac it forgets the
+     * views and the next one reads every unit back from its record.
+     */
+    @Test
+    public void testOffHeapValleyAboveViewLimit() {
+        Valley offHeap = new Valley(400, 400, StorageMode.OFF_HEAP);
+        for (int r = 0; r < 400; r++) {
+            for (int c = 0; c < 400; c += 2) {
+                offHeap.setUnit(r, c, new Hay(r, c, offHeap));
+            }
+        }
+        offHeap.ticTac(3);
+
+        assertEquals(80000, offHeap.population(), "Every hay should stay in the valley.");
+        assertEquals(3, offHeap.getTickCount());
+        assertEquals(Color.RED, offHeap.getUnit(0, 0).getColor(), "The hay should act once per tic-tac.");
+        assertEquals(Color.RED, offHeap.getUnit(399, 398).getColor(), "The hay should act once per tic-tac.");
+        assertNull(offHeap.getUnit(0, 1));
+        ValleyIndexes.check(offHeap);
+    }
+
+    /**
+     * Returns a fork/join pool that adds its threads to the given list.
+     */
+    private static ForkJoinPool newPool(int parallelism, List<Thread> workers) {
+        return new ForkJoinPool(parallelism, p -> {
+            ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            workers.add(worker);
+            return worker;
+        }, null, false);
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread and the given ones.
+     */
+    private static long allocated(ThreadMXBean threads, List<Thread> workers) {
+        long total = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (Thread worker : workers) {
+            total += Math.max(0, threads.getThreadAllocatedBytes(worker.getId()));
+        }
+        return total;
+    }
+
+    private static boolean contains(ChangeSet changes, int type, int r, int c) {
+        for (int i = 0; i < changes.size(); i++) {
+            if (changes.type(i) == type && changes.toRow(i) == r && changes.toColumn(i) == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static UnitKind kindAt(Valley v, int r, int c) {
+        return UnitKind.of(v.getUnit(r, c));
+    }
+
     /**
      * Cleans up references after each test.
      */